@@ -0,0 +1,99 @@
+package com.mfurst.mf0721;
+
+import com.mfurst.mf0721.model.dto.Holiday;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.service.AvailabilityService;
+import com.mfurst.mf0721.service.BatchRentalService;
+import com.mfurst.mf0721.service.PricingMetrics;
+import com.mfurst.mf0721.service.RentalService;
+import com.mfurst.mf0721.service.ToolService;
+import com.mfurst.mf0721.util.DateUtil;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Services wired the same way as the application configuration, without
+ * starting Spring, so benchmarks only measure the code under test
+ */
+public final class BenchmarkFixtures {
+    public static final List<Holiday> HOLIDAYS = List.of(
+            new Holiday("closest-weekday", 7, 4),
+            new Holiday("next-monday", 9, 1)
+    );
+
+    public static final List<ToolType> TOOL_TYPES = List.of(
+            new ToolType("Ladder", new BigDecimal("1.99"), true, true, false),
+            new ToolType("Chainsaw", new BigDecimal("1.49"), true, false, true),
+            new ToolType("Jackhammer", new BigDecimal("2.99"), true, false, false)
+    );
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Code of the tool at the provided position in a catalog built by {@link #toolService(int)}
+     * @param index
+     * @return
+     */
+    public static String toolCode(int index) {
+        return String.format("T%07d", index);
+    }
+
+    public static ToolService toolService(int catalogSize) {
+        List<Tool> tools = new ArrayList<>(catalogSize);
+        for (int i = 0; i < catalogSize; i++) {
+            tools.add(new Tool(toolCode(i), TOOL_TYPES.get(i % TOOL_TYPES.size()).getType(), "Brand" + i % 50));
+        }
+        ToolService toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
+        toolService.reloadCatalog(tools, TOOL_TYPES);
+        return toolService;
+    }
+
+    /**
+     * Date utility with the default holidays
+     * @param chargeDayTable if the precomputed charge day table should be used
+     * @return
+     */
+    public static DateUtil dateUtil(boolean chargeDayTable) {
+        DateUtil dateUtil = new DateUtil();
+        ReflectionTestUtils.setField(dateUtil, "holidays", HOLIDAYS);
+        if (chargeDayTable) {
+            ReflectionTestUtils.setField(dateUtil, "chargeTableStartYear", 2000);
+            ReflectionTestUtils.setField(dateUtil, "chargeTableEndYear", 2050);
+        }
+        return dateUtil;
+    }
+
+    public static RentalService rentalService(DateUtil dateUtil) {
+        //Quotes take their holidays from the pricing snapshot of the tool service
+        ToolService toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(toolService, "dateUtil", dateUtil);
+        RentalService rentalService = new RentalService();
+        ReflectionTestUtils.setField(rentalService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(rentalService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "toolService", toolService);
+        ReflectionTestUtils.setField(rentalService, "dateFormat", "MM/dd/yy");
+        ReflectionTestUtils.setField(rentalService, "currencyFormat", "$#,##0.00");
+        return rentalService;
+    }
+
+    public static BatchRentalService batchRentalService(ToolService toolService, RentalService rentalService) {
+        BatchRentalService batchRentalService = new BatchRentalService();
+        ReflectionTestUtils.setField(batchRentalService, "toolService", toolService);
+        ReflectionTestUtils.setField(batchRentalService, "rentalService", rentalService);
+        return batchRentalService;
+    }
+
+    public static AvailabilityService availabilityService(ToolService toolService, RentalService rentalService) {
+        AvailabilityService availabilityService = new AvailabilityService();
+        ReflectionTestUtils.setField(availabilityService, "toolService", toolService);
+        ReflectionTestUtils.setField(availabilityService, "rentalService", rentalService);
+        return availabilityService;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.BenchmarkFixtures;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.Reservation;
+import com.mfurst.mf0721.model.ToolInformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Availability checks, reservations and searches by tool type in a catalog
+ * where every tool already has a year of alternating weekly rentals
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class AvailabilityServiceBenchmark {
+    private static final int LOOKUPS = 1024;
+    private static final LocalDate FIRST_RENTAL = LocalDate.of(2020, 1, 1);
+    private static final int WEEKS = 52;
+
+    @Param({"1000", "100000"})
+    private int catalogSize;
+
+    private AvailabilityService availabilityService;
+    private String[] toolCodes;
+    private LocalDate[] checkoutDates;
+
+    @Setup
+    public void setUp() throws ToolManagementException {
+        ToolService toolService = BenchmarkFixtures.toolService(catalogSize);
+        availabilityService = BenchmarkFixtures.availabilityService(toolService,
+                BenchmarkFixtures.rentalService(BenchmarkFixtures.dateUtil(true)));
+        for (int i = 0; i < catalogSize; i++) {
+            for (int week = 0; week < WEEKS; week += 2) {
+                availabilityService.reserve(BenchmarkFixtures.toolCode(i), FIRST_RENTAL.plusWeeks(week), 7);
+            }
+        }
+        Random random = new Random(721);
+        toolCodes = new String[LOOKUPS];
+        checkoutDates = new LocalDate[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            toolCodes[i] = BenchmarkFixtures.toolCode(random.nextInt(catalogSize));
+            checkoutDates[i] = FIRST_RENTAL.plusDays(random.nextInt(WEEKS * 7));
+        }
+    }
+
+    /**
+     * Position of the next lookup of each thread
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Benchmark
+    public boolean isAvailable(Cursor cursor) throws ToolManagementException {
+        int i = cursor.next++ & (LOOKUPS - 1);
+        return availabilityService.isAvailable(toolCodes[i], checkoutDates[i], 3);
+    }
+
+    /**
+     * Reserve a free period and release it again
+     */
+    @Benchmark
+    public boolean reserveAndRelease(Cursor cursor) throws ToolManagementException {
+        int i = cursor.next++ & (LOOKUPS - 1);
+        //The odd weeks are free
+        Reservation reservation = availabilityService.reserve(toolCodes[i], FIRST_RENTAL.plusWeeks(1 + 2 * (i % (WEEKS / 2))), 7);
+        return availabilityService.release(reservation);
+    }
+
+    /**
+     * Find the free tools of one of the three tool types, a third of the catalog
+     */
+    @Benchmark
+    public List<ToolInformation> findAvailableTools(Cursor cursor) throws ToolManagementException {
+        int i = cursor.next++ & (LOOKUPS - 1);
+        return availabilityService.findAvailableTools("Jackhammer", checkoutDates[i], 3);
+    }
+}
@@ -0,0 +1,74 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.BenchmarkFixtures;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RawRentalAgreement;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.ToolInformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The five cheapest checkout dates of a week long rental within a range of dates,
+ * found from the charge days of every date and by pricing every date
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CheapestCheckoutDateBenchmark {
+    private static final int RENTAL_PERIOD = 7;
+    private static final int LIMIT = 5;
+
+    @Param({"31", "365"})
+    private int checkoutDates;
+
+    @Param({"true", "false"})
+    private boolean chargeDayTable;
+
+    private RentalService rentalService;
+    private ToolInformation toolInformation;
+    private LocalDate earliestCheckoutDate;
+    private LocalDate latestCheckoutDate;
+
+    @Setup
+    public void setUp() throws ToolManagementException {
+        ToolService toolService = BenchmarkFixtures.toolService(4);
+        rentalService = BenchmarkFixtures.rentalService(BenchmarkFixtures.dateUtil(chargeDayTable));
+        //Ladders are charged every day but holidays, so only rentals over a holiday are cheaper
+        toolInformation = toolService.getToolByCode(BenchmarkFixtures.toolCode(0));
+        earliestCheckoutDate = LocalDate.of(2021, 6, 1);
+        latestCheckoutDate = earliestCheckoutDate.plusDays(checkoutDates - 1);
+    }
+
+    @Benchmark
+    public List<RentalAgreement> findCheapestCheckoutDates() throws ToolManagementException {
+        return rentalService.findCheapestCheckoutDates(toolInformation, earliestCheckoutDate, latestCheckoutDate,
+                RENTAL_PERIOD, 10, null, LIMIT);
+    }
+
+    @Benchmark
+    public List<RentalAgreement> priceEveryCheckoutDate() throws ToolManagementException {
+        List<RawRentalAgreement> raws = new ArrayList<>(checkoutDates);
+        for (LocalDate checkout = earliestCheckoutDate; !checkout.isAfter(latestCheckoutDate); checkout = checkout.plusDays(1)) {
+            raws.add(rentalService.calculateRawRentalAgreement(toolInformation, checkout, RENTAL_PERIOD, 10));
+        }
+        raws.sort(Comparator.comparingLong(RawRentalAgreement::getFinalChargeCents));
+        List<RentalAgreement> agreements = new ArrayList<>(LIMIT);
+        for (RawRentalAgreement raw : raws.subList(0, LIMIT)) {
+            agreements.add(rentalService.formatRentalAgreement(raw));
+        }
+        return agreements;
+    }
+}
@@ -0,0 +1,59 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.BenchmarkFixtures;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.ToolInformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Price tables for every rental period from one day up to the longest one,
+ * priced together and priced one period at a time
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RentalAgreementTableBenchmark {
+    @Param({"7", "30", "365"})
+    private int longestRentalPeriod;
+
+    @Param({"true", "false"})
+    private boolean chargeDayTable;
+
+    private RentalService rentalService;
+    private ToolInformation toolInformation;
+    private LocalDate checkoutDate;
+
+    @Setup
+    public void setUp() throws ToolManagementException {
+        ToolService toolService = BenchmarkFixtures.toolService(4);
+        rentalService = BenchmarkFixtures.rentalService(BenchmarkFixtures.dateUtil(chargeDayTable));
+        //Ladders are charged every day but holidays, so every period has different charges
+        toolInformation = toolService.getToolByCode(BenchmarkFixtures.toolCode(0));
+        checkoutDate = LocalDate.of(2021, 7, 2);
+    }
+
+    @Benchmark
+    public List<RentalAgreement> calculateRentalAgreements() throws ToolManagementException {
+        return rentalService.calculateRentalAgreements(toolInformation, checkoutDate, 1, longestRentalPeriod, 10, null);
+    }
+
+    @Benchmark
+    public void calculateRentalAgreementForEachPeriod(Blackhole blackhole) throws ToolManagementException {
+        for (int rentalPeriod = 1; rentalPeriod <= longestRentalPeriod; rentalPeriod++) {
+            blackhole.consume(rentalService.calculateRentalAgreement(toolInformation, checkoutDate, rentalPeriod, 10));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.BenchmarkFixtures;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RawRentalAgreement;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.RentalRequest;
+import com.mfurst.mf0721.model.RentalResult;
+import com.mfurst.mf0721.model.ToolInformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rental agreement pricing, both from already parsed input and from raw user input
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RentalServiceBenchmark {
+    @Param({"1", "7", "30", "365", "1825"})
+    private int rentalDays;
+
+    @Param({"4", "100000"})
+    private int catalogSize;
+
+    @Param({"true", "false"})
+    private boolean metrics;
+
+    private RentalService rentalService;
+    private BatchRentalService batchRentalService;
+    private ToolInformation toolInformation;
+    private LocalDate checkoutDate;
+    private RentalRequest request;
+    private RentalRequest invalidDateRequest;
+    private RentalRequest invalidDiscountRequest;
+
+    @Setup
+    public void setUp() throws ToolManagementException {
+        ToolService toolService = BenchmarkFixtures.toolService(catalogSize);
+        rentalService = BenchmarkFixtures.rentalService(BenchmarkFixtures.dateUtil(true));
+        PricingMetrics pricingMetrics = new PricingMetrics();
+        ReflectionTestUtils.setField(pricingMetrics, "enabled", metrics);
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", pricingMetrics);
+        ReflectionTestUtils.setField(rentalService, "pricingMetrics", pricingMetrics);
+        batchRentalService = BenchmarkFixtures.batchRentalService(toolService, rentalService);
+        String toolCode = BenchmarkFixtures.toolCode(catalogSize - 1);
+        toolInformation = toolService.getToolByCode(toolCode);
+        checkoutDate = LocalDate.of(2021, 7, 2);
+        request = new RentalRequest(toolCode, "07/02/21", rentalDays, 10);
+        invalidDateRequest = new RentalRequest(toolCode, "2021-07-02", rentalDays, 10);
+        invalidDiscountRequest = new RentalRequest(toolCode, "07/02/21", rentalDays, 101);
+    }
+
+    @TearDown
+    public void tearDown() {
+        batchRentalService.shutdown();
+    }
+
+    @Benchmark
+    public RentalAgreement calculateRentalAgreement() throws ToolManagementException {
+        return rentalService.calculateRentalAgreement(toolInformation, checkoutDate, rentalDays, 10);
+    }
+
+    /**
+     * Pricing without formatting any dates or amounts
+     * @return
+     */
+    @Benchmark
+    public RawRentalAgreement calculateRawRentalAgreement() throws ToolManagementException {
+        return rentalService.calculateRawRentalAgreement(toolInformation, checkoutDate, rentalDays, 10);
+    }
+
+    /**
+     * Tool lookup, date parsing, validation and pricing of a single request
+     * @return
+     */
+    @Benchmark
+    public RentalResult quote() {
+        return batchRentalService.quote(request);
+    }
+
+    /**
+     * Rejecting a request with a checkout date in the wrong format
+     * @return
+     */
+    @Benchmark
+    public RentalResult quoteInvalidDate() {
+        return batchRentalService.quote(invalidDateRequest);
+    }
+
+    /**
+     * Rejecting a request with a discount over 100%
+     * @return
+     */
+    @Benchmark
+    public RentalResult quoteInvalidDiscount() {
+        return batchRentalService.quote(invalidDiscountRequest);
+    }
+}
@@ -0,0 +1,70 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.BenchmarkFixtures;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ToolInformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tool lookups by code for different catalog sizes, from the in-memory
+ * index and from a memory-mapped catalog file
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ToolServiceBenchmark {
+    private static final int LOOKUP_CODES = 1024;
+
+    @Param({"4", "1000", "100000"})
+    private int catalogSize;
+
+    @Param({"false", "true"})
+    private boolean mapped;
+
+    private ToolService toolService;
+    private Path catalogFile;
+    private String[] lookupCodes;
+    private int nextLookup;
+
+    @Setup
+    public void setUp() throws IOException, ToolManagementException {
+        toolService = BenchmarkFixtures.toolService(catalogSize);
+        if (mapped) {
+            catalogFile = Files.createTempFile("tool-catalog", ".bin");
+            toolService.exportCatalog(catalogFile);
+            toolService.reloadCatalog(catalogFile);
+        }
+        //Look up random codes in mixed case so every lookup is a case-insensitive match
+        Random random = new Random(721);
+        lookupCodes = new String[LOOKUP_CODES];
+        for (int i = 0; i < LOOKUP_CODES; i++) {
+            String code = BenchmarkFixtures.toolCode(random.nextInt(catalogSize));
+            lookupCodes[i] = i % 2 == 0 ? code : code.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (catalogFile != null) Files.deleteIfExists(catalogFile);
+    }
+
+    @Benchmark
+    public ToolInformation getToolByCode() throws ToolManagementException {
+        return toolService.getToolByCode(lookupCodes[nextLookup++ & (LOOKUP_CODES - 1)]);
+    }
+}
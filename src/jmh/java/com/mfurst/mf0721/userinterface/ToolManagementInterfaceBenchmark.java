@@ -0,0 +1,72 @@
+package com.mfurst.mf0721.userinterface;
+
+import com.mfurst.mf0721.BenchmarkFixtures;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.service.ToolService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Formatting a rental agreement into the receipt shown to the user
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ToolManagementInterfaceBenchmark {
+    private ToolManagementInterface toolManagementInterface;
+    private RentalAgreement agreement;
+    private PrintStream outputStream;
+    private StringBuilder receipt;
+
+    @Setup
+    public void setUp() throws ToolManagementException {
+        ToolService toolService = BenchmarkFixtures.toolService(4);
+        agreement = BenchmarkFixtures.rentalService(BenchmarkFixtures.dateUtil(true)).calculateRentalAgreement(
+                toolService.getToolByCode(BenchmarkFixtures.toolCode(0)), LocalDate.of(2021, 7, 2), 30, 10);
+        toolManagementInterface = new ToolManagementInterface();
+        outputStream = new PrintStream(OutputStream.nullOutputStream());
+        receipt = new StringBuilder(512);
+    }
+
+    @Benchmark
+    public void outputRentalAgreement() {
+        toolManagementInterface.outputRentalAgreement(agreement, outputStream);
+    }
+
+    /**
+     * Receipt rendered into a reused buffer, the way bulk receipt printing would
+     * @return
+     */
+    @Benchmark
+    public StringBuilder renderReceipt() {
+        receipt.setLength(0);
+        ToolManagementInterface.RECEIPT_TEMPLATE.render(agreement, receipt);
+        return receipt;
+    }
+
+    /**
+     * Receipt formatted from the receipt message, for comparison
+     * @return
+     */
+    @Benchmark
+    public String formatReceiptMessage() {
+        return String.format(ToolManagementInterface.RECEIPT_MESSAGE,
+                agreement.getToolCode(), agreement.getToolType(), agreement.getToolBrand(),
+                agreement.getAmountOfRentalDays(), agreement.getFormattedCheckOutDate(),
+                agreement.getFormattedDueDate(), agreement.getFormattedDailyChargeAmount(),
+                agreement.getChargeDays(), agreement.getFormattedPreDiscountCharge(),
+                agreement.getDiscountPercent(), agreement.getFormattedDiscountAmount(),
+                agreement.getFormattedFinalCharge());
+    }
+}
@@ -0,0 +1,62 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.BenchmarkFixtures;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calendar counting for rentals from one day to several years long
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateUtilBenchmark {
+    @Param({"1", "7", "30", "365", "1825"})
+    private int rentalDays;
+
+    private DateUtil dateUtil;
+    private DateUtil dateUtilWithChargeDayTable;
+    private LocalDate checkoutDate;
+    private LocalDate dueDate;
+
+    @Setup
+    public void setUp() throws ToolManagementException {
+        dateUtil = BenchmarkFixtures.dateUtil(false);
+        dateUtilWithChargeDayTable = BenchmarkFixtures.dateUtil(true);
+        checkoutDate = LocalDate.of(2021, 7, 2);
+        dueDate = checkoutDate.plusDays(rentalDays);
+        //Build the lazily created calendar and table outside of the measurement
+        dateUtil.getNumberOfHolidaysBetweenTwoDates(checkoutDate, dueDate);
+        dateUtilWithChargeDayTable.getNumberOfChargeDaysBetweenTwoDates(checkoutDate, dueDate, true, true, true);
+    }
+
+    @Benchmark
+    public int getNumberOfWeekendsBetweenTwoDates() {
+        return dateUtil.getNumberOfWeekendsBetweenTwoDates(checkoutDate, dueDate);
+    }
+
+    @Benchmark
+    public int getNumberOfHolidaysBetweenTwoDates() throws ToolManagementException {
+        return dateUtil.getNumberOfHolidaysBetweenTwoDates(checkoutDate, dueDate);
+    }
+
+    @Benchmark
+    public int getNumberOfChargeDaysWithoutTable() throws ToolManagementException {
+        return dateUtil.getNumberOfChargeDaysBetweenTwoDates(checkoutDate, dueDate, true, false, true);
+    }
+
+    @Benchmark
+    public int getNumberOfChargeDaysWithTable() throws ToolManagementException {
+        return dateUtilWithChargeDayTable.getNumberOfChargeDaysBetweenTwoDates(checkoutDate, dueDate, true, false, true);
+    }
+}
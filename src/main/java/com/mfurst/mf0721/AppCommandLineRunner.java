@@ -1,24 +1,63 @@
 package com.mfurst.mf0721;
 
+import com.mfurst.mf0721.exception.UsageException;
+import com.mfurst.mf0721.service.ToolService;
+import com.mfurst.mf0721.userinterface.BulkPricingInterface;
 import com.mfurst.mf0721.userinterface.ToolManagementInterface;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.DefaultApplicationArguments;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
 /**
  * This component is the command line runner. Once Spring
  * has loaded the project, this component will allow the
  * user to interact with the project through the command
  * line based on the logic below.
  *
- * The command line runner does not run in test to allow automated tests to run
+ * By default the interactive interface is used. Passing --bulk switches
+ * to bulk pricing, with these optional arguments:
+ *   --input=[file]   file to read rental requests from, stdin when missing or -
+ *   --output=[file]  file to write priced agreements to, stdout when missing or -
+ *   --format=[csv|ndjson]  format of the requests and agreements, csv when missing
+ * An unknown format is reported with the valid formats and exits with status 2.
+ * Log lines are written to stderr, see application-bulk.yaml.
+ *
+ * Passing --export-catalog=[file] writes the configured tools and tool types to a
+ * binary catalog file that can be used with application.catalog.file, then exits.
+ *
+ * The command line runner does not run in test to allow automated tests to run,
+ * with the http profile where pricing is served over HTTP instead, or with the
+ * sessions profile where the interactive interface is served to terminals over TCP
  */
-@Profile("!test")
+@Profile("!test & !http & !sessions")
 @Component
 public class AppCommandLineRunner implements CommandLineRunner {
+    private static final String STANDARD_STREAM = "-";
+
     @Autowired
     private ToolManagementInterface toolManagementInterface;
+    @Autowired
+    private BulkPricingInterface bulkPricingInterface;
+    @Autowired
+    private ToolService toolService;
     /**
      * This method is triggered after Spring initializes. It
      * is the run logic for the command line runner
@@ -27,6 +66,67 @@ public class AppCommandLineRunner implements CommandLineRunner {
      */
     @Override
     public void run(String... args) throws Exception {
-        toolManagementInterface.run(System.out, System.in, System.err);
+        ApplicationArguments arguments = new DefaultApplicationArguments(args);
+        if (arguments.containsOption("export-catalog")) {
+            Path catalogFile = Path.of(getOptionValue(arguments, "export-catalog", "tool-catalog.bin"));
+            toolService.exportCatalog(catalogFile);
+            System.out.println(String.format("Tool catalog written to %s.", catalogFile));
+        } else if (arguments.containsOption("bulk")) {
+            runBulkPricing(arguments);
+        } else {
+            toolManagementInterface.run(System.out, System.in, System.err);
+        }
+    }
+
+    private void runBulkPricing(ApplicationArguments arguments) throws IOException, UsageException {
+        String input = getOptionValue(arguments, "input", STANDARD_STREAM);
+        String output = getOptionValue(arguments, "output", STANDARD_STREAM);
+        String formatName = getOptionValue(arguments, "format", "csv");
+        BulkPricingInterface.Format format = parseFormat(formatName);
+        if (format == null) {
+            throw new UsageException(String.format("Unknown format %s.", formatName),
+                    String.format("Please use one of %s.", getFormatNames()));
+        }
+
+        try (BufferedReader reader = new BufferedReader(openInput(input));
+             Writer writer = new BufferedWriter(openOutput(output))) {
+            long failures = bulkPricingInterface.run(reader, writer, format);
+            if (failures > 0) {
+                System.err.println(String.format("%d rental requests could not be priced.", failures));
+            }
+        }
+    }
+
+    /**
+     * Get the bulk pricing format with the provided name
+     * @param name name of the format ignoring case
+     * @return the format, or null if there is no format with that name
+     */
+    static BulkPricingInterface.Format parseFormat(String name) {
+        for (BulkPricingInterface.Format format : BulkPricingInterface.Format.values()) {
+            if (format.name().equalsIgnoreCase(name)) return format;
+        }
+        return null;
+    }
+
+    static String getFormatNames() {
+        return Arrays.stream(BulkPricingInterface.Format.values())
+                .map(format -> format.name().toLowerCase(Locale.ROOT))
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String getOptionValue(ApplicationArguments arguments, String name, String defaultValue) {
+        List<String> values = arguments.getOptionValues(name);
+        return values == null || values.isEmpty() ? defaultValue : values.get(0);
+    }
+
+    private static Reader openInput(String input) throws IOException {
+        if (STANDARD_STREAM.equals(input)) return new InputStreamReader(System.in, StandardCharsets.UTF_8);
+        return Files.newBufferedReader(Path.of(input), StandardCharsets.UTF_8);
+    }
+
+    private static Writer openOutput(String output) throws IOException {
+        if (STANDARD_STREAM.equals(output)) return new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        return Files.newBufferedWriter(Path.of(output), StandardCharsets.UTF_8);
     }
 }
@@ -3,15 +3,23 @@ package com.mfurst.mf0721;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 /**
  * This class is the Spring Injection site.
- * It will start the Spring Boot application at application boot
+ * It will start the Spring Boot application at application boot.
+ * Bulk pricing runs with the bulk profile, which keeps log lines
+ * out of agreements written to stdout.
  */
 @SpringBootApplication
 public class Mf0721Application {
 
 	public static void main(String[] args) {
-		SpringApplication.run(Mf0721Application.class, args);
+		SpringApplication application = new SpringApplication(Mf0721Application.class);
+		if (Arrays.stream(args).anyMatch(arg -> arg.equals("--bulk") || arg.startsWith("--bulk="))) {
+			application.setAdditionalProfiles("bulk");
+		}
+		application.run(args);
 	}
 
 }
@@ -10,7 +10,9 @@ import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * App configuration class.
@@ -46,4 +48,15 @@ public class AppConfig {
         //This will be returned if there are no matches in the property file
         return new ArrayList<>();
     }
+
+    /**
+     * Load the holidays of each holiday region from the application yaml property file
+     * @return
+     */
+    @Bean
+    @ConfigurationProperties(value = "holiday-regions")
+    public Map<String, List<Holiday>> holidayRegions() {
+        //This will be returned if there are no matches in the property file
+        return new LinkedHashMap<>();
+    }
 }
@@ -0,0 +1,161 @@
+package com.mfurst.mf0721.config;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.dto.Holiday;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.service.ToolService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertySources;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reloads the tool catalog and holidays from a yaml file without a restart.
+ *
+ * The file uses the same tool-data, holiday and holiday-regions properties as application.yaml.
+ * Everything is read, bound and validated before anything is published, so a
+ * file with mistakes keeps the previous configuration. The catalog and holidays are
+ * then published together, so quotes never mix the old and new configurations. Reloads can be triggered
+ * by calling {@link #reload()} or by enabling the file watcher.
+ */
+@Component
+public class ConfigurationReloader {
+    private static final Logger log = LoggerFactory.getLogger(ConfigurationReloader.class);
+    private static final ResolvableType HOLIDAY_REGIONS = ResolvableType.forClassWithGenerics(Map.class,
+            ResolvableType.forClass(String.class), ResolvableType.forClassWithGenerics(List.class, Holiday.class));
+
+    @Autowired
+    private ToolService toolService;
+
+    /**
+     * Yaml file to reload from, reloading is disabled when not set
+     */
+    @Value("${application.reload.file:}")
+    private String file;
+
+    /**
+     * Reload whenever the file changes
+     */
+    @Value("${application.reload.watch:false}")
+    private boolean watch;
+
+    private WatchService watchService;
+
+    /**
+     * Load the configured file and start watching it if enabled
+     * @throws IOException if the file cannot be watched
+     * @throws ToolManagementException if the file cannot be read or has invalid holidays
+     */
+    @PostConstruct
+    public void start() throws IOException, ToolManagementException {
+        if (file == null || file.isBlank()) return;
+        reload();
+        if (!watch) return;
+
+        Path path = Path.of(file).toAbsolutePath();
+        watchService = FileSystems.getDefault().newWatchService();
+        path.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        Thread watcher = new Thread(() -> watch(watchService, path), "configuration-reloader");
+        watcher.setDaemon(true);
+        watcher.start();
+        log.info("Watching {} for configuration changes", path);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (watchService != null) watchService.close();
+    }
+
+    /**
+     * Reload the tool catalog and holidays from the configured file
+     * @throws ToolManagementException if no file is configured, it cannot be read or has invalid holidays
+     */
+    public void reload() throws ToolManagementException {
+        if (file == null || file.isBlank()) throw new ToolManagementException(ErrorCode.CONF0001, "");
+        reload(Path.of(file));
+    }
+
+    /**
+     * Reload the tool catalog and holidays from the provided file.
+     * Missing properties are loaded as empty lists.
+     * @param path
+     * @throws ToolManagementException if the file cannot be read or has invalid holidays
+     */
+    public void reload(Path path) throws ToolManagementException {
+        List<PropertySource<?>> sources;
+        try {
+            sources = new YamlPropertySourceLoader().load(path.toString(), new FileSystemResource(path));
+        } catch (IOException | IllegalStateException ex) {
+            log.error("Could not read {}", path, ex);
+            throw new ToolManagementException(ErrorCode.CONF0001, ex, path);
+        }
+
+        List<Tool> tools;
+        List<ToolType> toolTypes;
+        List<Holiday> holidays;
+        Map<String, List<Holiday>> holidayRegions;
+        try {
+            Binder binder = new Binder(ConfigurationPropertySources.from(sources));
+            tools = binder.bind("tool-data.tools", Bindable.listOf(Tool.class)).orElse(List.of());
+            toolTypes = binder.bind("tool-data.tool-type", Bindable.listOf(ToolType.class)).orElse(List.of());
+            holidays = binder.bind("holiday", Bindable.listOf(Holiday.class)).orElse(List.of());
+            holidayRegions = binder.<Map<String, List<Holiday>>>bind("holiday-regions", Bindable.of(HOLIDAY_REGIONS))
+                    .orElse(Map.of());
+        } catch (BindException ex) {
+            log.error("Could not bind {}", path, ex);
+            throw new ToolManagementException(ErrorCode.CONF0001, ex, path);
+        }
+
+        toolService.reloadConfiguration(tools, toolTypes, holidays, holidayRegions);
+        log.info("Reloaded {} tools, {} tool types, {} holidays and {} holiday regions from {}",
+                tools.size(), toolTypes.size(), holidays.size(), holidayRegions.size(), path);
+    }
+
+    private void watch(WatchService watchService, Path path) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (path.getFileName().equals(event.context())) changed = true;
+                }
+                key.reset();
+                if (!changed) continue;
+                try {
+                    reload(path);
+                } catch (ToolManagementException ex) {
+                    log.error("Keeping the previous configuration: {}", ex.getMessage());
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException ex) {
+            //Stopped
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.mfurst.mf0721.controller;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ErrorResponse;
+import com.mfurst.mf0721.model.MetricsSnapshot;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.RentalRequest;
+import com.mfurst.mf0721.model.RentalResult;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.service.AvailabilityService;
+import com.mfurst.mf0721.service.BatchRentalService;
+import com.mfurst.mf0721.service.PricingMetrics;
+import com.mfurst.mf0721.service.PricingSnapshot;
+import com.mfurst.mf0721.service.RentalService;
+import com.mfurst.mf0721.service.ToolService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * HTTP interface for tool lookups, availability, rental quotes and pricing metrics.
+ *
+ * This runs on the non-blocking WebFlux server when the http profile is active.
+ * Lookups and pricing only use in-memory data and never block, so requests are
+ * handled directly on the server's event loop threads.
+ */
+@RestController
+@RequestMapping("/api")
+public class PricingController {
+    private static final String PROMETHEUS_TEXT = "text/plain; version=0.0.4; charset=utf-8";
+
+    @Autowired
+    private ToolService toolService;
+    @Autowired
+    private BatchRentalService batchRentalService;
+    @Autowired
+    private PricingMetrics pricingMetrics;
+    @Autowired
+    private RentalService rentalService;
+    @Autowired
+    private AvailabilityService availabilityService;
+
+    /**
+     * Find a tool by its code
+     * @param toolCode
+     * @throws ToolManagementException if the tool code is not valid
+     * @return
+     */
+    @GetMapping("/tools/{toolCode}")
+    public ToolInformation getTool(@PathVariable String toolCode) throws ToolManagementException {
+        return toolService.getToolByCode(toolCode);
+    }
+
+    /**
+     * Generate a rental agreement from query parameters
+     * @param toolCode
+     * @param checkoutDate checkout date in mm/dd/yy format
+     * @param rentalPeriod
+     * @param discountPercentage
+     * @param holidayRegion holiday region to price with, the configured holidays are used when not set
+     * @throws ToolManagementException if any of the rental information is not valid
+     * @return
+     */
+    @GetMapping("/quotes")
+    public RentalAgreement getQuote(@RequestParam String toolCode,
+                                    @RequestParam String checkoutDate,
+                                    @RequestParam int rentalPeriod,
+                                    @RequestParam(defaultValue = "0") int discountPercentage,
+                                    @RequestParam(required = false) String holidayRegion) throws ToolManagementException {
+        return quote(new RentalRequest(toolCode, checkoutDate, rentalPeriod, discountPercentage, holidayRegion));
+    }
+
+    /**
+     * Generate a rental agreement from a rental request
+     * @param request
+     * @throws ToolManagementException if any of the rental information is not valid
+     * @return
+     */
+    @PostMapping("/quotes")
+    public RentalAgreement postQuote(@RequestBody RentalRequest request) throws ToolManagementException {
+        return quote(request);
+    }
+
+    /**
+     * Generate a rental agreement for every rental period from the first to the last one
+     * @param toolCode
+     * @param checkoutDate checkout date in mm/dd/yy format
+     * @param firstRentalPeriod
+     * @param lastRentalPeriod
+     * @param discountPercentage
+     * @param holidayRegion holiday region to price with, the configured holidays are used when not set
+     * @throws ToolManagementException if any of the rental information is not valid
+     * @return
+     */
+    @GetMapping("/quotes/table")
+    public List<RentalAgreement> getQuoteTable(@RequestParam String toolCode,
+                                               @RequestParam String checkoutDate,
+                                               @RequestParam(defaultValue = "1") int firstRentalPeriod,
+                                               @RequestParam int lastRentalPeriod,
+                                               @RequestParam(defaultValue = "0") int discountPercentage,
+                                               @RequestParam(required = false) String holidayRegion)
+            throws ToolManagementException {
+        PricingSnapshot snapshot = toolService.getSnapshot();
+        return rentalService.calculateRentalAgreements(snapshot, toolService.getToolByCode(snapshot, toolCode),
+                rentalService.parseRentalDate(checkoutDate), firstRentalPeriod, lastRentalPeriod,
+                discountPercentage, holidayRegion);
+    }
+
+    /**
+     * Generate rental agreements for the cheapest checkout dates of a rental within a range of dates
+     * @param toolCode
+     * @param earliestCheckoutDate first checkout date to compare in mm/dd/yy format
+     * @param latestCheckoutDate last checkout date to compare in mm/dd/yy format
+     * @param rentalPeriod
+     * @param discountPercentage
+     * @param holidayRegion holiday region to price with, the configured holidays are used when not set
+     * @param limit most agreements to return
+     * @throws ToolManagementException if any of the rental information is not valid
+     * @return
+     */
+    @GetMapping("/quotes/cheapest")
+    public List<RentalAgreement> getCheapestQuotes(@RequestParam String toolCode,
+                                                   @RequestParam String earliestCheckoutDate,
+                                                   @RequestParam String latestCheckoutDate,
+                                                   @RequestParam int rentalPeriod,
+                                                   @RequestParam(defaultValue = "0") int discountPercentage,
+                                                   @RequestParam(required = false) String holidayRegion,
+                                                   @RequestParam(defaultValue = "5") int limit)
+            throws ToolManagementException {
+        PricingSnapshot snapshot = toolService.getSnapshot();
+        return rentalService.findCheapestCheckoutDates(snapshot, toolService.getToolByCode(snapshot, toolCode),
+                rentalService.parseRentalDate(earliestCheckoutDate), rentalService.parseRentalDate(latestCheckoutDate),
+                rentalPeriod, discountPercentage, holidayRegion, limit);
+    }
+
+    /**
+     * Find the tools of a type that are not reserved for any day of a rental
+     * @param toolType
+     * @param checkoutDate checkout date in mm/dd/yy format
+     * @param rentalPeriod
+     * @throws ToolManagementException if the checkout date or rental period is not valid
+     * @return
+     */
+    @GetMapping("/availability")
+    public List<ToolInformation> getAvailableTools(@RequestParam String toolType,
+                                                   @RequestParam String checkoutDate,
+                                                   @RequestParam int rentalPeriod) throws ToolManagementException {
+        return availabilityService.findAvailableTools(toolType, rentalService.parseRentalDate(checkoutDate), rentalPeriod);
+    }
+
+    /**
+     * Generate a rental agreement for each tool of a type that is not reserved for any day of a rental
+     * @param toolType
+     * @param checkoutDate checkout date in mm/dd/yy format
+     * @param rentalPeriod
+     * @param discountPercentage
+     * @param holidayRegion holiday region to price with, the configured holidays are used when not set
+     * @throws ToolManagementException if any of the rental information is not valid
+     * @return
+     */
+    @GetMapping("/availability/quotes")
+    public List<RentalAgreement> getAvailableQuotes(@RequestParam String toolType,
+                                                    @RequestParam String checkoutDate,
+                                                    @RequestParam int rentalPeriod,
+                                                    @RequestParam(defaultValue = "0") int discountPercentage,
+                                                    @RequestParam(required = false) String holidayRegion)
+            throws ToolManagementException {
+        return availabilityService.quoteAvailableTools(toolType, rentalService.parseRentalDate(checkoutDate),
+                rentalPeriod, discountPercentage, holidayRegion);
+    }
+
+    /**
+     * Get the pricing metrics in the Prometheus text format
+     * @return
+     */
+    @GetMapping(value = "/metrics", produces = PROMETHEUS_TEXT)
+    public String getMetrics() {
+        return pricingMetrics.toPrometheusText();
+    }
+
+    /**
+     * Get the pricing metrics
+     * @return
+     */
+    @GetMapping("/metrics/snapshot")
+    public MetricsSnapshot getMetricsSnapshot() {
+        return pricingMetrics.snapshot();
+    }
+
+    private RentalAgreement quote(RentalRequest request) throws ToolManagementException {
+        RentalResult result = batchRentalService.quote(request);
+        if (!result.isSuccessful()) throw result.getError();
+        return result.getAgreement();
+    }
+
+    /**
+     * Return tool management errors with their error code
+     * @param ex
+     * @return
+     */
+    @ExceptionHandler(ToolManagementException.class)
+    public ResponseEntity<ErrorResponse> handleToolManagementException(ToolManagementException ex) {
+        return ResponseEntity.status(getStatus(ex))
+                .body(new ErrorResponse(ex.getErrorCode().name(), ex.getMessage()));
+    }
+
+    /**
+     * Return missing or badly typed request parameters and unreadable request bodies
+     * with an error code, like any other problem with the request
+     * @param ex
+     * @return
+     */
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorResponse> handleServerWebInputException(ServerWebInputException ex) {
+        MethodParameter parameter = ex.getMethodParameter();
+        String name = parameter == null ? null : parameter.getParameterName();
+        String reason = name == null ? ex.getReason() : String.format("%s: %s", name, ex.getReason());
+        return handleToolManagementException(new ToolManagementException(ErrorCode.HTTP0001, ex, reason));
+    }
+
+    /**
+     * Return request fields that failed validation with an error code
+     * @param ex
+     * @return
+     */
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponse> handleWebExchangeBindException(WebExchangeBindException ex) {
+        String fields = ex.getFieldErrors().stream()
+                .map(error -> String.format("%s: %s", error.getField(), error.getDefaultMessage()))
+                .collect(Collectors.joining(", "));
+        return handleToolManagementException(new ToolManagementException(ErrorCode.HTTP0001, ex,
+                fields.isEmpty() ? ex.getReason() : fields));
+    }
+
+    /**
+     * Unknown tools are not found, problems with the tool or holiday configuration
+     * and unexpected pricing errors are server errors, and anything else is a problem with the request
+     * @param ex
+     * @return
+     */
+    protected HttpStatus getStatus(ToolManagementException ex) {
+        switch (ex.getErrorCode()) {
+            case TOOL0002:
+                return HttpStatus.NOT_FOUND;
+            case TOOL0003:
+            case DATE0001:
+            case BULK0002:
+                return HttpStatus.INTERNAL_SERVER_ERROR;
+            default:
+                return HttpStatus.BAD_REQUEST;
+        }
+    }
+}
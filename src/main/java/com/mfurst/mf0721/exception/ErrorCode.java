@@ -12,7 +12,16 @@ public enum ErrorCode {
     RENT0002("Rental dates must match the format of mm/dd/yy. Please try again with a date that is formatted correctly."),
     RENT0003("Discount rate cannot be less than zero percent."),
     RENT0004("Discount rate cannot be greater than one-hundred percent."),
-    DATE0001("Invalid holiday [%s].");
+    RENT0005("Rental charges are too large to be calculated in cents."),
+    RENT0006("Tool [%s] is not available from [%s] until [%s]."),
+    RENT0007("At most %s rental periods can be priced at once."),
+    RENT0008("At most %s checkout dates can be compared at once."),
+    DATE0001("Invalid holiday [%s]."),
+    DATE0002("Holiday region [%s] does not exist."),
+    BULK0001("Rental request [%s] could not be read. Please check that it has a tool code, checkout date, amount of days and discount percentage."),
+    BULK0002("Rental request could not be priced because of an unexpected error [%s]."),
+    CONF0001("Configuration file [%s] could not be read."),
+    HTTP0001("Request could not be read [%s]. Please check that every parameter is present and has the right type.");
     private String message;
 
     /**
@@ -1,12 +1,30 @@
 package com.mfurst.mf0721.exception;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * This class is a custom exception class for handling exceptions
  * from the tool inventory management.
+ *
+ * These exceptions report problems with user input or configuration through their
+ * error code and message. Errors without arguments can use the shared instance from
+ * {@link #of(ErrorCode)} so rejecting invalid input does not allocate anything. Only
+ * the shared instances are created without a stack trace, since one trace would be
+ * shared by every place that throws them.
  */
 public class ToolManagementException extends Exception {
+    private static final Object[] NO_ARGUMENTS = new Object[0];
+    private static final Map<ErrorCode, ToolManagementException> SHARED = new EnumMap<>(ErrorCode.class);
+
+    static {
+        for (ErrorCode errorCode : ErrorCode.values()) {
+            SHARED.put(errorCode, new ToolManagementException(errorCode, false));
+        }
+    }
+
     private final ErrorCode errorCode;
-    private Object[] errorArguments;
+    private final Object[] errorArguments;
 
     /**
      * Create a new exception for something related to tool management
@@ -14,14 +32,44 @@ public class ToolManagementException extends Exception {
      * @param args any related arguments to the error that will appear in the error message
      */
     public ToolManagementException(ErrorCode errorCode, Object... args) {
-        super();
+        this(errorCode, (Throwable) null, args);
+    }
+
+    /**
+     * Create a new exception for something related to tool management that was caused by another exception
+     * @param errorCode Error code that identifies the exception
+     * @param cause exception that caused the error
+     * @param args any related arguments to the error that will appear in the error message
+     */
+    public ToolManagementException(ErrorCode errorCode, Throwable cause, Object... args) {
+        super(cause);
         this.errorCode = errorCode;
         this.errorArguments = args;
     }
 
+    /**
+     * Create a shared exception without a stack trace
+     * @param errorCode Error code that identifies the exception
+     * @param writableStackTrace always false
+     */
+    private ToolManagementException(ErrorCode errorCode, boolean writableStackTrace) {
+        super(null, null, false, writableStackTrace);
+        this.errorCode = errorCode;
+        this.errorArguments = NO_ARGUMENTS;
+    }
+
+    /**
+     * Get the shared exception for an error without any arguments
+     * @param errorCode Error code that identifies the exception
+     * @return
+     */
+    public static ToolManagementException of(ErrorCode errorCode) {
+        return SHARED.get(errorCode);
+    }
+
     @Override
     public String getMessage() {
-        return String.format(this.errorCode.getMessage(), errorArguments);
+        return String.format(this.errorCode.getMessage(), errorArguments == null ? NO_ARGUMENTS : errorArguments);
     }
 
     public ErrorCode getErrorCode() { return this.errorCode; }
@@ -0,0 +1,36 @@
+package com.mfurst.mf0721.exception;
+
+import org.springframework.boot.ExitCodeGenerator;
+
+/**
+ * This exception reports command line arguments that cannot be used.
+ *
+ * Thrown from a command line runner, Spring closes the application as usual
+ * and then exits with {@link #EXIT_CODE}, see {@link UsageFailureAnalyzer}
+ * for how it is reported.
+ */
+public class UsageException extends Exception implements ExitCodeGenerator {
+    /**
+     * Exit code of the application after a usage error
+     */
+    public static final int EXIT_CODE = 2;
+
+    private final String action;
+
+    /**
+     * Create a new exception for arguments that cannot be used
+     * @param message what is wrong with the arguments
+     * @param action how to correct the arguments
+     */
+    public UsageException(String message, String action) {
+        super(message);
+        this.action = action;
+    }
+
+    public String getAction() { return this.action; }
+
+    @Override
+    public int getExitCode() {
+        return EXIT_CODE;
+    }
+}
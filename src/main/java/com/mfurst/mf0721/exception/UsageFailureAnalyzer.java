@@ -0,0 +1,15 @@
+package com.mfurst.mf0721.exception;
+
+import org.springframework.boot.diagnostics.AbstractFailureAnalyzer;
+import org.springframework.boot.diagnostics.FailureAnalysis;
+
+/**
+ * Reports usage errors with what is wrong with the arguments and how to correct them
+ * instead of a stack trace
+ */
+public class UsageFailureAnalyzer extends AbstractFailureAnalyzer<UsageException> {
+    @Override
+    protected FailureAnalysis analyze(Throwable rootFailure, UsageException cause) {
+        return new FailureAnalysis(cause.getMessage(), cause.getAction(), cause);
+    }
+}
@@ -0,0 +1,26 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is used for reporting how often a pricing operation failed with an error code
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorMetrics {
+    /**
+     * Operation that failed, e.g. tool_lookup
+     */
+    private String operation;
+    /**
+     * Error code the operation failed with, e.g. TOOL0002
+     */
+    private String errorCode;
+    /**
+     * Amount of failed operations
+     */
+    private long count;
+}
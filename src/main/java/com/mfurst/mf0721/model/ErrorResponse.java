@@ -0,0 +1,22 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is used for returning errors to API clients
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorResponse {
+    /**
+     * Error code that identifies the error, e.g. TOOL0002
+     */
+    private String code;
+    /**
+     * Message describing the error
+     */
+    private String message;
+}
@@ -0,0 +1,24 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * This class is used for rental agreements read back from the agreement journal
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JournalEntry {
+    /**
+     * Time the agreement was recorded
+     */
+    private Instant issuedAt;
+    /**
+     * The recorded agreement
+     */
+    private RentalAgreement agreement;
+}
@@ -0,0 +1,54 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is used for reporting the amount and latency of successful pricing operations of one tool type
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencyMetrics {
+    /**
+     * Operation that was measured, e.g. tool_lookup
+     */
+    private String operation;
+    /**
+     * Tool type the operation was for, empty for operations without a tool
+     */
+    private String toolType;
+    /**
+     * Amount of successful operations
+     */
+    private long count;
+    /**
+     * Amount of successful operations that were timed, the latencies are of these operations
+     */
+    private long sampleCount;
+    /**
+     * Total time of the timed operations in nanoseconds
+     */
+    private long sampleTotalNanos;
+    /**
+     * Longest timed operation in nanoseconds
+     */
+    private long maxNanos;
+    /**
+     * Median timed operation in nanoseconds
+     */
+    private long p50Nanos;
+    /**
+     * 90th percentile timed operation in nanoseconds
+     */
+    private long p90Nanos;
+    /**
+     * 99th percentile timed operation in nanoseconds
+     */
+    private long p99Nanos;
+    /**
+     * 99.9th percentile timed operation in nanoseconds
+     */
+    private long p999Nanos;
+}
@@ -0,0 +1,24 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * This class is used for reporting every pricing metric at one point in time
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MetricsSnapshot {
+    /**
+     * Latency of successful operations by operation and tool type
+     */
+    private List<LatencyMetrics> latencies;
+    /**
+     * Failed operations by operation and error code, only error codes that happened are listed
+     */
+    private List<ErrorMetrics> errors;
+}
@@ -0,0 +1,68 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * This class is used for storing rental agreement information before it is formatted.
+ * Dates are epoch days and amounts are whole cents, so creating one does not
+ * create any strings. It is formatted into a {@link RentalAgreement} when it is shown.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RawRentalAgreement {
+    /**
+     * Tool code from tool information
+     */
+    private String toolCode;
+    /**
+     * Tool type from tool information
+     */
+    private String toolType;
+    /**
+     * Tool brand from tool information
+     */
+    private String toolBrand;
+    /**
+     * Amount of days of rental as entered by user
+     */
+    private int amountOfRentalDays;
+    /**
+     * Check out date as days since 1970-01-01
+     */
+    private long checkOutEpochDay;
+    /**
+     * Due date as days since 1970-01-01, calculated from check out day and amount of rental days
+     */
+    private long dueEpochDay;
+    /**
+     * Charge amount per day from the tool type, which can have fractions of a cent
+     */
+    private BigDecimal dailyChargeAmount;
+    /**
+     * Count of chargeable days from after checkout day through and including due date
+     */
+    private int chargeDays;
+    /**
+     * Charge before discount is applied, in cents
+     */
+    private long preDiscountChargeCents;
+    /**
+     * Discount percent as entered by user
+     */
+    private int discountPercent;
+    /**
+     * Calculated discount amount in cents, rounded half up to the nearest cent
+     */
+    private long discountAmountCents;
+    /**
+     * Final charge amount in cents
+     */
+    private long finalChargeCents;
+}
@@ -9,7 +9,7 @@ import lombok.NoArgsConstructor;
  * This class is used for storing rental agreement information
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class RentalAgreement {
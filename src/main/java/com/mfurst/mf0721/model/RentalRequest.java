@@ -0,0 +1,44 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is used for storing the information needed to price a rental,
+ * exactly as it was provided by the user
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalRequest {
+    /**
+     * Tool code as entered by user
+     */
+    private String toolCode;
+    /**
+     * Check out date as entered by user, in mm/dd/yy format
+     */
+    private String checkoutDate;
+    /**
+     * Amount of days of rental as entered by user
+     */
+    private int rentalPeriod;
+    /**
+     * Discount percent as entered by user
+     */
+    private int discountPercentage;
+    /**
+     * Name of the holiday region to price with, the configured holidays are used when not set
+     */
+    private String holidayRegion;
+
+    public RentalRequest(String toolCode, String checkoutDate, int rentalPeriod, int discountPercentage) {
+        this.toolCode = toolCode;
+        this.checkoutDate = checkoutDate;
+        this.rentalPeriod = rentalPeriod;
+        this.discountPercentage = discountPercentage;
+    }
+}
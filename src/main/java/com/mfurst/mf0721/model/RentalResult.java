@@ -0,0 +1,63 @@
+package com.mfurst.mf0721.model;
+
+import com.mfurst.mf0721.exception.ToolManagementException;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is used for storing the outcome of pricing a single rental request,
+ * either the generated rental agreement or the error that prevented it
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RentalResult {
+    /**
+     * Generated rental agreement, null if the request failed
+     */
+    private RentalAgreement agreement;
+    /**
+     * Generated rental agreement before formatting, only set when unformatted agreements were requested
+     */
+    private RawRentalAgreement rawAgreement;
+    /**
+     * Error that prevented the rental agreement from being generated, null if the request succeeded
+     */
+    private ToolManagementException error;
+
+    /**
+     * Create a result for a request that generated a rental agreement
+     * @param agreement
+     * @return
+     */
+    public static RentalResult success(RentalAgreement agreement) {
+        return new RentalResult(agreement, null, null);
+    }
+
+    /**
+     * Create a result for a request that generated an unformatted rental agreement
+     * @param rawAgreement
+     * @return
+     */
+    public static RentalResult success(RawRentalAgreement rawAgreement) {
+        return new RentalResult(null, rawAgreement, null);
+    }
+
+    /**
+     * Create a result for a request that failed
+     * @param error
+     * @return
+     */
+    public static RentalResult failure(ToolManagementException error) {
+        return new RentalResult(null, null, error);
+    }
+
+    /**
+     * Check if a rental agreement was generated
+     * @return
+     */
+    public boolean isSuccessful() {
+        return error == null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.mfurst.mf0721.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * This class is used for storing a reservation of a tool for a rental,
+ * from its checkout date until the day before its due date
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Reservation {
+    /**
+     * Code of the reserved tool, as it is in the catalog
+     */
+    private String toolCode;
+
+    /**
+     * First day the tool is out
+     */
+    private LocalDate checkOutDate;
+
+    /**
+     * Day the tool is returned, it can be checked out again on this day
+     */
+    private LocalDate dueDate;
+}
@@ -5,6 +5,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
 
+import java.time.DayOfWeek;
+
 /**
  * Class for storing holiday information
  */
@@ -15,7 +17,7 @@ import lombok.ToString;
 public class Holiday {
     /**
      * Type of the holiday
-     * Either: closest-weekday, next-monday
+     * Either: fixed, closest-weekday, next-monday, nth-weekday, last-weekday, once
      */
     private String type;
     /**
@@ -23,7 +25,30 @@ public class Holiday {
      */
     private int month;
     /**
-     * Day value of the holiday
+     * Day value of the holiday, used by fixed, closest-weekday, next-monday and once holidays
      */
     private int day;
+    /**
+     * Day of week of the holiday, used by nth-weekday and last-weekday holidays
+     */
+    private DayOfWeek dayOfWeek;
+    /**
+     * Which day of week of the month the holiday is on, from 1 to 4, used by nth-weekday holidays
+     */
+    private int week;
+    /**
+     * Year of the holiday, used by once holidays
+     */
+    private int year;
+    /**
+     * How the holiday is moved when it falls on a weekend, used by fixed and once holidays
+     * Either: none, closest-weekday, next-monday. Defaults to none.
+     */
+    private String observance;
+
+    public Holiday(String type, int month, int day) {
+        this.type = type;
+        this.month = month;
+        this.day = day;
+    }
 }
@@ -0,0 +1,442 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.model.JournalEntry;
+import com.mfurst.mf0721.model.RentalAgreement;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of issued rental agreements.
+ *
+ * Agreements are encoded on the calling thread and handed to a single writer
+ * thread, which writes everything that is waiting as one batch and then syncs
+ * the file once for the whole batch. How long callers wait depends on the
+ * durability:
+ *   group  callers wait until the batch with their agreement is synced to disk
+ *   async  callers return immediately, batches are still synced to disk
+ *   none   callers return immediately, batches are left to the operating system to write out
+ *
+ * Each record is its payload length and CRC32 (ints) followed by the payload.
+ * A crash can leave a partly written last record, which is cut off when the
+ * journal is reopened and skipped when it is replayed. A record with a bad
+ * length or CRC is corruption rather than a crash, so a journal with one is
+ * not opened and nothing after it is cut off.
+ */
+@Service
+public class AgreementJournal {
+    private static final Logger log = LoggerFactory.getLogger(AgreementJournal.class);
+    private static final int RECORD_HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int MAX_PAYLOAD_BYTES = 1 << 20;
+    private static final byte PAYLOAD_VERSION = 1;
+
+    /**
+     * How long callers wait for their agreement to be written
+     */
+    public enum Durability {
+        GROUP, ASYNC, NONE
+    }
+
+    /**
+     * Journal file, the journal is disabled when not set
+     */
+    @Value("${application.journal.file:}")
+    private String file;
+
+    @Value("${application.journal.durability:group}")
+    private String durability;
+
+    /**
+     * Most agreements written and synced together
+     */
+    @Value("${application.journal.batch-size:256}")
+    private int batchSize;
+
+    /**
+     * Most agreements waiting to be written before callers are made to wait
+     */
+    @Value("${application.journal.queue-capacity:4096}")
+    private int queueCapacity;
+
+    private volatile JournalWriter writer;
+
+    /**
+     * Open the configured journal file
+     * @throws IOException if the journal cannot be opened
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (file == null || file.isBlank()) return;
+        open(Path.of(file), Durability.valueOf(durability.toUpperCase(Locale.ROOT)), batchSize, queueCapacity);
+    }
+
+    /**
+     * Open a journal file for appending, creating it if it does not exist.
+     * Any journal that is already open is closed first.
+     * @param path
+     * @param durability
+     * @param batchSize
+     * @param queueCapacity
+     * @throws IOException if the journal cannot be opened
+     */
+    public synchronized void open(Path path, Durability durability, int batchSize, int queueCapacity) throws IOException {
+        close();
+        writer = new JournalWriter(path, durability, batchSize, queueCapacity);
+        log.info("Recording rental agreements to {} with {} durability", path, durability);
+    }
+
+    /**
+     * Write everything that is waiting and close the journal
+     * @throws IOException if the journal cannot be closed
+     */
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        JournalWriter current = writer;
+        if (current == null) return;
+        writer = null;
+        current.close();
+    }
+
+    /**
+     * Check if agreements are being recorded
+     * @return
+     */
+    public boolean isEnabled() {
+        return writer != null;
+    }
+
+    /**
+     * Record an issued agreement. Does nothing when the journal is disabled.
+     * @param agreement
+     * @throws IOException if the journal is closed while recording, or the agreement could not be written with group durability
+     */
+    public void record(RentalAgreement agreement) throws IOException {
+        JournalWriter current = writer;
+        if (current == null) return;
+        current.append(encode(Instant.now(), agreement));
+    }
+
+    /**
+     * Read every complete agreement in a journal file in the order they were recorded
+     * @param path
+     * @param consumer
+     * @throws IOException if the journal cannot be read
+     * @return the amount of agreements read
+     */
+    public static long replay(Path path, Consumer<JournalEntry> consumer) throws IOException {
+        long[] count = {0};
+        ScanResult result = scan(path, entry -> {
+            consumer.accept(entry);
+            count[0]++;
+        });
+        if (result.corrupt) log.error("Stopped replaying {} at a corrupt record at byte {}", path, result.validLength);
+        return count[0];
+    }
+
+    /**
+     * Read complete records until the end of the file or the first partial or corrupt record
+     */
+    private static ScanResult scan(Path path, Consumer<JournalEntry> consumer) throws IOException {
+        long validLength = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            CRC32 crc = new CRC32();
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException ex) {
+                    return new ScanResult(validLength, false);
+                }
+                if (length <= 0 || length > MAX_PAYLOAD_BYTES) return new ScanResult(validLength, true);
+                byte[] payload = new byte[length];
+                try {
+                    int checksum = input.readInt();
+                    input.readFully(payload);
+                    crc.reset();
+                    crc.update(payload);
+                    if ((int) crc.getValue() != checksum) return new ScanResult(validLength, true);
+                } catch (EOFException ex) {
+                    return new ScanResult(validLength, false);
+                }
+                consumer.accept(decode(payload));
+                validLength += RECORD_HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private static byte[] encode(Instant issuedAt, RentalAgreement agreement) throws IOException {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(256);
+        DataOutputStream payload = new DataOutputStream(payloadBytes);
+        payload.writeByte(PAYLOAD_VERSION);
+        payload.writeLong(issuedAt.toEpochMilli());
+        writeString(payload, agreement.getToolCode());
+        writeString(payload, agreement.getToolType());
+        writeString(payload, agreement.getToolBrand());
+        payload.writeInt(agreement.getAmountOfRentalDays());
+        writeString(payload, agreement.getFormattedCheckOutDate());
+        writeString(payload, agreement.getFormattedDueDate());
+        writeString(payload, agreement.getFormattedDailyChargeAmount());
+        payload.writeInt(agreement.getChargeDays());
+        writeString(payload, agreement.getFormattedPreDiscountCharge());
+        payload.writeInt(agreement.getDiscountPercent());
+        writeString(payload, agreement.getFormattedDiscountAmount());
+        writeString(payload, agreement.getFormattedFinalCharge());
+        payload.flush();
+
+        byte[] payloadArray = payloadBytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payloadArray);
+        return ByteBuffer.allocate(RECORD_HEADER_BYTES + payloadArray.length)
+                .putInt(payloadArray.length)
+                .putInt((int) crc.getValue())
+                .put(payloadArray)
+                .array();
+    }
+
+    private static JournalEntry decode(byte[] payloadArray) throws IOException {
+        DataInputStream payload = new DataInputStream(new ByteArrayInputStream(payloadArray));
+        byte version = payload.readByte();
+        if (version != PAYLOAD_VERSION) throw new IOException("Unknown journal record version " + version);
+        Instant issuedAt = Instant.ofEpochMilli(payload.readLong());
+        RentalAgreement agreement = new RentalAgreement();
+        agreement.setToolCode(readString(payload));
+        agreement.setToolType(readString(payload));
+        agreement.setToolBrand(readString(payload));
+        agreement.setAmountOfRentalDays(payload.readInt());
+        agreement.setFormattedCheckOutDate(readString(payload));
+        agreement.setFormattedDueDate(readString(payload));
+        agreement.setFormattedDailyChargeAmount(readString(payload));
+        agreement.setChargeDays(payload.readInt());
+        agreement.setFormattedPreDiscountCharge(readString(payload));
+        agreement.setDiscountPercent(payload.readInt());
+        agreement.setFormattedDiscountAmount(readString(payload));
+        agreement.setFormattedFinalCharge(readString(payload));
+        return new JournalEntry(issuedAt, agreement);
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) output.writeUTF(value);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+    /**
+     * Where a scan stopped, and if it stopped at a corrupt record rather than the end of the file
+     */
+    private static final class ScanResult {
+        private final long validLength;
+        private final boolean corrupt;
+
+        private ScanResult(long validLength, boolean corrupt) {
+            this.validLength = validLength;
+            this.corrupt = corrupt;
+        }
+    }
+
+    /**
+     * Record waiting to be written, completed once its batch is written
+     */
+    private static final class PendingRecord {
+        private static final PendingRecord CLOSE = new PendingRecord(null);
+
+        private final byte[] bytes;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private PendingRecord(byte[] bytes) {
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Open journal file with its writer thread
+     */
+    private static final class JournalWriter {
+        private final Path path;
+        private final Durability durability;
+        private final int batchSize;
+        private final BlockingQueue<PendingRecord> queue;
+        private final FileChannel channel;
+        private final Thread thread;
+        /**
+         * Set under the writer's lock once the close marker is queued, so no record can follow it
+         */
+        private boolean closed;
+
+        private JournalWriter(Path path, Durability durability, int batchSize, int queueCapacity) throws IOException {
+            this.path = path;
+            this.durability = durability;
+            this.batchSize = Math.max(1, batchSize);
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                //Cut off a partial record left by a crash so new records follow the last complete one,
+                //but never cut off records after a corrupt one
+                ScanResult result = scan(path, entry -> { });
+                if (result.corrupt) {
+                    log.error("Not recording rental agreements to {}: the record at byte {} of {} is corrupt. "
+                            + "Move the journal aside to start a new one.", path, result.validLength, channel.size());
+                    throw new IOException("Agreement journal " + path + " has a corrupt record at byte " + result.validLength);
+                }
+                if (result.validLength < channel.size()) {
+                    log.warn("Discarding {} bytes of an incomplete record at the end of {}",
+                            channel.size() - result.validLength, path);
+                    channel.truncate(result.validLength);
+                }
+                channel.position(result.validLength);
+                channel.force(true);
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+            this.thread = new Thread(this::writeBatches, "agreement-journal");
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+
+        private void append(byte[] record) throws IOException {
+            PendingRecord pending = new PendingRecord(record);
+            try {
+                //The writer thread keeps taking records until the close marker, which cannot be queued while
+                //this holds the lock, so waiting for room here always ends
+                synchronized (this) {
+                    if (closed) throw new IOException("Agreement journal " + path + " is closed");
+                    queue.put(pending);
+                }
+                if (durability == Durability.GROUP) pending.written.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while recording a rental agreement");
+            } catch (ExecutionException ex) {
+                throw new IOException("Rental agreement could not be recorded", ex.getCause());
+            }
+        }
+
+        private void close() throws IOException {
+            try {
+                synchronized (this) {
+                    if (closed) return;
+                    closed = true;
+                    queue.put(PendingRecord.CLOSE);
+                }
+                thread.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while closing the agreement journal");
+            } finally {
+                channel.close();
+            }
+        }
+
+        private void writeBatches() {
+            List<PendingRecord> batch = new ArrayList<>(batchSize);
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            boolean closing = false;
+            while (!closing) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException ex) {
+                    //Only the journal stops this thread, and it does so with the close marker
+                    continue;
+                }
+                queue.drainTo(batch, batchSize - 1);
+
+                buffer.clear();
+                for (PendingRecord pending : batch) {
+                    if (pending == PendingRecord.CLOSE) {
+                        closing = true;
+                        continue;
+                    }
+                    if (closing) continue;
+                    if (buffer.remaining() < pending.bytes.length) {
+                        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + pending.bytes.length));
+                        buffer.flip();
+                        buffer = larger.put(buffer);
+                    }
+                    buffer.put(pending.bytes);
+                }
+                buffer.flip();
+
+                IOException failure = null;
+                long batchStart = -1;
+                try {
+                    batchStart = channel.position();
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+                    if (durability != Durability.NONE) channel.force(false);
+                } catch (IOException ex) {
+                    failure = ex;
+                    log.error("Could not write {} rental agreements to {}", batch.size(), path, ex);
+                    discardPartialBatch(batchStart);
+                }
+                boolean afterClose = false;
+                for (PendingRecord pending : batch) {
+                    if (pending == PendingRecord.CLOSE) {
+                        afterClose = true;
+                    } else if (afterClose) {
+                        pending.written.completeExceptionally(closedFailure());
+                    } else if (failure == null) {
+                        pending.written.complete(null);
+                    } else {
+                        pending.written.completeExceptionally(failure);
+                    }
+                }
+                batch.clear();
+            }
+            //Nothing is queued after the close marker, but no caller may be left waiting if something ever is
+            queue.drainTo(batch);
+            for (PendingRecord pending : batch) {
+                pending.written.completeExceptionally(closedFailure());
+            }
+        }
+
+        private IOException closedFailure() {
+            return new IOException("Agreement journal " + path + " was closed before the rental agreement was written");
+        }
+
+        /**
+         * Cut off whatever part of a failed batch was written, so later batches
+         * do not follow a partial record that would end a replay early
+         */
+        private void discardPartialBatch(long batchStart) {
+            if (batchStart < 0) return;
+            try {
+                channel.truncate(batchStart);
+                channel.position(batchStart);
+            } catch (IOException ex) {
+                log.error("Could not discard a partly written batch from {}", path, ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.Reservation;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.util.RentalFormatter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This service is used for reserving tools for rentals and finding the tools that are available.
+ *
+ * The reserved days of each tool are kept as {@link ReservedDays}, from the checkout date up to
+ * but not including the due date. Checking a period is a binary search of the reservations of
+ * one tool, so it takes the same time no matter how large the catalog is, and finding the tools
+ * of a type that are available only checks the tools of that type. Reservations of each tool are
+ * made while holding a lock of that tool, so checkouts of the same tool from different terminals
+ * can never overlap and checkouts of different tools never wait on each other. Reserved days are
+ * replaced rather than changed, so checking availability never locks. Only tools that have been
+ * reserved take up memory.
+ */
+@Service
+public class AvailabilityService {
+    @Autowired
+    private ToolService toolService;
+
+    @Autowired
+    private RentalService rentalService;
+
+    /**
+     * Reserve tools for the agreements handed out by the interactive interface
+     */
+    @Value("${application.availability.enabled:false}")
+    private boolean enabled;
+
+    private final Map<String, ToolReservations> reservations = new ConcurrentHashMap<>();
+
+    /**
+     * Check if tools are reserved for the agreements handed out by the interactive interface
+     * @return
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reserve a tool from its checkout date until its due date
+     * @param toolCode code of the tool, ignoring case
+     * @param checkoutDate
+     * @param rentalPeriod amount of days the tool is rented for
+     * @throws ToolManagementException when the tool code or rental period is invalid
+     * @throws ToolManagementException when the tool is already reserved for any day of the period
+     * @return
+     */
+    public Reservation reserve(String toolCode, LocalDate checkoutDate, int rentalPeriod) throws ToolManagementException {
+        String catalogCode = getCatalogCode(toolCode, rentalPeriod);
+        LocalDate dueDate = checkoutDate.plusDays(rentalPeriod);
+        ToolReservations toolReservations = reservations.get(catalogCode);
+        if (toolReservations == null) {
+            toolReservations = reservations.computeIfAbsent(catalogCode, code -> new ToolReservations());
+        }
+        if (!toolReservations.reserve(checkoutDate.toEpochDay(), dueDate.toEpochDay())) {
+            RentalFormatter formatter = rentalService.getFormatter();
+            throw new ToolManagementException(ErrorCode.RENT0006, catalogCode,
+                    formatter.formatDate(checkoutDate), formatter.formatDate(dueDate));
+        }
+        return new Reservation(catalogCode, checkoutDate, dueDate);
+    }
+
+    /**
+     * Release a reservation so its tool can be reserved for those days again
+     * @param reservation reservation returned by {@link #reserve(String, LocalDate, int)}
+     * @return false if the tool was not reserved for exactly that period
+     */
+    public boolean release(Reservation reservation) {
+        ToolReservations toolReservations = reservations.get(reservation.getToolCode());
+        return toolReservations != null && toolReservations.release(
+                reservation.getCheckOutDate().toEpochDay(), reservation.getDueDate().toEpochDay());
+    }
+
+    /**
+     * Check if a tool is not reserved for any day from its checkout date until its due date
+     * @param toolCode code of the tool, ignoring case
+     * @param checkoutDate
+     * @param rentalPeriod amount of days the tool would be rented for
+     * @throws ToolManagementException when the tool code or rental period is invalid
+     * @return
+     */
+    public boolean isAvailable(String toolCode, LocalDate checkoutDate, int rentalPeriod) throws ToolManagementException {
+        long firstDay = checkoutDate.toEpochDay();
+        return isFree(getCatalogCode(toolCode, rentalPeriod), firstDay, firstDay + rentalPeriod);
+    }
+
+    /**
+     * Find the tools of a type that are not reserved for any day from the checkout date until the due date
+     * @param toolType type of the tools, ignoring case
+     * @param checkoutDate
+     * @param rentalPeriod amount of days the tools would be rented for
+     * @throws ToolManagementException when the rental period is invalid
+     * @return available tools in catalog order, empty if there are no tools of the type
+     */
+    public List<ToolInformation> findAvailableTools(String toolType, LocalDate checkoutDate, int rentalPeriod)
+            throws ToolManagementException {
+        return findAvailableTools(toolService.getToolsByType(toolType), checkoutDate, rentalPeriod);
+    }
+
+    private List<ToolInformation> findAvailableTools(List<ToolInformation> tools, LocalDate checkoutDate, int rentalPeriod)
+            throws ToolManagementException {
+        if (rentalPeriod < 1) throw ToolManagementException.of(ErrorCode.RENT0001);
+        long firstDay = checkoutDate.toEpochDay();
+        long endDay = firstDay + rentalPeriod;
+        List<ToolInformation> available = new ArrayList<>();
+        for (ToolInformation toolInformation : tools) {
+            if (isFree(toolInformation.getToolCode(), firstDay, endDay)) available.add(toolInformation);
+        }
+        return available;
+    }
+
+    /**
+     * Find the tools of a type that are available and generate a rental agreement for each of them
+     * @param toolType type of the tools, ignoring case
+     * @param checkoutDate
+     * @param rentalPeriod amount of days the tools would be rented for
+     * @param discountPercentage
+     * @param holidayRegion holiday region to price with, the configured holidays are used when null
+     * @throws ToolManagementException when any of the rental information is invalid
+     * @return agreements of the available tools in catalog order
+     */
+    public List<RentalAgreement> quoteAvailableTools(String toolType, LocalDate checkoutDate, int rentalPeriod,
+                                                     int discountPercentage, String holidayRegion)
+            throws ToolManagementException {
+        rentalService.validateDiscountPercentage(discountPercentage);
+        //Every tool is found and priced with the same configuration, even if it is reloaded in between
+        PricingSnapshot snapshot = toolService.getSnapshot();
+        List<RentalAgreement> agreements = new ArrayList<>();
+        for (ToolInformation toolInformation : findAvailableTools(
+                toolService.getToolsByType(snapshot, toolType), checkoutDate, rentalPeriod)) {
+            agreements.add(rentalService.calculateRentalAgreement(snapshot,
+                    toolInformation, checkoutDate, rentalPeriod, discountPercentage, holidayRegion));
+        }
+        return agreements;
+    }
+
+    /**
+     * Get the reservations of a tool that include any day from the first date up to but not including the last date
+     * @param toolCode code of the tool, ignoring case
+     * @param fromDate
+     * @param untilDate
+     * @throws ToolManagementException when the tool code is invalid
+     * @return reservations sorted by their checkout date
+     */
+    public List<Reservation> getReservations(String toolCode, LocalDate fromDate, LocalDate untilDate)
+            throws ToolManagementException {
+        String catalogCode = toolService.getToolByCode(toolCode).getToolCode();
+        ToolReservations toolReservations = reservations.get(catalogCode);
+        if (toolReservations == null) return List.of();
+        ReservedDays days = toolReservations.days;
+        long fromDay = fromDate.toEpochDay();
+        long untilDay = untilDate.toEpochDay();
+        List<Reservation> found = new ArrayList<>();
+        if (untilDay <= fromDay) return found;
+        for (int run = days.firstRunEndingAfter(fromDay); run < days.size() && days.getFirstDay(run) < untilDay; run++) {
+            found.add(new Reservation(catalogCode,
+                    LocalDate.ofEpochDay(days.getFirstDay(run)), LocalDate.ofEpochDay(days.getEndDay(run))));
+        }
+        return found;
+    }
+
+    private boolean isFree(String catalogCode, long firstDay, long endDay) {
+        ToolReservations toolReservations = reservations.get(catalogCode);
+        return toolReservations == null || toolReservations.days.isFree(firstDay, endDay);
+    }
+
+    /**
+     * Find the code of a tool in the catalog, so codes that only differ by case share their reservations
+     * @param toolCode
+     * @param rentalPeriod
+     * @return
+     */
+    private String getCatalogCode(String toolCode, int rentalPeriod) throws ToolManagementException {
+        ToolInformation toolInformation = toolService.getToolByCode(toolCode);
+        if (rentalPeriod < 1) throw ToolManagementException.of(ErrorCode.RENT0001);
+        return toolInformation.getToolCode();
+    }
+
+    /**
+     * Reserved days of one tool, only replaced while holding its lock
+     */
+    private static final class ToolReservations {
+        private volatile ReservedDays days = ReservedDays.NONE;
+
+        private synchronized boolean reserve(long firstDay, long endDay) {
+            if (!days.isFree(firstDay, endDay)) return false;
+            days = days.reserve(firstDay, endDay);
+            return true;
+        }
+
+        private synchronized boolean release(long firstDay, long endDay) {
+            ReservedDays released = days.release(firstDay, endDay);
+            if (released == days) return false;
+            days = released;
+            return true;
+        }
+    }
+}
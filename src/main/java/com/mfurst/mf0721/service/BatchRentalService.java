@@ -0,0 +1,157 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.RentalRequest;
+import com.mfurst.mf0721.model.RentalResult;
+import com.mfurst.mf0721.model.ToolInformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * This service is used for pricing many rentals at once. Each rental is
+ * validated and priced the same way as the command line interface does it,
+ * and a failure of one rental does not affect the others, even if it fails
+ * with an unexpected exception.
+ */
+@Service
+public class BatchRentalService {
+    private static final Logger log = LoggerFactory.getLogger(BatchRentalService.class);
+
+    /**
+     * Batches smaller than this are priced on the calling thread
+     */
+    private static final int MIN_PARALLEL_BATCH_SIZE = 64;
+
+    @Autowired
+    private ToolService toolService;
+
+    @Autowired
+    private RentalService rentalService;
+
+    /**
+     * Amount of threads used for pricing batches, 0 uses one thread per available processor
+     */
+    @Value("${application.batch.parallelism:0}")
+    private int parallelism;
+
+    private volatile ForkJoinPool pricingPool;
+
+    /**
+     * Validate and price a single rental request
+     * @param request
+     * @return the generated agreement, or the error that prevented it
+     */
+    public RentalResult quote(RentalRequest request) {
+        return quote(request, false);
+    }
+
+    /**
+     * Validate and price a single rental request without formatting the agreement
+     * @param request
+     * @return the generated raw agreement, or the error that prevented it
+     */
+    public RentalResult quoteRaw(RentalRequest request) {
+        return quote(request, true);
+    }
+
+    private RentalResult quote(RentalRequest request, boolean raw) {
+        if (request == null) return RentalResult.failure(new ToolManagementException(ErrorCode.BULK0001, (Object) null));
+        try {
+            //The tool and the holidays it is priced with come from the same configuration
+            PricingSnapshot snapshot = toolService.getSnapshot();
+            ToolInformation toolInformation = toolService.getToolByCode(snapshot, request.getToolCode());
+            //Invalid input is common in batches, so it is checked without throwing
+            LocalDate checkoutDate = rentalService.tryParseRentalDate(request.getCheckoutDate());
+            if (checkoutDate == null) return RentalResult.failure(ToolManagementException.of(ErrorCode.RENT0002));
+            ErrorCode error = rentalService.checkRentalDays(request.getRentalPeriod());
+            if (error == null) error = rentalService.checkDiscountPercentage(request.getDiscountPercentage());
+            if (error != null) return RentalResult.failure(ToolManagementException.of(error));
+            if (raw) {
+                return RentalResult.success(rentalService.calculateRawRentalAgreement(snapshot,
+                        toolInformation, checkoutDate, request.getRentalPeriod(), request.getDiscountPercentage(),
+                        request.getHolidayRegion()
+                ));
+            }
+            RentalAgreement agreement = rentalService.calculateRentalAgreement(snapshot,
+                    toolInformation, checkoutDate, request.getRentalPeriod(), request.getDiscountPercentage(),
+                    request.getHolidayRegion()
+            );
+            return RentalResult.success(agreement);
+        } catch (ToolManagementException ex) {
+            return RentalResult.failure(ex);
+        } catch (RuntimeException ex) {
+            //Escaping the parallel batch would lose the results of every other request
+            log.error("Rental request {} could not be priced", request, ex);
+            return RentalResult.failure(new ToolManagementException(ErrorCode.BULK0002, ex, ex.toString()));
+        }
+    }
+
+    /**
+     * Validate and price every rental request, spreading the work across the pricing pool
+     * @param requests
+     * @return one result per request, in the same order as the requests
+     */
+    public List<RentalResult> quoteAll(Collection<RentalRequest> requests) {
+        return quoteAll(requests, false);
+    }
+
+    /**
+     * Validate and price every rental request without formatting the agreements,
+     * for consumers that work with epoch days and cents instead of formatted text
+     * @param requests
+     * @return one result per request, in the same order as the requests
+     */
+    public List<RentalResult> quoteAllRaw(Collection<RentalRequest> requests) {
+        return quoteAll(requests, true);
+    }
+
+    private List<RentalResult> quoteAll(Collection<RentalRequest> requests, boolean raw) {
+        RentalRequest[] requestArray = requests.toArray(new RentalRequest[0]);
+        RentalResult[] results = new RentalResult[requestArray.length];
+        if (requestArray.length < MIN_PARALLEL_BATCH_SIZE) {
+            for (int i = 0; i < requestArray.length; i++) {
+                results[i] = quote(requestArray[i], raw);
+            }
+        } else {
+            //Parallel streams started inside of a fork join pool run on that pool
+            getPricingPool().submit(() -> IntStream.range(0, requestArray.length)
+                    .parallel()
+                    .forEach(i -> results[i] = quote(requestArray[i], raw))
+            ).join();
+        }
+        return Arrays.asList(results);
+    }
+
+    private ForkJoinPool getPricingPool() {
+        ForkJoinPool pool = pricingPool;
+        if (pool == null) {
+            synchronized (this) {
+                pool = pricingPool;
+                if (pool == null) {
+                    pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+                    pricingPool = pool;
+                }
+            }
+        }
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ForkJoinPool pool = pricingPool;
+        if (pool != null) pool.shutdown();
+    }
+}
@@ -0,0 +1,51 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.CentsCalculator;
+
+import java.math.BigDecimal;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Daily charges of the tool types of a catalog in whole cents, converted once when
+ * the catalog is built instead of every time one of their tools is priced.
+ *
+ * Tool types can still be changed through their setters, so a converted charge is
+ * only used while its tool type still has the charge it was converted from. Other
+ * charges, and tool types that are not in the catalog, are converted when asked for.
+ */
+final class DailyChargeCents {
+    private final Map<ToolType, Conversion> conversions = new IdentityHashMap<>();
+
+    /**
+     * Convert the daily charge of a tool type of the catalog, only while the catalog is built
+     * @param toolType
+     */
+    void add(ToolType toolType) {
+        conversions.computeIfAbsent(toolType, type -> new Conversion(type.getCharge()));
+    }
+
+    /**
+     * Get the daily charge of a tool type in whole cents
+     * @param toolType
+     * @return the charge in cents, or NOT_REPRESENTABLE if there is no type or it has fractions of a cent
+     */
+    long get(ToolType toolType) {
+        if (toolType == null) return CentsCalculator.NOT_REPRESENTABLE;
+        BigDecimal charge = toolType.getCharge();
+        Conversion conversion = conversions.get(toolType);
+        if (conversion != null && conversion.charge == charge) return conversion.cents;
+        return CentsCalculator.toCents(charge);
+    }
+
+    private static final class Conversion {
+        private final BigDecimal charge;
+        private final long cents;
+
+        private Conversion(BigDecimal charge) {
+            this.charge = charge;
+            this.cents = CentsCalculator.toCents(charge);
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Tool catalog read from a memory-mapped binary file.
+ *
+ * Only the tool types are read onto the heap when the file is opened. Tools stay
+ * in the file and are decoded one at a time by lookups, so opening a catalog of
+ * millions of codes only maps the file and the operating system pages in what
+ * lookups touch. Lookups behave the same as {@link ToolCatalogIndex}: codes match
+ * ignoring case, the first of several tools or tool types sharing a code or type
+ * is used, and tools without a matching type report TOOL0003. Listing the tools of
+ * a type reads every tool record once to group them, and only keeps their positions.
+ *
+ * File layout, all numbers big-endian:
+ *   header: magic, version, tool type count, tool count, slot count (ints)
+ *   tool types: type, charge scale (int), charge unscaled value, charge flags (byte)
+ *   slots: slot count pairs of code hash and tool record offset + 1, 0 for an empty slot (ints)
+ *   tools: code, brand, tool type number or -1 (int)
+ * Strings and the unscaled value are a length (short, -1 for null) followed by their bytes.
+ * Slots are an open addressing hash table using {@link ToolCatalogIndex#hashIgnoreCase(String)}.
+ */
+public class MappedToolCatalog implements ToolCatalog {
+    private static final int MAGIC = 0x5443_4154;
+    private static final int VERSION = 1;
+    private static final int SLOT_BYTES = 2 * Integer.BYTES;
+    private static final byte WEEKDAY = 1;
+    private static final byte WEEKEND = 2;
+    private static final byte HOLIDAY = 4;
+
+    private final ByteBuffer buffer;
+    private final ToolType[] toolTypes;
+    private final DailyChargeCents dailyChargeCents = new DailyChargeCents();
+    private final int size;
+    private final int mask;
+    private final int slotsStart;
+    private final int toolsStart;
+    private volatile int[][] toolPositionsByType;
+
+    private MappedToolCatalog(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Not a tool catalog file");
+        }
+        ByteBuffer reader = buffer.duplicate();
+        reader.position(2 * Integer.BYTES);
+        this.toolTypes = new ToolType[reader.getInt()];
+        this.size = reader.getInt();
+        int slotCount = reader.getInt();
+        if (Integer.bitCount(slotCount) != 1) throw new IllegalArgumentException("Invalid slot count");
+        this.mask = slotCount - 1;
+        for (int i = 0; i < toolTypes.length; i++) {
+            String type = readString(reader);
+            int scale = reader.getInt();
+            byte[] unscaledCharge = readBytes(reader);
+            BigDecimal charge = unscaledCharge == null ? null : new BigDecimal(new BigInteger(unscaledCharge), scale);
+            byte flags = reader.get();
+            toolTypes[i] = new ToolType(type, charge,
+                    (flags & WEEKDAY) != 0, (flags & WEEKEND) != 0, (flags & HOLIDAY) != 0);
+            dailyChargeCents.add(toolTypes[i]);
+        }
+        this.slotsStart = reader.position();
+        this.toolsStart = Math.addExact(slotsStart, Math.multiplyExact(slotCount, SLOT_BYTES));
+        if (toolsStart > buffer.limit()) throw new IllegalArgumentException("Truncated tool catalog file");
+    }
+
+    /**
+     * Open a catalog file. The file is mapped read-only and can be
+     * replaced on disk without affecting a catalog that is already open.
+     * @param path
+     * @throws ToolManagementException if the file cannot be read or is not a tool catalog
+     * @return
+     */
+    public static MappedToolCatalog open(Path path) throws ToolManagementException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            //The mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new MappedToolCatalog(buffer);
+        } catch (IOException | RuntimeException ex) {
+            throw new ToolManagementException(ErrorCode.CONF0001, ex, path);
+        }
+    }
+
+    /**
+     * Write a catalog file for the provided tools and tool types. The file is written
+     * next to the target and moved into place, so an open catalog never sees a partial file.
+     * @param path
+     * @param tools
+     * @param toolTypes
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, List<Tool> tools, List<ToolType> toolTypes) throws IOException {
+        Path absolutePath = path.toAbsolutePath();
+        Path temporary = Files.createTempFile(absolutePath.getParent(), absolutePath.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temporary)) {
+                write(output, tools, toolTypes);
+            }
+            Files.move(temporary, absolutePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Write a catalog for the provided tools and tool types
+     * @param output
+     * @param tools
+     * @param toolTypes
+     * @throws IOException if the catalog cannot be written or is larger than 2GB
+     */
+    public static void write(OutputStream output, List<Tool> tools, List<ToolType> toolTypes) throws IOException {
+        List<Tool> writtenTools = tools == null ? List.of() : tools;
+        List<ToolType> writtenToolTypes = toolTypes == null ? List.of() : toolTypes;
+
+        //Tool type numbers by type ignoring case, the first of a type is kept
+        Map<String, Integer> typeNumbers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        List<ToolType> uniqueToolTypes = new ArrayList<>();
+        for (ToolType toolType : writtenToolTypes) {
+            if (toolType.getType() == null || typeNumbers.containsKey(toolType.getType())) continue;
+            typeNumbers.put(toolType.getType(), uniqueToolTypes.size());
+            uniqueToolTypes.add(toolType);
+        }
+
+        int slotCount = Integer.highestOneBit(Math.max(4, writtenTools.size() * 2 - 1)) << 1;
+        int mask = slotCount - 1;
+        int[] slotHashes = new int[slotCount];
+        int[] slotOffsets = new int[slotCount];
+        String[] slotCodes = new String[slotCount];
+        ByteArrayOutputStream toolBytes = new ByteArrayOutputStream();
+        DataOutputStream toolData = new DataOutputStream(toolBytes);
+        int toolCount = 0;
+        for (Tool tool : writtenTools) {
+            int hash = ToolCatalogIndex.hashIgnoreCase(tool.getCode());
+            int slot = hash & mask;
+            while (slotCodes[slot] != null && !slotCodes[slot].equalsIgnoreCase(tool.getCode())) {
+                slot = (slot + 1) & mask;
+            }
+            if (slotCodes[slot] != null) continue;
+            //The size stops counting at the largest int, past which offsets no longer fit
+            if (toolData.size() == Integer.MAX_VALUE) throw new IOException("Tool catalog is larger than 2GB");
+            slotCodes[slot] = tool.getCode();
+            slotHashes[slot] = hash;
+            slotOffsets[slot] = toolData.size() + 1;
+            writeString(toolData, tool.getCode());
+            writeString(toolData, tool.getBrand());
+            Integer typeNumber = tool.getType() == null ? null : typeNumbers.get(tool.getType());
+            toolData.writeInt(typeNumber == null ? -1 : typeNumber);
+            toolCount++;
+        }
+
+        DataOutputStream data = new DataOutputStream(output);
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(uniqueToolTypes.size());
+        data.writeInt(toolCount);
+        data.writeInt(slotCount);
+        for (ToolType toolType : uniqueToolTypes) {
+            writeString(data, toolType.getType());
+            BigDecimal charge = toolType.getCharge();
+            data.writeInt(charge == null ? 0 : charge.scale());
+            writeBytes(data, charge == null ? null : charge.unscaledValue().toByteArray());
+            data.writeByte((toolType.isWeekday() ? WEEKDAY : 0)
+                    | (toolType.isWeekend() ? WEEKEND : 0)
+                    | (toolType.isHoliday() ? HOLIDAY : 0));
+        }
+        for (int slot = 0; slot < slotCount; slot++) {
+            data.writeInt(slotHashes[slot]);
+            data.writeInt(slotOffsets[slot]);
+        }
+        toolBytes.writeTo(data);
+        data.flush();
+    }
+
+    @Override
+    public ToolInformation find(String toolCode) throws ToolManagementException {
+        int hash = ToolCatalogIndex.hashIgnoreCase(toolCode);
+        int slot = hash & mask;
+        while (true) {
+            int slotPosition = slotsStart + slot * SLOT_BYTES;
+            int offset = buffer.getInt(slotPosition + Integer.BYTES);
+            if (offset == 0) throw new ToolManagementException(ErrorCode.TOOL0002, toolCode);
+            if (buffer.getInt(slotPosition) == hash) {
+                int position = toolsStart + offset - 1;
+                String code = readString(buffer, position);
+                if (code.equalsIgnoreCase(toolCode)) return readTool(code, position, toolCode);
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    @Override
+    public List<ToolInformation> findAllOfType(String type) {
+        if (type == null) return List.of();
+        for (int typeNumber = 0; typeNumber < toolTypes.length; typeNumber++) {
+            if (!type.equalsIgnoreCase(toolTypes[typeNumber].getType())) continue;
+            int[] positions = getToolPositionsByType()[typeNumber];
+            List<ToolInformation> found = new ArrayList<>(positions.length);
+            for (int position : positions) {
+                int brandPosition = position + Short.BYTES + Math.max(0, buffer.getShort(position));
+                found.add(new ToolInformation(readString(buffer, position), readString(buffer, brandPosition), toolTypes[typeNumber]));
+            }
+            return found;
+        }
+        return List.of();
+    }
+
+    @Override
+    public long getDailyChargeCents(ToolType toolType) {
+        return dailyChargeCents.get(toolType);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the record positions of the tools of each tool type by tool type number.
+     * Every tool record is read once the first time the tools of a type are listed.
+     * @return
+     */
+    private int[][] getToolPositionsByType() {
+        int[][] positionsByType = toolPositionsByType;
+        if (positionsByType != null) return positionsByType;
+        synchronized (this) {
+            if (toolPositionsByType != null) return toolPositionsByType;
+            int[] toolPositions = new int[size];
+            int[] typeNumbers = new int[size];
+            int[] typeCounts = new int[toolTypes.length];
+            int position = toolsStart;
+            for (int i = 0; i < size; i++) {
+                int brandPosition = position + Short.BYTES + Math.max(0, buffer.getShort(position));
+                int typePosition = brandPosition + Short.BYTES + Math.max(0, buffer.getShort(brandPosition));
+                toolPositions[i] = position;
+                typeNumbers[i] = buffer.getInt(typePosition);
+                if (typeNumbers[i] >= 0) typeCounts[typeNumbers[i]]++;
+                position = typePosition + Integer.BYTES;
+            }
+            positionsByType = new int[toolTypes.length][];
+            for (int typeNumber = 0; typeNumber < toolTypes.length; typeNumber++) {
+                positionsByType[typeNumber] = new int[typeCounts[typeNumber]];
+                typeCounts[typeNumber] = 0;
+            }
+            for (int i = 0; i < size; i++) {
+                if (typeNumbers[i] >= 0) positionsByType[typeNumbers[i]][typeCounts[typeNumbers[i]]++] = toolPositions[i];
+            }
+            toolPositionsByType = positionsByType;
+            return positionsByType;
+        }
+    }
+
+    private ToolInformation readTool(String code, int position, String toolCode) throws ToolManagementException {
+        int brandPosition = position + Short.BYTES + Math.max(0, buffer.getShort(position));
+        String brand = readString(buffer, brandPosition);
+        int typeNumber = buffer.getInt(brandPosition + Short.BYTES + Math.max(0, buffer.getShort(brandPosition)));
+        if (typeNumber < 0) throw new ToolManagementException(ErrorCode.TOOL0003, toolCode);
+        return new ToolInformation(code, brand, toolTypes[typeNumber]);
+    }
+
+    /**
+     * Read a string at an absolute position without moving the shared buffer,
+     * so lookups from many threads can read the same buffer at once
+     */
+    private static String readString(ByteBuffer buffer, int position) {
+        short length = buffer.getShort(position);
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(position + Short.BYTES + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer reader) {
+        byte[] bytes = readBytes(reader);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readBytes(ByteBuffer reader) {
+        short length = reader.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        reader.get(bytes);
+        return bytes;
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException {
+        writeBytes(data, value == null ? null : value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void writeBytes(DataOutputStream data, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            data.writeShort(-1);
+            return;
+        }
+        if (bytes.length > Short.MAX_VALUE) throw new IOException("Value is longer than " + Short.MAX_VALUE + " bytes");
+        data.writeShort(bytes.length);
+        data.write(bytes);
+    }
+}
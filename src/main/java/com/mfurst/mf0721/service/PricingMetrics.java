@@ -0,0 +1,245 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.model.ErrorMetrics;
+import com.mfurst.mf0721.model.LatencyMetrics;
+import com.mfurst.mf0721.model.MetricsSnapshot;
+import com.mfurst.mf0721.util.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency and error metrics of pricing operations.
+ *
+ * Successful operations are counted per operation and tool type, and failed operations
+ * per operation and error code. Reading the clock costs more than most lookups, so only a
+ * random sample of operations is timed, one in latency-sample-rate, and recorded in a latency
+ * histogram per operation and tool type. Recording never locks or allocates once a tool type
+ * has been seen, so it is cheap enough for every pricing call. Metrics can be read as a
+ * {@link MetricsSnapshot} or written in the Prometheus text format.
+ */
+@Service
+public class PricingMetrics {
+    /**
+     * Operations that are measured
+     */
+    public enum Operation {
+        /**
+         * Finding a tool by its code
+         */
+        TOOL_LOOKUP("tool_lookup"),
+        /**
+         * Parsing a checkout date
+         */
+        DATE_PARSE("date_parse"),
+        /**
+         * Counting the charge days of a rental from the holiday calendar
+         */
+        CHARGE_DAYS("charge_days"),
+        /**
+         * Generating a rental agreement, including counting its charge days
+         */
+        AGREEMENT("agreement"),
+        /**
+         * Generating rental agreements for a range of rental periods at once
+         */
+        AGREEMENT_TABLE("agreement_table"),
+        /**
+         * Finding the cheapest checkout dates of a rental within a range of dates
+         */
+        CHEAPEST_CHECKOUT("cheapest_checkout");
+
+        private final String metricName;
+
+        Operation(String metricName) {
+            this.metricName = metricName;
+        }
+
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final String NO_TOOL_TYPE = "";
+    /**
+     * Start time of operations that are not timed
+     */
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    /**
+     * Record metrics, when disabled nothing is measured or recorded
+     */
+    @Value("${application.metrics.enabled:true}")
+    private boolean enabled = true;
+
+    /**
+     * Time one of every this many operations, 1 times every operation
+     */
+    @Value("${application.metrics.latency-sample-rate:16}")
+    private int latencySampleRate = 16;
+
+    private final Map<Operation, Map<String, OperationTimer>> timers = new EnumMap<>(Operation.class);
+    private final LongAdder[][] errors = new LongAdder[Operation.values().length][ErrorCode.values().length];
+
+    public PricingMetrics() {
+        for (Operation operation : Operation.values()) {
+            timers.put(operation, new ConcurrentHashMap<>());
+            for (ErrorCode errorCode : ErrorCode.values()) {
+                errors[operation.ordinal()][errorCode.ordinal()] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Get the start time of an operation to pass to {@link #recordSuccess(Operation, String, long)}
+     * @return the current time if this operation is timed
+     */
+    public long start() {
+        if (!enabled) return NOT_TIMED;
+        if (latencySampleRate > 1 && ThreadLocalRandom.current().nextInt(latencySampleRate) != 0) return NOT_TIMED;
+        return System.nanoTime();
+    }
+
+    /**
+     * Record an operation that succeeded
+     * @param operation
+     * @param toolType tool type the operation was for, null for operations without a tool
+     * @param startNanos value of {@link #start()} when the operation started
+     */
+    public void recordSuccess(Operation operation, String toolType, long startNanos) {
+        if (!enabled) return;
+        Map<String, OperationTimer> operationTimers = timers.get(operation);
+        String key = toolType == null ? NO_TOOL_TYPE : toolType;
+        OperationTimer timer = operationTimers.get(key);
+        if (timer == null) timer = operationTimers.computeIfAbsent(key, type -> new OperationTimer());
+        timer.count.increment();
+        if (startNanos != NOT_TIMED) timer.latencies.record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Record an operation that failed
+     * @param operation
+     * @param errorCode
+     */
+    public void recordFailure(Operation operation, ErrorCode errorCode) {
+        if (!enabled) return;
+        errors[operation.ordinal()][errorCode.ordinal()].increment();
+    }
+
+    /**
+     * Get the current metrics
+     * @return
+     */
+    public MetricsSnapshot snapshot() {
+        List<LatencyMetrics> latencyMetrics = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            for (Map.Entry<String, OperationTimer> entry : new TreeMap<>(timers.get(operation)).entrySet()) {
+                LatencyHistogram.Snapshot snapshot = entry.getValue().latencies.snapshot();
+                latencyMetrics.add(new LatencyMetrics(operation.getMetricName(), entry.getKey(),
+                        entry.getValue().count.sum(), snapshot.getCount(), snapshot.getSum(), snapshot.getMax(),
+                        snapshot.getValueAtPercentile(50), snapshot.getValueAtPercentile(90),
+                        snapshot.getValueAtPercentile(99), snapshot.getValueAtPercentile(99.9)));
+            }
+        }
+
+        List<ErrorMetrics> errorMetrics = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            for (ErrorCode errorCode : ErrorCode.values()) {
+                long count = errors[operation.ordinal()][errorCode.ordinal()].sum();
+                if (count > 0) errorMetrics.add(new ErrorMetrics(operation.getMetricName(), errorCode.name(), count));
+            }
+        }
+        return new MetricsSnapshot(latencyMetrics, errorMetrics);
+    }
+
+    /**
+     * Write the current metrics in the Prometheus text exposition format, with latencies in seconds
+     * @param output
+     * @throws IOException if the output cannot be written
+     */
+    public void writePrometheus(Appendable output) throws IOException {
+        output.append("# HELP mf0721_operations_total Successful pricing operations\n");
+        output.append("# TYPE mf0721_operations_total counter\n");
+        for (Operation operation : Operation.values()) {
+            for (Map.Entry<String, OperationTimer> entry : new TreeMap<>(timers.get(operation)).entrySet()) {
+                output.append("mf0721_operations_total{").append(labels(operation, entry.getKey())).append("} ")
+                        .append(String.valueOf(entry.getValue().count.sum())).append('\n');
+            }
+        }
+
+        output.append("# HELP mf0721_operation_latency_seconds Latency of the sampled successful pricing operations\n");
+        output.append("# TYPE mf0721_operation_latency_seconds summary\n");
+        for (Operation operation : Operation.values()) {
+            for (Map.Entry<String, OperationTimer> entry : new TreeMap<>(timers.get(operation)).entrySet()) {
+                LatencyHistogram.Snapshot snapshot = entry.getValue().latencies.snapshot();
+                String labels = labels(operation, entry.getKey());
+                for (double quantile : QUANTILES) {
+                    output.append("mf0721_operation_latency_seconds{").append(labels)
+                            .append(",quantile=\"").append(String.valueOf(quantile)).append("\"} ")
+                            .append(String.valueOf(snapshot.getValueAtPercentile(quantile * 100) / NANOS_PER_SECOND))
+                            .append('\n');
+                }
+                output.append("mf0721_operation_latency_seconds_sum{").append(labels).append("} ")
+                        .append(String.valueOf(snapshot.getSum() / NANOS_PER_SECOND)).append('\n');
+                output.append("mf0721_operation_latency_seconds_count{").append(labels).append("} ")
+                        .append(String.valueOf(snapshot.getCount())).append('\n');
+            }
+        }
+
+        output.append("# HELP mf0721_operation_errors_total Failed pricing operations\n");
+        output.append("# TYPE mf0721_operation_errors_total counter\n");
+        for (Operation operation : Operation.values()) {
+            for (ErrorCode errorCode : ErrorCode.values()) {
+                long count = errors[operation.ordinal()][errorCode.ordinal()].sum();
+                if (count == 0) continue;
+                output.append("mf0721_operation_errors_total{operation=\"").append(operation.getMetricName())
+                        .append("\",error_code=\"").append(errorCode.name()).append("\"} ")
+                        .append(String.valueOf(count)).append('\n');
+            }
+        }
+    }
+
+    /**
+     * Get the current metrics in the Prometheus text exposition format
+     * @return
+     */
+    public String toPrometheusText() {
+        StringBuilder builder = new StringBuilder();
+        try {
+            writePrometheus(builder);
+        } catch (IOException ex) {
+            //StringBuilder does not throw
+            throw new UncheckedIOException(ex);
+        }
+        return builder.toString();
+    }
+
+    private static String labels(Operation operation, String toolType) {
+        return "operation=\"" + operation.getMetricName() + "\",tool_type=\"" + escapeLabelValue(toolType) + "\"";
+    }
+
+    private static String escapeLabelValue(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    /**
+     * Count and sampled latencies of one operation and tool type
+     */
+    private static final class OperationTimer {
+        private final LongAdder count = new LongAdder();
+        private final LatencyHistogram latencies = new LatencyHistogram();
+    }
+}
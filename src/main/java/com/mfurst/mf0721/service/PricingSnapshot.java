@@ -0,0 +1,38 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.util.HolidayCalendars;
+
+/**
+ * Tool catalog and holiday calendars of one configuration.
+ *
+ * A reload publishes a new snapshot with a single write, so a quote that reads the
+ * snapshot once is priced with a catalog, holidays and holiday regions that were
+ * loaded together, never with part of the previous configuration.
+ */
+public final class PricingSnapshot {
+    private final ToolCatalog catalog;
+    private final HolidayCalendars calendars;
+
+    PricingSnapshot(ToolCatalog catalog, HolidayCalendars calendars) {
+        this.catalog = catalog;
+        this.calendars = calendars;
+    }
+
+    /**
+     * Check if this snapshot holds the provided catalog and calendars
+     * @param catalog
+     * @param calendars
+     * @return
+     */
+    boolean isBuiltFrom(ToolCatalog catalog, HolidayCalendars calendars) {
+        return this.catalog == catalog && this.calendars == calendars;
+    }
+
+    public ToolCatalog getCatalog() {
+        return catalog;
+    }
+
+    public HolidayCalendars getCalendars() {
+        return calendars;
+    }
+}
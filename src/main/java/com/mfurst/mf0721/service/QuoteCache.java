@@ -0,0 +1,178 @@
+package com.mfurst.mf0721.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.HolidayCalendar;
+import com.mfurst.mf0721.util.RentalFormatter;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Bounded cache of priced rental agreements.
+ *
+ * Agreements are cached without the tool code and brand, keyed on every field
+ * of the tool type plus the checkout date, rental period, discount and holiday region, so every
+ * tool of the same type shares the same entries and a changed tool type never
+ * matches an entry priced for the old one. Each entry remembers the holiday
+ * calendar and formatter it was priced with, and looking it up with a different
+ * one is a miss that drops only that entry. Quotes priced with the previous
+ * holidays can still be running after a reload, so mismatches never empty the
+ * whole cache, the reload does that once with {@link #invalidateAll()}.
+ */
+public class QuoteCache {
+    private final long maximumSize;
+    private final long expireAfterWriteSeconds;
+    private final Cache<Key, Entry> cache;
+
+    /**
+     * Create an empty cache
+     * @param maximumSize amount of agreements to keep before the least used are evicted
+     * @param expireAfterWriteSeconds seconds to keep an agreement after it is priced
+     */
+    public QuoteCache(long maximumSize, long expireAfterWriteSeconds) {
+        this(maximumSize, expireAfterWriteSeconds, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create an empty cache that runs evictions on the provided executor
+     * @param maximumSize
+     * @param expireAfterWriteSeconds
+     * @param executor
+     */
+    QuoteCache(long maximumSize, long expireAfterWriteSeconds, Executor executor) {
+        this.maximumSize = maximumSize;
+        this.expireAfterWriteSeconds = expireAfterWriteSeconds;
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .executor(executor)
+                .recordStats();
+        if (expireAfterWriteSeconds > 0) builder.expireAfterWrite(Duration.ofSeconds(expireAfterWriteSeconds));
+        this.cache = builder.build();
+    }
+
+    /**
+     * Check if this cache was created with the provided limits
+     * @param maximumSize
+     * @param expireAfterWriteSeconds
+     * @return
+     */
+    public boolean isBuiltFrom(long maximumSize, long expireAfterWriteSeconds) {
+        return this.maximumSize == maximumSize && this.expireAfterWriteSeconds == expireAfterWriteSeconds;
+    }
+
+    /**
+     * Find a previously priced agreement
+     * @param toolType
+     * @param checkoutDate
+     * @param rentalPeriod
+     * @param discountPercentage
+     * @param holidayRegion holiday region the agreement was priced for, null for the configured holidays
+     * @param calendar holiday calendar the agreement must have been priced with
+     * @param formatter formatter the agreement must have been formatted with
+     * @return the agreement without tool code and brand, or null if it is not cached
+     */
+    public RentalAgreement get(ToolType toolType, LocalDate checkoutDate, int rentalPeriod, int discountPercentage,
+                               String holidayRegion, HolidayCalendar calendar, RentalFormatter formatter) {
+        Key key = new Key(toolType, checkoutDate, rentalPeriod, discountPercentage, holidayRegion);
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) return null;
+        if (entry.getCalendar() != calendar || entry.getFormatter() != formatter) {
+            //Only drop the entry if it has not been replaced in the meantime
+            cache.asMap().remove(key, entry);
+            return null;
+        }
+        return entry.getAgreement();
+    }
+
+    /**
+     * Cache a priced agreement
+     * @param toolType
+     * @param checkoutDate
+     * @param rentalPeriod
+     * @param discountPercentage
+     * @param holidayRegion holiday region the agreement was priced for, null for the configured holidays
+     * @param calendar holiday calendar the agreement was priced with
+     * @param formatter formatter the agreement was formatted with
+     * @param agreement the agreement without tool code and brand
+     */
+    public void put(ToolType toolType, LocalDate checkoutDate, int rentalPeriod, int discountPercentage,
+                    String holidayRegion, HolidayCalendar calendar, RentalFormatter formatter, RentalAgreement agreement) {
+        cache.put(new Key(toolType, checkoutDate, rentalPeriod, discountPercentage, holidayRegion),
+                new Entry(calendar, formatter, agreement));
+    }
+
+    /**
+     * Remove every cached agreement
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Run pending evictions now instead of during later cache operations
+     */
+    public void cleanUp() {
+        cache.cleanUp();
+    }
+
+    /**
+     * Get the hit, miss and eviction counts since the cache was created
+     * @return
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Get the approximate amount of cached agreements
+     * @return
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    @Data
+    private static class Key {
+        private final String type;
+        private final BigDecimal charge;
+        private final boolean weekday;
+        private final boolean weekend;
+        private final boolean holiday;
+        private final LocalDate checkoutDate;
+        private final int rentalPeriod;
+        private final int discountPercentage;
+        private final String holidayRegion;
+
+        //Copy the tool type fields so later changes to the tool type cannot change the key
+        Key(ToolType toolType, LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion) {
+            this.type = toolType.getType();
+            this.charge = toolType.getCharge();
+            this.weekday = toolType.isWeekday();
+            this.weekend = toolType.isWeekend();
+            this.holiday = toolType.isHoliday();
+            this.checkoutDate = checkoutDate;
+            this.rentalPeriod = rentalPeriod;
+            this.discountPercentage = discountPercentage;
+            //Region names ignore case, the same as when they are looked up
+            this.holidayRegion = holidayRegion == null ? null : holidayRegion.toLowerCase(Locale.ROOT);
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    private static class Entry {
+        private final HolidayCalendar calendar;
+        private final RentalFormatter formatter;
+        private final RentalAgreement agreement;
+    }
+}
@@ -1,20 +1,27 @@
 package com.mfurst.mf0721.service;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.mfurst.mf0721.exception.ErrorCode;
 import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RawRentalAgreement;
 import com.mfurst.mf0721.model.RentalAgreement;
 import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.CentsCalculator;
 import com.mfurst.mf0721.util.DateUtil;
+import com.mfurst.mf0721.util.HolidayCalendar;
+import com.mfurst.mf0721.util.HolidayCalendars;
+import com.mfurst.mf0721.util.RentalFormatter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.text.DecimalFormat;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * This service is used for rental logic, such as validating rental information
@@ -22,23 +29,64 @@ import java.time.format.DateTimeParseException;
  */
 @Service
 public class RentalService {
+    /**
+     * Most rental periods that can be priced together
+     */
+    public static final int MAX_QUOTED_RENTAL_PERIODS = 1000;
+
+    /**
+     * Most checkout dates that can be compared together
+     */
+    public static final int MAX_COMPARED_CHECKOUT_DATES = 1000;
 
     @Autowired
     private DateUtil dateUtil;
 
+    @Autowired
+    private ToolService toolService;
+
+    @Autowired
+    private PricingMetrics pricingMetrics;
+
     @Value("${application.formatting.date}")
     private String dateFormat;
 
     @Value("${application.formatting.currency}")
     private String currencyFormat;
 
+    /**
+     * Amount of priced agreements to cache, the cache is disabled when not set
+     */
+    @Value("${application.quote-cache.maximum-size:0}")
+    private long quoteCacheMaximumSize;
+
+    /**
+     * Seconds to keep a priced agreement in the cache, 0 keeps it until it is evicted
+     */
+    @Value("${application.quote-cache.expire-after-write-seconds:0}")
+    private long quoteCacheExpireAfterWriteSeconds;
+
+    private volatile RentalFormatter formatter;
+
+    private volatile QuoteCache quoteCache;
+
     /**
      * Validate the amount of days of a rental
      * @param nDays
      * @throws ToolManagementException if rental period is not valid
      */
     public void validateRentalDays(int nDays) throws ToolManagementException{
-        if (nDays < 1) throw new ToolManagementException(ErrorCode.RENT0001);
+        ErrorCode error = checkRentalDays(nDays);
+        if (error != null) throw ToolManagementException.of(error);
+    }
+
+    /**
+     * Check the amount of days of a rental without throwing
+     * @param nDays
+     * @return the error code if the rental period is not valid, or null
+     */
+    public ErrorCode checkRentalDays(int nDays) {
+        return nDays < 1 ? ErrorCode.RENT0001 : null;
     }
 
     /**
@@ -47,8 +95,19 @@ public class RentalService {
      * @throws ToolManagementException
      */
     public void validateDiscountPercentage(int percentage) throws ToolManagementException {
-        if (percentage < 0) throw new ToolManagementException(ErrorCode.RENT0003);
-        if (percentage > 100) throw new ToolManagementException(ErrorCode.RENT0004);
+        ErrorCode error = checkDiscountPercentage(percentage);
+        if (error != null) throw ToolManagementException.of(error);
+    }
+
+    /**
+     * Check the discount percentage without throwing
+     * @param percentage
+     * @return the error code if the discount percentage is not valid, or null
+     */
+    public ErrorCode checkDiscountPercentage(int percentage) {
+        if (percentage < 0) return ErrorCode.RENT0003;
+        if (percentage > 100) return ErrorCode.RENT0004;
+        return null;
     }
 
     /**
@@ -59,12 +118,25 @@ public class RentalService {
      * @return
      */
     public LocalDate parseRentalDate(String rentalDateString) throws ToolManagementException {
-        try {
-            DateTimeFormatter formatter =  DateTimeFormatter.ofPattern(dateFormat);
-            return LocalDate.parse(rentalDateString, formatter);
-        } catch (DateTimeParseException ex) {
-            throw new ToolManagementException(ErrorCode.RENT0002);
+        LocalDate date = tryParseRentalDate(rentalDateString);
+        if (date == null) throw ToolManagementException.of(ErrorCode.RENT0002);
+        return date;
+    }
+
+    /**
+     * Convert a rental date string to a date object without throwing
+     * @param rentalDateString
+     * @return the date, or null if the string is not a valid date in mm/dd/yy format
+     */
+    public LocalDate tryParseRentalDate(String rentalDateString) {
+        long start = pricingMetrics.start();
+        LocalDate date = getFormatter().tryParseDate(rentalDateString);
+        if (date == null) {
+            pricingMetrics.recordFailure(PricingMetrics.Operation.DATE_PARSE, ErrorCode.RENT0002);
+        } else {
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.DATE_PARSE, null, start);
         }
+        return date;
     }
 
     /**
@@ -79,27 +151,464 @@ public class RentalService {
     public RentalAgreement calculateRentalAgreement(ToolInformation toolInfo,
                         LocalDate checkoutDate, int rentalPeriod, int discountPercentage
     ) throws ToolManagementException{
-        DateTimeFormatter dateFormatter =  DateTimeFormatter.ofPattern(dateFormat);
-        DecimalFormat currencyFormatter = new DecimalFormat(currencyFormat);
-        //Due date is checkout date plus rental period
-        LocalDate dueDate = checkoutDate.plusDays(rentalPeriod);
-        int weekendsBetweenDates = dateUtil.getNumberOfWeekendsBetweenTwoDates(checkoutDate, dueDate);
-        int holidaysBetweenDates = dateUtil.getNumberOfHolidaysBetweenTwoDates(checkoutDate, dueDate);
-        //Weekdays is any days that are not weekends or holidays in rental period
-        int weekdays = rentalPeriod - weekendsBetweenDates - holidaysBetweenDates;
-
-        int chargedRentalDays = 0;
-        if (toolInfo.getToolType().isWeekday()) {
-            chargedRentalDays += weekdays;
+        return calculateRentalAgreement(toolInfo, checkoutDate, rentalPeriod, discountPercentage, null);
+    }
+
+    /**
+     * Generate a rental agreement from user provided information using the holidays of a holiday region
+     * @param toolInfo information about the tool
+     * @param checkoutDate checkout date as provided by user
+     * @param rentalPeriod amount of days for the rental
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @throws ToolManagementException if any data is invalid or the holiday region does not exist
+     * @return
+     */
+    public RentalAgreement calculateRentalAgreement(ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException{
+        return calculateRentalAgreement(toolService.getSnapshot(),
+                toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion);
+    }
+
+    /**
+     * Generate a rental agreement with the holidays of a pricing snapshot
+     * @param snapshot snapshot the tool was looked up in
+     * @param toolInfo information about the tool
+     * @param checkoutDate checkout date as provided by user
+     * @param rentalPeriod amount of days for the rental
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @throws ToolManagementException if any data is invalid or the holiday region does not exist
+     * @return
+     */
+    public RentalAgreement calculateRentalAgreement(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException{
+        long start = pricingMetrics.start();
+        try {
+            RentalAgreement agreement = calculateCachedRentalAgreement(snapshot,
+                    toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion);
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.AGREEMENT, toolInfo.getToolType().getType(), start);
+            return agreement;
+        } catch (ToolManagementException ex) {
+            pricingMetrics.recordFailure(PricingMetrics.Operation.AGREEMENT, ex.getErrorCode());
+            throw ex;
+        }
+    }
+
+    private RentalAgreement calculateCachedRentalAgreement(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException {
+        RentalFormatter formatter = getFormatter();
+        QuoteCache cache = getQuoteCache();
+        if (cache == null) {
+            return priceRentalAgreement(snapshot, toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion, formatter);
         }
-        if (toolInfo.getToolType().isWeekend()) {
-            chargedRentalDays += weekendsBetweenDates;
+
+        //Cached agreements are shared by every tool of the same type, so only copies are handed out
+        HolidayCalendar calendar = snapshot.getCalendars().getCalendar(holidayRegion);
+        ToolType toolType = toolInfo.getToolType();
+        RentalAgreement cached = cache.get(toolType, checkoutDate, rentalPeriod, discountPercentage,
+                holidayRegion, calendar, formatter);
+        if (cached == null) {
+            cached = priceRentalAgreement(snapshot, toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion, formatter)
+                    .toBuilder().toolCode(null).toolBrand(null).build();
+            cache.put(toolType, checkoutDate, rentalPeriod, discountPercentage, holidayRegion, calendar, formatter, cached);
+        }
+        return cached.toBuilder()
+                .toolCode(toolInfo.getToolCode())
+                .toolBrand(toolInfo.getToolBrand())
+                .build();
+    }
+
+    /**
+     * Generate a rental agreement for every rental period from the first to the last one, such as a price
+     * table for 1 to 30 days. The charge days of every period are counted in a single pass over the calendar,
+     * only the due date and charges are formatted for each period, and periods that only add days which are
+     * not charged reuse the charges of the period before them.
+     * @param toolInfo information about the tool
+     * @param checkoutDate checkout date as provided by user
+     * @param firstRentalPeriod shortest rental period to price
+     * @param lastRentalPeriod longest rental period to price
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @throws ToolManagementException if any data is invalid, too many periods are requested or the holiday region does not exist
+     * @return agreements ordered by rental period, empty if the last period is before the first
+     */
+    public List<RentalAgreement> calculateRentalAgreements(ToolInformation toolInfo, LocalDate checkoutDate,
+                        int firstRentalPeriod, int lastRentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException {
+        return calculateRentalAgreements(toolService.getSnapshot(), toolInfo, checkoutDate,
+                firstRentalPeriod, lastRentalPeriod, discountPercentage, holidayRegion);
+    }
+
+    /**
+     * Generate a rental agreement for every rental period from the first to the last one with the holidays of a pricing snapshot
+     * @param snapshot snapshot the tool was looked up in
+     * @param toolInfo information about the tool
+     * @param checkoutDate checkout date as provided by user
+     * @param firstRentalPeriod shortest rental period to price
+     * @param lastRentalPeriod longest rental period to price
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @throws ToolManagementException if any data is invalid, too many periods are requested or the holiday region does not exist
+     * @return agreements ordered by rental period, empty if the last period is before the first
+     */
+    public List<RentalAgreement> calculateRentalAgreements(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate checkoutDate, int firstRentalPeriod, int lastRentalPeriod, int discountPercentage,
+                        String holidayRegion
+    ) throws ToolManagementException {
+        long start = pricingMetrics.start();
+        try {
+            validateRentalDays(firstRentalPeriod);
+            validateDiscountPercentage(discountPercentage);
+            if ((long) lastRentalPeriod - firstRentalPeriod >= MAX_QUOTED_RENTAL_PERIODS) {
+                throw new ToolManagementException(ErrorCode.RENT0007, MAX_QUOTED_RENTAL_PERIODS);
+            }
+            List<RentalAgreement> agreements = priceRentalAgreements(snapshot,
+                    toolInfo, checkoutDate, firstRentalPeriod, lastRentalPeriod, discountPercentage, holidayRegion);
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.AGREEMENT_TABLE, toolInfo.getToolType().getType(), start);
+            return agreements;
+        } catch (ToolManagementException ex) {
+            pricingMetrics.recordFailure(PricingMetrics.Operation.AGREEMENT_TABLE, ex.getErrorCode());
+            throw ex;
         }
-        if (toolInfo.getToolType().isHoliday()) {
-            chargedRentalDays += holidaysBetweenDates;
+    }
+
+    private List<RentalAgreement> priceRentalAgreements(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate checkoutDate, int firstRentalPeriod, int lastRentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException {
+        if (lastRentalPeriod < firstRentalPeriod) return List.of();
+        RentalFormatter formatter = getFormatter();
+        ToolType toolType = toolInfo.getToolType();
+        long dailyChargeCents = snapshot.getCatalog().getDailyChargeCents(toolType);
+        int[] chargeDays = dateUtil.getNumberOfChargeDaysOfEachRentalPeriod(snapshot.getCalendars(), holidayRegion, checkoutDate, lastRentalPeriod, toolType.isWeekday(), toolType.isWeekend(), toolType.isHoliday());
+
+        List<RentalAgreement> agreements = new ArrayList<>(lastRentalPeriod - firstRentalPeriod + 1);
+        RentalAgreement previous = null;
+        for (int rentalPeriod = firstRentalPeriod; rentalPeriod <= lastRentalPeriod; rentalPeriod++) {
+            LocalDate dueDate = checkoutDate.plusDays(rentalPeriod);
+            int chargedRentalDays = chargeDays[rentalPeriod - 1];
+            RentalAgreement agreement = null;
+            if (previous != null) {
+                //The tool, checkout date and daily charge are the same for every period, so they are only formatted once
+                RentalAgreement.RentalAgreementBuilder builder = previous.toBuilder()
+                        .amountOfRentalDays(rentalPeriod)
+                        .formattedDueDate(formatter.formatDate(dueDate));
+                if (previous.getChargeDays() == chargedRentalDays) {
+                    agreement = builder.build();
+                } else {
+                    RawRentalAgreement raw = priceRawRentalAgreement(toolInfo, dailyChargeCents,
+                            checkoutDate, dueDate, rentalPeriod, chargedRentalDays, discountPercentage);
+                    if (raw.getFinalChargeCents() != CentsCalculator.NOT_REPRESENTABLE) {
+                        agreement = builder.chargeDays(chargedRentalDays)
+                                .formattedPreDiscountCharge(formatter.formatCents(raw.getPreDiscountChargeCents()))
+                                .formattedDiscountAmount(formatter.formatCents(raw.getDiscountAmountCents()))
+                                .formattedFinalCharge(formatter.formatCents(raw.getFinalChargeCents()))
+                                .build();
+                    }
+                }
+            }
+            if (agreement == null) {
+                agreement = formatPricedRentalAgreement(toolInfo, priceRawRentalAgreement(toolInfo, dailyChargeCents,
+                        checkoutDate, dueDate, rentalPeriod, chargedRentalDays, discountPercentage), formatter);
+            }
+            agreements.add(agreement);
+            previous = agreement;
         }
+        return agreements;
+    }
+
+    /**
+     * Find the checkout dates within a range of dates that make a rental cheapest, such as the start dates
+     * that avoid charged weekends or holidays. The charge days of every checkout date are counted by sliding
+     * the rental over the calendar once, and only the cheapest dates are priced. The charges only depend on
+     * the tool type, so the same dates are the cheapest for every tool of that type.
+     * @param toolInfo information about the tool
+     * @param earliestCheckoutDate first checkout date to compare
+     * @param latestCheckoutDate last checkout date to compare
+     * @param rentalPeriod amount of days for the rental
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @param limit most agreements to return
+     * @throws ToolManagementException if any data is invalid, too many dates are compared or the holiday region does not exist
+     * @return agreements from the cheapest, earlier checkout dates first when they cost the same,
+     * empty if the latest checkout date is before the earliest one
+     */
+    public List<RentalAgreement> findCheapestCheckoutDates(ToolInformation toolInfo, LocalDate earliestCheckoutDate,
+                        LocalDate latestCheckoutDate, int rentalPeriod, int discountPercentage, String holidayRegion,
+                        int limit
+    ) throws ToolManagementException {
+        return findCheapestCheckoutDates(toolService.getSnapshot(), toolInfo, earliestCheckoutDate,
+                latestCheckoutDate, rentalPeriod, discountPercentage, holidayRegion, limit);
+    }
 
-        BigDecimal preDiscountCharge = toolInfo.getToolType().getCharge()
+    /**
+     * Find the checkout dates within a range of dates that make a rental cheapest with the holidays of a pricing snapshot
+     * @param snapshot snapshot the tool was looked up in
+     * @param toolInfo information about the tool
+     * @param earliestCheckoutDate first checkout date to compare
+     * @param latestCheckoutDate last checkout date to compare
+     * @param rentalPeriod amount of days for the rental
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @param limit most agreements to return
+     * @throws ToolManagementException if any data is invalid, too many dates are compared or the holiday region does not exist
+     * @return agreements from the cheapest, earlier checkout dates first when they cost the same,
+     * empty if the latest checkout date is before the earliest one
+     */
+    public List<RentalAgreement> findCheapestCheckoutDates(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate earliestCheckoutDate, LocalDate latestCheckoutDate, int rentalPeriod,
+                        int discountPercentage, String holidayRegion, int limit
+    ) throws ToolManagementException {
+        long start = pricingMetrics.start();
+        try {
+            validateRentalDays(rentalPeriod);
+            validateDiscountPercentage(discountPercentage);
+            long checkoutDates = latestCheckoutDate.toEpochDay() - earliestCheckoutDate.toEpochDay() + 1;
+            if (checkoutDates > MAX_COMPARED_CHECKOUT_DATES) {
+                throw new ToolManagementException(ErrorCode.RENT0008, MAX_COMPARED_CHECKOUT_DATES);
+            }
+            List<RentalAgreement> agreements = priceCheapestCheckoutDates(snapshot, toolInfo, earliestCheckoutDate,
+                    (int) Math.max(0, checkoutDates), rentalPeriod, discountPercentage, holidayRegion, limit);
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.CHEAPEST_CHECKOUT, toolInfo.getToolType().getType(), start);
+            return agreements;
+        } catch (ToolManagementException ex) {
+            pricingMetrics.recordFailure(PricingMetrics.Operation.CHEAPEST_CHECKOUT, ex.getErrorCode());
+            throw ex;
+        }
+    }
+
+    private List<RentalAgreement> priceCheapestCheckoutDates(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate earliestCheckoutDate, int checkoutDates, int rentalPeriod, int discountPercentage, String holidayRegion, int limit
+    ) throws ToolManagementException {
+        ToolType toolType = toolInfo.getToolType();
+        int[] chargeDays = dateUtil.getNumberOfChargeDaysOfEachCheckoutDate(snapshot.getCalendars(), holidayRegion, earliestCheckoutDate, checkoutDates, rentalPeriod,
+                toolType.isWeekday(), toolType.isWeekend(), toolType.isHoliday());
+
+        //Charges never go down when there are more charge days, so ranking by charge days ranks by final charge.
+        //Charge days are in the high bits and the checkout date in the low bits, so earlier dates win ties.
+        long[] ranking = new long[chargeDays.length];
+        for (int i = 0; i < chargeDays.length; i++) {
+            ranking[i] = ((long) chargeDays[i] << 32) | i;
+        }
+        Arrays.sort(ranking);
+
+        RentalFormatter formatter = getFormatter();
+        long dailyChargeCents = snapshot.getCatalog().getDailyChargeCents(toolType);
+        int count = Math.max(0, Math.min(limit, ranking.length));
+        List<RentalAgreement> agreements = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int chargedRentalDays = (int) (ranking[i] >> 32);
+            LocalDate checkoutDate = earliestCheckoutDate.plusDays((int) ranking[i]);
+            agreements.add(formatPricedRentalAgreement(toolInfo, priceRawRentalAgreement(toolInfo, dailyChargeCents,
+                    checkoutDate, checkoutDate.plusDays(rentalPeriod), rentalPeriod, chargedRentalDays, discountPercentage),
+                    formatter));
+        }
+        return agreements;
+    }
+
+    /**
+     * Remove every cached agreement, once the tools or holidays they were priced with are replaced
+     */
+    public void invalidateQuoteCache() {
+        QuoteCache cache = quoteCache;
+        if (cache != null) cache.invalidateAll();
+    }
+
+    /**
+     * Get the hit, miss and eviction counts of the quote cache
+     * @return the statistics, empty if the cache is disabled
+     */
+    public CacheStats getQuoteCacheStats() {
+        QuoteCache cache = quoteCache;
+        return cache == null ? CacheStats.empty() : cache.getStats();
+    }
+
+    /**
+     * Generate a rental agreement without formatting its dates and amounts.
+     * Use {@link #formatRentalAgreement(RawRentalAgreement)} to format it.
+     * @param toolInfo information about the tool
+     * @param checkoutDate checkout date as provided by user
+     * @param rentalPeriod amount of days for the rental
+     * @param discountPercentage discount percentage
+     * @throws ToolManagementException if any data is invalid or the charges are too large for cents in a long
+     * @return
+     */
+    public RawRentalAgreement calculateRawRentalAgreement(ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage
+    ) throws ToolManagementException {
+        return calculateRawRentalAgreement(toolInfo, checkoutDate, rentalPeriod, discountPercentage, null);
+    }
+
+    /**
+     * Generate a rental agreement without formatting its dates and amounts using the holidays of a holiday region
+     * @param toolInfo information about the tool
+     * @param checkoutDate checkout date as provided by user
+     * @param rentalPeriod amount of days for the rental
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @throws ToolManagementException if any data is invalid, the holiday region does not exist or the charges are too large for cents in a long
+     * @return
+     */
+    public RawRentalAgreement calculateRawRentalAgreement(ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException {
+        return calculateRawRentalAgreement(toolService.getSnapshot(),
+                toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion);
+    }
+
+    /**
+     * Generate a rental agreement without formatting its dates and amounts with the holidays of a pricing snapshot
+     * @param snapshot snapshot the tool was looked up in
+     * @param toolInfo information about the tool
+     * @param checkoutDate checkout date as provided by user
+     * @param rentalPeriod amount of days for the rental
+     * @param discountPercentage discount percentage
+     * @param holidayRegion name of the holiday region, null uses the configured holidays
+     * @throws ToolManagementException if any data is invalid, the holiday region does not exist or the charges are too large for cents in a long
+     * @return
+     */
+    public RawRentalAgreement calculateRawRentalAgreement(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException {
+        long start = pricingMetrics.start();
+        try {
+            RawRentalAgreement raw = calculateWholeCentsRawRentalAgreement(snapshot,
+                    toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion);
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.AGREEMENT, toolInfo.getToolType().getType(), start);
+            return raw;
+        } catch (ToolManagementException ex) {
+            pricingMetrics.recordFailure(PricingMetrics.Operation.AGREEMENT, ex.getErrorCode());
+            throw ex;
+        }
+    }
+
+    private RawRentalAgreement calculateWholeCentsRawRentalAgreement(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException {
+        RawRentalAgreement raw = priceRawRentalAgreement(snapshot,
+                toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion);
+        if (raw.getFinalChargeCents() == CentsCalculator.NOT_REPRESENTABLE) {
+            //Daily charges with fractions of a cent still give charges in whole cents
+            BigDecimal[] charges = priceWithBigDecimal(raw.getDailyChargeAmount(), raw.getChargeDays(), discountPercentage);
+            raw.setPreDiscountChargeCents(CentsCalculator.toCents(charges[0]));
+            raw.setDiscountAmountCents(CentsCalculator.toCents(charges[1]));
+            raw.setFinalChargeCents(CentsCalculator.toCents(charges[2]));
+            if (raw.getPreDiscountChargeCents() == CentsCalculator.NOT_REPRESENTABLE
+                    || raw.getDiscountAmountCents() == CentsCalculator.NOT_REPRESENTABLE
+                    || raw.getFinalChargeCents() == CentsCalculator.NOT_REPRESENTABLE) {
+                throw new ToolManagementException(ErrorCode.RENT0005);
+            }
+        }
+        return raw;
+    }
+
+    /**
+     * Format the dates and amounts of a raw rental agreement with the configured formats
+     * @param raw
+     * @return
+     */
+    public RentalAgreement formatRentalAgreement(RawRentalAgreement raw) {
+        return getFormatter().format(raw);
+    }
+
+    private RentalAgreement priceRentalAgreement(PricingSnapshot snapshot, ToolInformation toolInfo, LocalDate checkoutDate,
+                        int rentalPeriod, int discountPercentage, String holidayRegion, RentalFormatter formatter
+    ) throws ToolManagementException {
+        RawRentalAgreement raw = priceRawRentalAgreement(snapshot, toolInfo, checkoutDate, rentalPeriod, discountPercentage, holidayRegion);
+        return formatPricedRentalAgreement(toolInfo, raw, formatter);
+    }
+
+    private RentalAgreement formatPricedRentalAgreement(ToolInformation toolInfo, RawRentalAgreement raw,
+                        RentalFormatter formatter) {
+        if (raw.getFinalChargeCents() != CentsCalculator.NOT_REPRESENTABLE) return formatter.format(raw);
+
+        //Charges that are not whole cents in a long are formatted straight from BigDecimal
+        BigDecimal[] charges = priceWithBigDecimal(raw.getDailyChargeAmount(), raw.getChargeDays(), raw.getDiscountPercent());
+        RentalAgreement agreement = new RentalAgreement();
+        agreement.setToolCode(toolInfo.getToolCode());
+        agreement.setToolBrand(toolInfo.getToolBrand());
+        agreement.setToolType(toolInfo.getToolType().getType());
+        agreement.setFormattedCheckOutDate(formatter.formatDate(raw.getCheckOutEpochDay()));
+        agreement.setAmountOfRentalDays(raw.getAmountOfRentalDays());
+        agreement.setDiscountPercent(raw.getDiscountPercent());
+        agreement.setFormattedDueDate(formatter.formatDate(raw.getDueEpochDay()));
+        agreement.setChargeDays(raw.getChargeDays());
+        agreement.setFormattedDailyChargeAmount(formatter.formatCurrency(raw.getDailyChargeAmount()));
+        agreement.setFormattedPreDiscountCharge(formatter.formatCurrency(charges[0]));
+        agreement.setFormattedDiscountAmount(formatter.formatCurrency(charges[1]));
+        agreement.setFormattedFinalCharge(formatter.formatCurrency(charges[2]));
+
+        return agreement;
+    }
+
+    /**
+     * Count the charge days and calculate the charges in cents
+     * @return the agreement, with NOT_REPRESENTABLE charges if they are not whole cents in a long
+     */
+    private RawRentalAgreement priceRawRentalAgreement(PricingSnapshot snapshot, ToolInformation toolInfo,
+                        LocalDate checkoutDate, int rentalPeriod, int discountPercentage, String holidayRegion
+    ) throws ToolManagementException {
+        //Due date is checkout date plus rental period
+        LocalDate dueDate = checkoutDate.plusDays(rentalPeriod);
+        ToolType toolType = toolInfo.getToolType();
+        int chargedRentalDays = countChargeDays(snapshot.getCalendars(), toolType, checkoutDate, dueDate, holidayRegion);
+        return priceRawRentalAgreement(toolInfo, snapshot.getCatalog().getDailyChargeCents(toolType),
+                checkoutDate, dueDate, rentalPeriod, chargedRentalDays, discountPercentage);
+    }
+
+    /**
+     * Calculate the charges in cents for already counted charge days
+     * @param dailyChargeCents daily charge of the tool as converted to cents by its catalog
+     * @return the agreement, with NOT_REPRESENTABLE charges if they are not whole cents in a long
+     */
+    private static RawRentalAgreement priceRawRentalAgreement(ToolInformation toolInfo, long dailyChargeCents,
+                        LocalDate checkoutDate, LocalDate dueDate, int rentalPeriod, int chargedRentalDays,
+                        int discountPercentage) {
+        //Charges in whole cents are calculated with long arithmetic, anything else uses BigDecimal
+        BigDecimal dailyCharge = toolInfo.getToolType().getCharge();
+        long preDiscountCents = CentsCalculator.preDiscountCharge(dailyChargeCents, chargedRentalDays);
+        long discountCents = CentsCalculator.discountAmount(preDiscountCents, discountPercentage);
+        long finalCents = CentsCalculator.finalCharge(preDiscountCents, discountCents);
+
+        RawRentalAgreement raw = new RawRentalAgreement();
+        raw.setToolCode(toolInfo.getToolCode());
+        raw.setToolBrand(toolInfo.getToolBrand());
+        raw.setToolType(toolInfo.getToolType().getType());
+        raw.setCheckOutEpochDay(checkoutDate.toEpochDay());
+        raw.setAmountOfRentalDays(rentalPeriod);
+        raw.setDiscountPercent(discountPercentage);
+        raw.setDueEpochDay(dueDate.toEpochDay());
+        raw.setChargeDays(chargedRentalDays);
+        raw.setDailyChargeAmount(dailyCharge);
+        raw.setPreDiscountChargeCents(preDiscountCents);
+        raw.setDiscountAmountCents(discountCents);
+        raw.setFinalChargeCents(finalCents);
+        return raw;
+    }
+
+    private int countChargeDays(HolidayCalendars calendars, ToolType toolType, LocalDate checkoutDate,
+                        LocalDate dueDate, String holidayRegion) throws ToolManagementException {
+        long start = pricingMetrics.start();
+        try {
+            int chargeDays = dateUtil.getNumberOfChargeDaysBetweenTwoDates(calendars, holidayRegion, checkoutDate, dueDate,
+                    toolType.isWeekday(), toolType.isWeekend(), toolType.isHoliday());
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.CHARGE_DAYS, toolType.getType(), start);
+            return chargeDays;
+        } catch (ToolManagementException ex) {
+            pricingMetrics.recordFailure(PricingMetrics.Operation.CHARGE_DAYS, ex.getErrorCode());
+            throw ex;
+        }
+    }
+
+    /**
+     * Calculate the charge before discount, the discount amount and the final charge with BigDecimal
+     * @return the three charges in that order
+     */
+    private static BigDecimal[] priceWithBigDecimal(BigDecimal dailyCharge, int chargedRentalDays, int discountPercentage) {
+        BigDecimal preDiscountCharge = dailyCharge
                 .multiply(BigDecimal.valueOf(chargedRentalDays))
                 .setScale(2, RoundingMode.HALF_UP);
 
@@ -110,21 +619,35 @@ public class RentalService {
 
         BigDecimal finalCharge = preDiscountCharge.subtract(discountAmount)
                 .setScale(2, RoundingMode.HALF_UP);
+        return new BigDecimal[]{preDiscountCharge, discountAmount, finalCharge};
+    }
 
-        RentalAgreement agreement = new RentalAgreement();
-        agreement.setToolCode(toolInfo.getToolCode());
-        agreement.setToolBrand(toolInfo.getToolBrand());
-        agreement.setToolType(toolInfo.getToolType().getType());
-        agreement.setFormattedCheckOutDate(dateFormatter.format(checkoutDate));
-        agreement.setAmountOfRentalDays(rentalPeriod);
-        agreement.setDiscountPercent(discountPercentage);
-        agreement.setFormattedDueDate(dateFormatter.format(dueDate));
-        agreement.setChargeDays(chargedRentalDays);
-        agreement.setFormattedDailyChargeAmount(currencyFormatter.format(toolInfo.getToolType().getCharge()));
-        agreement.setFormattedPreDiscountCharge(currencyFormatter.format(preDiscountCharge));
-        agreement.setFormattedDiscountAmount(currencyFormatter.format(discountAmount));
-        agreement.setFormattedFinalCharge(currencyFormatter.format(finalCharge));
+    /**
+     * Get the quote cache for the configured limits.
+     * It is created on first use and recreated if the limits change.
+     * @return the cache, or null if no maximum size is configured
+     */
+    protected QuoteCache getQuoteCache() {
+        if (quoteCacheMaximumSize <= 0) return null;
+        QuoteCache current = quoteCache;
+        if (current == null || !current.isBuiltFrom(quoteCacheMaximumSize, quoteCacheExpireAfterWriteSeconds)) {
+            current = new QuoteCache(quoteCacheMaximumSize, quoteCacheExpireAfterWriteSeconds);
+            quoteCache = current;
+        }
+        return current;
+    }
 
-        return agreement;
+    /**
+     * Get the formatter for the configured date and currency formats.
+     * It is compiled on first use and recompiled if the formats change.
+     * @return
+     */
+    protected RentalFormatter getFormatter() {
+        RentalFormatter current = formatter;
+        if (current == null || !current.isBuiltFrom(dateFormat, currencyFormat)) {
+            current = new RentalFormatter(dateFormat, currencyFormat);
+            formatter = current;
+        }
+        return current;
     }
-}
\ No newline at end of file
+}
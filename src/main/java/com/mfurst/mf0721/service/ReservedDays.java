@@ -0,0 +1,122 @@
+package com.mfurst.mf0721.service;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of the reserved days of one tool.
+ *
+ * The days are stored as a bitset compressed into runs: each reservation is a run of
+ * epoch days from its first day up to but not including its end day, kept in two arrays
+ * sorted by day. A reservation of any length takes two numbers, and since runs never
+ * overlap their end days are sorted too, so checking a period is a binary search for the
+ * first run that ends after it starts. Reserving or releasing days creates a new set, so
+ * a set can be read from any thread while another one replaces it.
+ */
+public final class ReservedDays {
+    public static final ReservedDays NONE = new ReservedDays(new long[0], new long[0]);
+
+    private final long[] firstDays;
+    private final long[] endDays;
+
+    private ReservedDays(long[] firstDays, long[] endDays) {
+        this.firstDays = firstDays;
+        this.endDays = endDays;
+    }
+
+    /**
+     * Check if none of the days from the first day up to but not including the end day are reserved
+     * @param firstDay
+     * @param endDay
+     * @return
+     */
+    public boolean isFree(long firstDay, long endDay) {
+        int run = firstRunEndingAfter(firstDay);
+        return run == firstDays.length || firstDays[run] >= endDay;
+    }
+
+    /**
+     * Reserve the days from the first day up to but not including the end day
+     * @param firstDay
+     * @param endDay
+     * @throws IllegalArgumentException if there are no days, or any of them are already reserved
+     * @return the reserved days including the new ones
+     */
+    public ReservedDays reserve(long firstDay, long endDay) {
+        if (endDay <= firstDay) throw new IllegalArgumentException("At least one day must be reserved");
+        int run = firstRunEndingAfter(firstDay);
+        if (run < firstDays.length && firstDays[run] < endDay) throw new IllegalArgumentException("Days are already reserved");
+        return new ReservedDays(insert(firstDays, run, firstDay), insert(endDays, run, endDay));
+    }
+
+    /**
+     * Release a reservation of exactly the days from the first day up to but not including the end day
+     * @param firstDay
+     * @param endDay
+     * @return the reserved days without the released ones, or these days if there was no such reservation
+     */
+    public ReservedDays release(long firstDay, long endDay) {
+        int run = Arrays.binarySearch(firstDays, firstDay);
+        if (run < 0 || endDays[run] != endDay) return this;
+        return new ReservedDays(remove(firstDays, run), remove(endDays, run));
+    }
+
+    /**
+     * Amount of reservations
+     * @return
+     */
+    public int size() {
+        return firstDays.length;
+    }
+
+    /**
+     * Get the first day of a reservation
+     * @param run position of the reservation in order of their days
+     * @return
+     */
+    public long getFirstDay(int run) {
+        return firstDays[run];
+    }
+
+    /**
+     * Get the day after the last day of a reservation
+     * @param run position of the reservation in order of their days
+     * @return
+     */
+    public long getEndDay(int run) {
+        return endDays[run];
+    }
+
+    /**
+     * Find the position of the first reservation that is still running on or after a day
+     * @param day
+     * @return the position, or the amount of reservations if all of them end before the day
+     */
+    public int firstRunEndingAfter(long day) {
+        int low = 0;
+        int high = endDays.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (endDays[middle] > day) {
+                high = middle;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return low;
+    }
+
+    private static long[] insert(long[] days, int position, long day) {
+        long[] inserted = new long[days.length + 1];
+        System.arraycopy(days, 0, inserted, 0, position);
+        inserted[position] = day;
+        System.arraycopy(days, position, inserted, position + 1, days.length - position);
+        return inserted;
+    }
+
+    private static long[] remove(long[] days, int position) {
+        long[] removed = new long[days.length - 1];
+        System.arraycopy(days, 0, removed, 0, position);
+        System.arraycopy(days, position + 1, removed, position, removed.length - position);
+        return removed;
+    }
+}
@@ -0,0 +1,41 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.ToolType;
+
+import java.util.List;
+
+/**
+ * Read-only catalog of tools that can be found by their code, ignoring case
+ */
+public interface ToolCatalog {
+    /**
+     * Find the tool information for a tool code, ignoring case
+     * @param toolCode code to search for
+     * @throws ToolManagementException when tool code has no matches
+     * @throws ToolManagementException when the matching tool has no valid type
+     * @return
+     */
+    ToolInformation find(String toolCode) throws ToolManagementException;
+
+    /**
+     * Find every tool of a tool type, ignoring case
+     * @param type
+     * @return tools in catalog order, empty if there are no tools of the type
+     */
+    List<ToolInformation> findAllOfType(String type);
+
+    /**
+     * Get the daily charge of a tool type in whole cents, converted once for the tool types of the catalog
+     * @param toolType
+     * @return the charge in cents, or NOT_REPRESENTABLE if there is no type or it has fractions of a cent
+     */
+    long getDailyChargeCents(ToolType toolType);
+
+    /**
+     * Amount of unique tool codes in the catalog
+     * @return
+     */
+    int size();
+}
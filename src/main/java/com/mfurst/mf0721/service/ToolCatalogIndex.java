@@ -0,0 +1,167 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable, case-insensitive index of tool codes to their tool information.
+ *
+ * Every tool is joined with its tool type once when the index is built, so a
+ * lookup is a single hash probe and returns the same shared ToolInformation
+ * every time. The shared ToolInformation must not be modified by callers.
+ * The daily charge of each tool type is also converted to cents only once,
+ * instead of every time one of its tools is priced.
+ *
+ * The index is an open addressing hash table that hashes and compares codes
+ * ignoring case, so lookups do not need to create an upper or lower case copy
+ * of the requested code. Tools are also grouped by their tool type, so the tools of
+ * a type can be listed without going through the whole catalog.
+ */
+public class ToolCatalogIndex implements ToolCatalog {
+    private final List<Tool> tools;
+    private final List<ToolType> toolTypes;
+    private final String[] codes;
+    private final ToolInformation[] toolInformation;
+    private final int mask;
+    private final int size;
+    private final Map<String, List<ToolInformation>> toolsByType = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+    private final DailyChargeCents dailyChargeCents = new DailyChargeCents();
+
+    /**
+     * Build an index of the provided tools. When several tools share a code, or several
+     * tool types share a type, the first one is used. Tools without a matching tool type
+     * are indexed without a type so that looking them up reports the missing type.
+     * @param tools
+     * @param toolTypes
+     */
+    public ToolCatalogIndex(List<Tool> tools, List<ToolType> toolTypes) {
+        this.tools = tools;
+        this.toolTypes = toolTypes;
+        List<Tool> indexedTools = tools == null ? List.of() : tools;
+        List<ToolType> indexedToolTypes = toolTypes == null ? List.of() : toolTypes;
+
+        int capacity = Integer.highestOneBit(Math.max(4, indexedTools.size() * 2 - 1)) << 1;
+        this.codes = new String[capacity];
+        this.toolInformation = new ToolInformation[capacity];
+        this.mask = capacity - 1;
+
+        ToolTypeIndex typeIndex = new ToolTypeIndex(indexedToolTypes);
+        int indexedCount = 0;
+        for (Tool tool : indexedTools) {
+            int slot = findSlot(tool.getCode());
+            if (codes[slot] != null) continue;
+            codes[slot] = tool.getCode();
+            ToolType toolType = typeIndex.find(tool.getType());
+            toolInformation[slot] = new ToolInformation(tool.getCode(), tool.getBrand(), toolType);
+            if (toolType != null) {
+                toolsByType.computeIfAbsent(toolType.getType(), type -> new ArrayList<>()).add(toolInformation[slot]);
+                dailyChargeCents.add(toolType);
+            }
+            indexedCount++;
+        }
+        this.size = indexedCount;
+        toolsByType.replaceAll((type, typeTools) -> List.copyOf(typeTools));
+    }
+
+    /**
+     * Check if this index was built from the provided tool and tool type lists
+     * @param tools
+     * @param toolTypes
+     * @return
+     */
+    public boolean isBuiltFrom(List<Tool> tools, List<ToolType> toolTypes) {
+        return this.tools == tools && this.toolTypes == toolTypes;
+    }
+
+    @Override
+    public ToolInformation find(String toolCode) throws ToolManagementException {
+        ToolInformation information = toolInformation[findSlot(toolCode)];
+        if (information == null) throw new ToolManagementException(ErrorCode.TOOL0002, toolCode);
+        if (information.getToolType() == null) throw new ToolManagementException(ErrorCode.TOOL0003, toolCode);
+        return information;
+    }
+
+    @Override
+    public List<ToolInformation> findAllOfType(String type) {
+        return type == null ? List.of() : toolsByType.getOrDefault(type, List.of());
+    }
+
+    @Override
+    public long getDailyChargeCents(ToolType toolType) {
+        return dailyChargeCents.get(toolType);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int findSlot(String code) {
+        int slot = hashIgnoreCase(code) & mask;
+        while (codes[slot] != null && !codes[slot].equalsIgnoreCase(code)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Hash a string so that strings that are equal ignoring case have the same hash
+     * @param value
+     * @return
+     */
+    static int hashIgnoreCase(String value) {
+        int hash = 0;
+        for (int i = 0; i < value.length(); i++) {
+            hash = 31 * hash + Character.toLowerCase(Character.toUpperCase(value.charAt(i)));
+        }
+        //Spread the high bits down since only the low bits pick the slot
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Case-insensitive index of tool types, only used while building the tool index
+     */
+    private static final class ToolTypeIndex {
+        private final String[] types;
+        private final ToolType[] toolTypes;
+        private final int mask;
+
+        private ToolTypeIndex(List<ToolType> toolTypeList) {
+            int capacity = Integer.highestOneBit(Math.max(4, toolTypeList.size() * 2 - 1)) << 1;
+            this.types = new String[capacity];
+            this.toolTypes = new ToolType[capacity];
+            this.mask = capacity - 1;
+            for (ToolType toolType : toolTypeList) {
+                int slot = findSlot(toolType.getType());
+                if (types[slot] != null) continue;
+                types[slot] = toolType.getType();
+                toolTypes[slot] = toolType;
+            }
+        }
+
+        /**
+         * Find a tool type
+         * @param type
+         * @return the tool type, or null if there is no such tool type
+         */
+        private ToolType find(String type) {
+            return type == null ? null : toolTypes[findSlot(type)];
+        }
+
+        private int findSlot(String type) {
+            int slot = hashIgnoreCase(type) & mask;
+            while (types[slot] != null && !types[slot].equalsIgnoreCase(type)) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+    }
+}
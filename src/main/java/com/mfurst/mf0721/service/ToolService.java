@@ -3,46 +3,264 @@ package com.mfurst.mf0721.service;
 import com.mfurst.mf0721.exception.ErrorCode;
 import com.mfurst.mf0721.exception.ToolManagementException;
 import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Holiday;
 import com.mfurst.mf0721.model.dto.Tool;
 import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.DateUtil;
+import com.mfurst.mf0721.util.HolidayCalendars;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 
 /**
- * This service is used for finding tools and tool types
+ * This service is used for finding tools and tool types, and for the
+ * snapshot of the catalog and holidays that quotes are priced with
  */
 @Service
 public class ToolService {
+    private static final Logger log = LoggerFactory.getLogger(ToolService.class);
+
+    @Autowired
+    private volatile List<Tool> tools;
+
+    @Autowired
+    private volatile List<ToolType> toolTypes;
+
     @Autowired
-    private List<Tool> tools;
+    private PricingMetrics pricingMetrics;
 
     @Autowired
-    private List<ToolType> toolTypes;
+    private DateUtil dateUtil;
+
+    //Lazy because the rental service also finds its tools here
+    @Lazy
+    @Autowired
+    private RentalService rentalService;
+
+    /**
+     * Binary catalog file to find tools in instead of the configured tools and tool types
+     */
+    @Value("${application.catalog.file:}")
+    private String catalogFile;
+
+    private volatile ToolCatalogIndex catalogIndex;
+
+    private volatile MappedToolCatalog mappedCatalog;
+
+    private volatile PricingSnapshot snapshot;
+
+    /**
+     * Build the tool code index from the current tools and tool types,
+     * or open the catalog file if one is configured.
+     * Lookups keep using the previous catalog until the new one is complete.
+     * @throws ToolManagementException if the catalog file cannot be read
+     */
+    @PostConstruct
+    public void reloadCatalog() throws ToolManagementException {
+        if (catalogFile != null && !catalogFile.isBlank()) {
+            reloadCatalog(Path.of(catalogFile));
+            return;
+        }
+        ToolCatalogIndex index = new ToolCatalogIndex(tools, toolTypes);
+        synchronized (this) {
+            catalogIndex = index;
+        }
+    }
+
+    /**
+     * Find tools in the provided catalog file instead of the tools and tool types.
+     * The file is memory-mapped, so only the tools that are looked up are read.
+     * @param path
+     * @throws ToolManagementException if the file cannot be read, the previous catalog is kept
+     */
+    public void reloadCatalog(Path path) throws ToolManagementException {
+        MappedToolCatalog catalog = MappedToolCatalog.open(path);
+        mappedCatalog = catalog;
+        log.info("Opened tool catalog {} with {} tools", path, catalog.size());
+    }
+
+    /**
+     * Replace the tools and tool types with copies of the provided lists.
+     * The new index is built before it is published, lookups keep using the
+     * previous catalog until then and never see a mix of the two.
+     * @param tools
+     * @param toolTypes
+     */
+    public void reloadCatalog(List<Tool> tools, List<ToolType> toolTypes) {
+        List<Tool> newTools = List.copyOf(tools);
+        List<ToolType> newToolTypes = List.copyOf(toolTypes);
+        ToolCatalogIndex index = new ToolCatalogIndex(newTools, newToolTypes);
+        synchronized (this) {
+            //The index is written last so a lookup that sees it also sees the lists it was built from
+            this.tools = newTools;
+            this.toolTypes = newToolTypes;
+            catalogIndex = index;
+            mappedCatalog = null;
+        }
+    }
+
+    /**
+     * Replace the tools, tool types, holidays and holiday regions with copies of the provided ones.
+     * The catalog index and every holiday calendar are built and validated first, and are then
+     * published together as one snapshot, so no quote is priced with a mix of the old and new ones.
+     * Cached agreements are removed once the new snapshot is published.
+     * @param tools
+     * @param toolTypes
+     * @param holidays
+     * @param holidayRegions holidays of each region by region name
+     * @throws ToolManagementException if any of the holidays is not valid, the previous configuration is kept
+     */
+    public void reloadConfiguration(List<Tool> tools, List<ToolType> toolTypes,
+                                    List<Holiday> holidays, Map<String, List<Holiday>> holidayRegions)
+            throws ToolManagementException {
+        HolidayCalendars calendars = dateUtil.buildHolidayCalendars(holidays, holidayRegions);
+        List<Tool> newTools = List.copyOf(tools);
+        List<ToolType> newToolTypes = List.copyOf(toolTypes);
+        ToolCatalogIndex index = new ToolCatalogIndex(newTools, newToolTypes);
+        PricingSnapshot newSnapshot = new PricingSnapshot(index, calendars);
+        synchronized (this) {
+            dateUtil.publishHolidayCalendars(calendars);
+            this.tools = newTools;
+            this.toolTypes = newToolTypes;
+            catalogIndex = index;
+            mappedCatalog = null;
+            //Quotes read the snapshot once, so they see either all of the old configuration or all of the new one
+            snapshot = newSnapshot;
+        }
+        //Agreements priced with the previous configuration are dropped once here instead of one lookup at a time
+        rentalService.invalidateQuoteCache();
+    }
+
+    /**
+     * Get the catalog and holiday calendars to price with. A quote reads this once and uses it
+     * throughout, so a reload in the middle of the quote does not change its holidays.
+     * The snapshot is rebuilt if the catalog or the holidays have been replaced on their own.
+     * @throws ToolManagementException if any configured holiday is not valid
+     * @return
+     */
+    public PricingSnapshot getSnapshot() throws ToolManagementException {
+        PricingSnapshot current = snapshot;
+        if (current != null && current.isBuiltFrom(getCatalog(), dateUtil.getHolidayCalendars())) return current;
+        //Only rebuild while no reload is publishing, so the catalog and calendars are read as a pair
+        synchronized (this) {
+            current = snapshot;
+            ToolCatalog catalog = getCatalog();
+            HolidayCalendars calendars = dateUtil.getHolidayCalendars();
+            if (current == null || !current.isBuiltFrom(catalog, calendars)) {
+                current = new PricingSnapshot(catalog, calendars);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
 
     /**
-     * Search through the tools and find the matching tool for the
-     * provided tool code
+     * Write the current tools and tool types to a catalog file
+     * @param path
+     * @throws IOException if the file cannot be written
+     */
+    public void exportCatalog(Path path) throws IOException {
+        MappedToolCatalog.write(path, tools, toolTypes);
+    }
+
+    /**
+     * Find the matching tool for the provided tool code, ignoring case.
+     * The returned tool information is shared between callers and must not be modified.
      * @param toolCode code to search for
      * @throws ToolManagementException when tool code is invalid
      * @throws ToolManagementException when tool code has no matches
      * @return
      */
     public ToolInformation getToolByCode(String toolCode) throws ToolManagementException{
-        if (toolCode == null || toolCode.isBlank()) {
-            throw new ToolManagementException(ErrorCode.TOOL0001);
+        return findTool(getCatalog(), toolCode);
+    }
+
+    /**
+     * Find the matching tool for the provided tool code in the catalog of a pricing snapshot, ignoring case.
+     * Quotes look the tool up this way, so it is priced with the holidays that were loaded with it.
+     * @param snapshot
+     * @param toolCode code to search for
+     * @throws ToolManagementException when tool code is invalid
+     * @throws ToolManagementException when tool code has no matches
+     * @return
+     */
+    public ToolInformation getToolByCode(PricingSnapshot snapshot, String toolCode) throws ToolManagementException {
+        return findTool(snapshot.getCatalog(), toolCode);
+    }
+
+    /**
+     * Find every tool of a tool type, ignoring case.
+     * The returned tool information is shared between callers and must not be modified.
+     * @param toolType type to search for
+     * @return tools in catalog order, empty if there are no tools of the type
+     */
+    public List<ToolInformation> getToolsByType(String toolType) {
+        return findToolsOfType(getCatalog(), toolType);
+    }
+
+    /**
+     * Find every tool of a tool type in the catalog of a pricing snapshot, ignoring case
+     * @param snapshot
+     * @param toolType type to search for
+     * @return tools in catalog order, empty if there are no tools of the type
+     */
+    public List<ToolInformation> getToolsByType(PricingSnapshot snapshot, String toolType) {
+        return findToolsOfType(snapshot.getCatalog(), toolType);
+    }
+
+    private ToolInformation findTool(ToolCatalog catalog, String toolCode) throws ToolManagementException {
+        long start = pricingMetrics.start();
+        try {
+            if (toolCode == null || toolCode.isBlank()) {
+                throw ToolManagementException.of(ErrorCode.TOOL0001);
+            }
+            ToolInformation toolInformation = catalog.find(toolCode);
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.TOOL_LOOKUP, toolInformation.getToolType().getType(), start);
+            return toolInformation;
+        } catch (ToolManagementException ex) {
+            pricingMetrics.recordFailure(PricingMetrics.Operation.TOOL_LOOKUP, ex.getErrorCode());
+            throw ex;
         }
-        Tool tool = tools.stream()
-                .filter(t -> t.getCode().equalsIgnoreCase(toolCode))
-                .findFirst()
-                .orElseThrow(() -> new ToolManagementException(ErrorCode.TOOL0002, toolCode));
+    }
+
+    private static List<ToolInformation> findToolsOfType(ToolCatalog catalog, String toolType) {
+        if (toolType == null || toolType.isBlank()) return List.of();
+        return catalog.findAllOfType(toolType);
+    }
 
-        ToolType type = toolTypes.stream()
-                .filter(t -> t.getType().equalsIgnoreCase(tool.getType()))
-                .findFirst()
-                .orElseThrow(() -> new ToolManagementException(ErrorCode.TOOL0003, toolCode));
+    /**
+     * Get the catalog file if one is open, otherwise the index of the tools and tool types
+     * @return
+     */
+    private ToolCatalog getCatalog() {
+        ToolCatalog catalog = mappedCatalog;
+        return catalog != null ? catalog : getCatalogIndex();
+    }
 
-        return new ToolInformation(tool.getCode(), tool.getBrand(), type);
+    /**
+     * Get the tool code index, rebuilding it if the tools or tool types have been replaced
+     * @return
+     */
+    private ToolCatalogIndex getCatalogIndex() {
+        ToolCatalogIndex index = catalogIndex;
+        if (index != null && index.isBuiltFrom(tools, toolTypes)) return index;
+        //Only rebuild while no reload is publishing, so the lists are read as a pair
+        synchronized (this) {
+            index = catalogIndex;
+            if (index == null || !index.isBuiltFrom(tools, toolTypes)) {
+                index = new ToolCatalogIndex(tools, toolTypes);
+                catalogIndex = index;
+            }
+            return index;
+        }
     }
 }
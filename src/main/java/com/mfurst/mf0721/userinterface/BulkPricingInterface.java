@@ -0,0 +1,254 @@
+package com.mfurst.mf0721.userinterface;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.RentalRequest;
+import com.mfurst.mf0721.model.RentalResult;
+import com.mfurst.mf0721.service.BatchRentalService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This is a non-interactive interface for pricing many rentals at once.
+ *
+ * Rental requests are read one per line as CSV or newline delimited JSON, and
+ * one priced agreement or error is written per request in the same order and
+ * format. Requests are read and priced a chunk at a time, so memory use does
+ * not depend on the size of the input.
+ */
+@Component
+public class BulkPricingInterface {
+    protected static final String CSV_INPUT_HEADER = "toolCode,checkoutDate,rentalPeriod,discountPercentage";
+    protected static final String CSV_OUTPUT_HEADER = "line,toolCode,toolType,toolBrand,amountOfRentalDays,checkOutDate,dueDate," +
+            "dailyChargeAmount,chargeDays,preDiscountCharge,discountPercent,discountAmount,finalCharge,errorCode,errorMessage";
+
+    /**
+     * Supported line formats for bulk pricing
+     */
+    public enum Format {
+        CSV,
+        NDJSON
+    }
+
+    @Autowired
+    private BatchRentalService batchRentalService;
+
+    /**
+     * Amount of requests read and priced together
+     */
+    @Value("${application.bulk.chunk-size:1024}")
+    private int chunkSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Price every rental request from the input and write the results to the output
+     * @param input reader for the rental requests
+     * @param output writer for the priced agreements
+     * @param format format of both the input and the output
+     * @return amount of requests that could not be priced
+     * @throws IOException if the input cannot be read or the output cannot be written
+     */
+    public long run(BufferedReader input, Writer output, Format format) throws IOException {
+        int maxChunkSize = Math.max(1, chunkSize);
+        List<RentalRequest> requests = new ArrayList<>(maxChunkSize);
+        List<ToolManagementException> readErrors = new ArrayList<>(maxChunkSize);
+        long[] lineNumbers = new long[maxChunkSize];
+        long lineNumber = 0;
+        long failures = 0;
+
+        if (format == Format.CSV) output.write(CSV_OUTPUT_HEADER + "\n");
+
+        String line;
+        while ((line = input.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && line.equalsIgnoreCase(CSV_INPUT_HEADER))) {
+                continue;
+            }
+            lineNumbers[requests.size()] = lineNumber;
+            try {
+                requests.add(format == Format.CSV ? parseCsvRequest(line) : parseJsonRequest(line));
+                readErrors.add(null);
+            } catch (ToolManagementException ex) {
+                requests.add(null);
+                readErrors.add(ex);
+            }
+            if (requests.size() >= maxChunkSize) {
+                failures += priceChunk(requests, readErrors, lineNumbers, output, format);
+            }
+        }
+        failures += priceChunk(requests, readErrors, lineNumbers, output, format);
+        output.flush();
+        return failures;
+    }
+
+    /**
+     * Price the requests that were read and write their results. Requests that could not
+     * be read are written with their read error. The chunk is cleared afterwards.
+     * @return amount of requests in the chunk that could not be priced
+     */
+    private long priceChunk(List<RentalRequest> requests, List<ToolManagementException> readErrors,
+                            long[] lineNumbers, Writer output, Format format) throws IOException {
+        List<RentalRequest> readRequests = new ArrayList<>(requests.size());
+        for (RentalRequest request : requests) {
+            if (request != null) readRequests.add(request);
+        }
+        List<RentalResult> pricedResults = batchRentalService.quoteAll(readRequests);
+
+        long failures = 0;
+        int nextPricedResult = 0;
+        for (int i = 0; i < requests.size(); i++) {
+            RentalResult result = requests.get(i) == null
+                    ? RentalResult.failure(readErrors.get(i))
+                    : pricedResults.get(nextPricedResult++);
+            if (!result.isSuccessful()) failures++;
+            writeResult(lineNumbers[i], result, output, format);
+        }
+        requests.clear();
+        readErrors.clear();
+        return failures;
+    }
+
+    private void writeResult(long lineNumber, RentalResult result, Writer output, Format format) throws IOException {
+        if (format == Format.CSV) {
+            output.write(toCsvLine(lineNumber, result));
+        } else {
+            output.write(toJsonLine(lineNumber, result));
+        }
+        output.write('\n');
+    }
+
+    /**
+     * Read a rental request from a CSV line of tool code, checkout date, rental period, discount percentage
+     * and an optional holiday region
+     * @param line
+     * @throws ToolManagementException if the line does not have the expected fields
+     * @return
+     */
+    protected RentalRequest parseCsvRequest(String line) throws ToolManagementException {
+        List<String> fields = splitCsvLine(line);
+        if (fields.size() != 4 && fields.size() != 5) throw new ToolManagementException(ErrorCode.BULK0001, line);
+        String holidayRegion = fields.size() == 5 ? fields.get(4).trim() : "";
+        try {
+            return new RentalRequest(
+                    fields.get(0).trim(),
+                    fields.get(1).trim(),
+                    Integer.parseInt(fields.get(2).trim()),
+                    Integer.parseInt(fields.get(3).trim()),
+                    holidayRegion.isEmpty() ? null : holidayRegion
+            );
+        } catch (NumberFormatException ex) {
+            throw new ToolManagementException(ErrorCode.BULK0001, line);
+        }
+    }
+
+    /**
+     * Read a rental request from a JSON object with the same field names as {@link RentalRequest}
+     * @param line
+     * @throws ToolManagementException if the line is not a valid rental request object
+     * @return
+     */
+    protected RentalRequest parseJsonRequest(String line) throws ToolManagementException {
+        try {
+            RentalRequest request = objectMapper.readValue(line, RentalRequest.class);
+            if (request == null) throw new ToolManagementException(ErrorCode.BULK0001, line);
+            return request;
+        } catch (JsonProcessingException ex) {
+            throw new ToolManagementException(ErrorCode.BULK0001, line);
+        }
+    }
+
+    private String toCsvLine(long lineNumber, RentalResult result) {
+        StringBuilder builder = new StringBuilder(160);
+        builder.append(lineNumber);
+        RentalAgreement agreement = result.getAgreement();
+        if (agreement != null) {
+            appendCsvField(builder, agreement.getToolCode());
+            appendCsvField(builder, agreement.getToolType());
+            appendCsvField(builder, agreement.getToolBrand());
+            builder.append(',').append(agreement.getAmountOfRentalDays());
+            appendCsvField(builder, agreement.getFormattedCheckOutDate());
+            appendCsvField(builder, agreement.getFormattedDueDate());
+            appendCsvField(builder, agreement.getFormattedDailyChargeAmount());
+            builder.append(',').append(agreement.getChargeDays());
+            appendCsvField(builder, agreement.getFormattedPreDiscountCharge());
+            builder.append(',').append(agreement.getDiscountPercent());
+            appendCsvField(builder, agreement.getFormattedDiscountAmount());
+            appendCsvField(builder, agreement.getFormattedFinalCharge());
+            builder.append(",,");
+        } else {
+            builder.append(",,,,,,,,,,,,");
+            appendCsvField(builder, result.getError().getErrorCode().name());
+            appendCsvField(builder, result.getError().getMessage());
+        }
+        return builder.toString();
+    }
+
+    private String toJsonLine(long lineNumber, RentalResult result) throws JsonProcessingException {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("line", lineNumber);
+        if (result.getAgreement() != null) {
+            node.set("agreement", objectMapper.valueToTree(result.getAgreement()));
+        } else {
+            ObjectNode error = node.putObject("error");
+            error.put("code", result.getError().getErrorCode().name());
+            error.put("message", result.getError().getMessage());
+        }
+        return objectMapper.writeValueAsString(node);
+    }
+
+    /**
+     * Split a CSV line into its fields. Fields may be wrapped in double quotes,
+     * in which case they can contain commas and doubled double quotes.
+     * @param line
+     * @return
+     */
+    protected static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>(4);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void appendCsvField(StringBuilder builder, String value) {
+        builder.append(',');
+        if (value == null) return;
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            builder.append(value);
+            return;
+        }
+        builder.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
@@ -0,0 +1,230 @@
+package com.mfurst.mf0721.userinterface;
+
+import com.mfurst.mf0721.model.RentalAgreement;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Receipt layout compiled once from a format string, then rendered straight into
+ * a StringBuilder or Writer without parsing the format or building the arguments
+ * again for every agreement.
+ *
+ * Format strings use the same syntax as {@link String#format(String, Object...)}
+ * limited to %s, %d, %% and %n, with the agreement fields to show passed in the
+ * order of their specifiers. Rendering gives exactly the same text as String.format
+ * with the same format and fields, including digits of the default format locale.
+ */
+public final class ReceiptTemplate {
+    /**
+     * Agreement fields that can be shown on a receipt
+     */
+    public enum Field {
+        TOOL_CODE, TOOL_TYPE, TOOL_BRAND, AMOUNT_OF_RENTAL_DAYS, CHECK_OUT_DATE, DUE_DATE,
+        DAILY_CHARGE_AMOUNT, CHARGE_DAYS, PRE_DISCOUNT_CHARGE, DISCOUNT_PERCENT, DISCOUNT_AMOUNT, FINAL_CHARGE;
+
+        private boolean isNumber() {
+            return this == AMOUNT_OF_RENTAL_DAYS || this == CHARGE_DAYS || this == DISCOUNT_PERCENT;
+        }
+    }
+
+    private final String[] literals;
+    private final Field[] fields;
+    private final boolean[] decimal;
+    private volatile LocalizedDigits digits;
+
+    private ReceiptTemplate(String[] literals, Field[] fields, boolean[] decimal) {
+        this.literals = literals;
+        this.fields = fields;
+        this.decimal = decimal;
+    }
+
+    /**
+     * Compile a receipt layout
+     * @param format format string with %s, %d, %% and %n specifiers
+     * @param fields agreement field shown by each %s and %d, in order
+     * @throws IllegalArgumentException if the format has other specifiers, the amount of
+     * fields does not match the amount of specifiers, or %d is used for a text field
+     * @return
+     */
+    public static ReceiptTemplate compile(String format, Field... fields) {
+        List<String> literals = new ArrayList<>();
+        List<Boolean> decimal = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        for (int i = 0; i < format.length(); i++) {
+            char c = format.charAt(i);
+            if (c != '%') {
+                literal.append(c);
+                continue;
+            }
+            if (++i == format.length()) throw new IllegalArgumentException("Format ends with %");
+            char conversion = format.charAt(i);
+            if (conversion == '%') {
+                literal.append('%');
+            } else if (conversion == 'n') {
+                literal.append(System.lineSeparator());
+            } else if (conversion == 's' || conversion == 'd') {
+                literals.add(literal.toString());
+                literal.setLength(0);
+                decimal.add(conversion == 'd');
+            } else {
+                throw new IllegalArgumentException("Unsupported format specifier %" + conversion);
+            }
+        }
+        literals.add(literal.toString());
+
+        if (decimal.size() != fields.length) {
+            throw new IllegalArgumentException(String.format("Format has %d fields but %d were provided",
+                    decimal.size(), fields.length));
+        }
+        boolean[] decimalArray = new boolean[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            decimalArray[i] = decimal.get(i);
+            if (decimalArray[i] && !fields[i].isNumber()) {
+                throw new IllegalArgumentException("%d cannot be used for " + fields[i]);
+            }
+        }
+        return new ReceiptTemplate(literals.toArray(new String[0]), fields.clone(), decimalArray);
+    }
+
+    /**
+     * Render an agreement at the end of a builder
+     * @param agreement
+     * @param builder
+     */
+    public void render(RentalAgreement agreement, StringBuilder builder) {
+        try {
+            render(agreement, (Appendable) builder);
+        } catch (IOException ex) {
+            //StringBuilder does not throw
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Render an agreement to a writer
+     * @param agreement
+     * @param writer
+     * @throws IOException if the writer fails
+     */
+    public void render(RentalAgreement agreement, Writer writer) throws IOException {
+        render(agreement, (Appendable) writer);
+    }
+
+    /**
+     * Render an agreement to a new string
+     * @param agreement
+     * @return
+     */
+    public String render(RentalAgreement agreement) {
+        StringBuilder builder = new StringBuilder(512);
+        render(agreement, builder);
+        return builder.toString();
+    }
+
+    private void render(RentalAgreement agreement, Appendable output) throws IOException {
+        LocalizedDigits localizedDigits = getDigits();
+        for (int i = 0; i < fields.length; i++) {
+            output.append(literals[i]);
+            Field field = fields[i];
+            if (field.isNumber()) {
+                int value = getNumber(agreement, field);
+                if (decimal[i]) {
+                    localizedDigits.append(value, output);
+                } else {
+                    //%s of a number does not localize digits
+                    appendInt(value, output);
+                }
+            } else {
+                output.append(String.valueOf(getText(agreement, field)));
+            }
+        }
+        output.append(literals[fields.length]);
+    }
+
+    private static int getNumber(RentalAgreement agreement, Field field) {
+        switch (field) {
+            case AMOUNT_OF_RENTAL_DAYS:
+                return agreement.getAmountOfRentalDays();
+            case CHARGE_DAYS:
+                return agreement.getChargeDays();
+            default:
+                return agreement.getDiscountPercent();
+        }
+    }
+
+    private static String getText(RentalAgreement agreement, Field field) {
+        switch (field) {
+            case TOOL_CODE:
+                return agreement.getToolCode();
+            case TOOL_TYPE:
+                return agreement.getToolType();
+            case TOOL_BRAND:
+                return agreement.getToolBrand();
+            case CHECK_OUT_DATE:
+                return agreement.getFormattedCheckOutDate();
+            case DUE_DATE:
+                return agreement.getFormattedDueDate();
+            case DAILY_CHARGE_AMOUNT:
+                return agreement.getFormattedDailyChargeAmount();
+            case PRE_DISCOUNT_CHARGE:
+                return agreement.getFormattedPreDiscountCharge();
+            case DISCOUNT_AMOUNT:
+                return agreement.getFormattedDiscountAmount();
+            default:
+                return agreement.getFormattedFinalCharge();
+        }
+    }
+
+    /**
+     * Get the digits of the default format locale, which String.format uses for %d.
+     * They are looked up again only when the default locale changes.
+     */
+    private LocalizedDigits getDigits() {
+        Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+        LocalizedDigits current = digits;
+        if (current == null || current.locale != locale) {
+            current = new LocalizedDigits(locale);
+            digits = current;
+        }
+        return current;
+    }
+
+    private static void appendInt(int value, Appendable output) throws IOException {
+        if (output instanceof StringBuilder) {
+            ((StringBuilder) output).append(value);
+        } else {
+            output.append(Integer.toString(value));
+        }
+    }
+
+    /**
+     * Digits of a locale, appended the same way as String.format appends %d
+     */
+    private static final class LocalizedDigits {
+        private final Locale locale;
+        private final char zeroDigit;
+
+        private LocalizedDigits(Locale locale) {
+            this.locale = locale;
+            this.zeroDigit = locale == null ? '0' : DecimalFormatSymbols.getInstance(locale).getZeroDigit();
+        }
+
+        private void append(int value, Appendable output) throws IOException {
+            if (zeroDigit == '0') {
+                appendInt(value, output);
+                return;
+            }
+            String plain = Integer.toString(value);
+            for (int i = 0; i < plain.length(); i++) {
+                char c = plain.charAt(i);
+                output.append(c >= '0' && c <= '9' ? (char) (c - '0' + zeroDigit) : c);
+            }
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.mfurst.mf0721.userinterface;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serves the interactive interface to counter terminals over TCP, so every terminal shares one
+ * running application instead of starting its own.
+ *
+ * Each connection gets its own session of {@link ToolManagementInterface}: the prompts, receipt
+ * and errors are written to the connection and the answers are read from it one line at a time,
+ * the same as on the command line, and the connection is closed once the session is done.
+ * Sessions spend nearly all of their time waiting on the terminal, so they run on virtual threads
+ * when the JVM has them. Otherwise they run on a pool of up to max-sessions threads. Connections
+ * beyond max-sessions are told to try again and closed.
+ */
+@Component
+public class SessionServer {
+    private static final Logger log = LoggerFactory.getLogger(SessionServer.class);
+    protected static final String BUSY_MESSAGE = "All terminal sessions are in use. Please try again later.";
+
+    @Autowired
+    private ToolManagementInterface toolManagementInterface;
+
+    /**
+     * Serve terminal sessions, enabled by the sessions profile
+     */
+    @Value("${application.sessions.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Port to listen on, 0 picks any free port
+     */
+    @Value("${application.sessions.port:7021}")
+    private int port = 7021;
+
+    /**
+     * Most sessions served at once
+     */
+    @Value("${application.sessions.max-sessions:256}")
+    private int maxSessions = 256;
+
+    /**
+     * Seconds to wait for a terminal to answer a prompt before its session is ended, 0 waits forever
+     */
+    @Value("${application.sessions.idle-timeout-seconds:300}")
+    private int idleTimeoutSeconds = 300;
+
+    /**
+     * Run sessions on virtual threads when the JVM has them
+     */
+    @Value("${application.sessions.virtual-threads:true}")
+    private boolean virtualThreads = true;
+
+    private final Set<Socket> openConnections = ConcurrentHashMap.newKeySet();
+    private volatile ServerSocket serverSocket;
+    private volatile ExecutorService sessionExecutor;
+    private Semaphore sessionPermits;
+
+    /**
+     * Start listening for terminals if enabled
+     * @throws IOException if the port cannot be listened on
+     */
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled || serverSocket != null) return;
+        sessionPermits = new Semaphore(maxSessions);
+        sessionExecutor = createSessionExecutor();
+        ServerSocket socket = new ServerSocket();
+        socket.bind(new InetSocketAddress(port));
+        serverSocket = socket;
+
+        //Not a daemon, the server keeps the application running once it has started
+        Thread acceptor = new Thread(() -> accept(socket), "session-server");
+        acceptor.start();
+        log.info("Serving terminal sessions on port {}", socket.getLocalPort());
+    }
+
+    /**
+     * Stop listening and end every open session
+     * @throws IOException if the server socket cannot be closed
+     */
+    @PreDestroy
+    public void stop() throws IOException {
+        ServerSocket socket = serverSocket;
+        if (socket == null) return;
+        serverSocket = null;
+        socket.close();
+        for (Socket connection : openConnections) {
+            closeQuietly(connection);
+        }
+        sessionExecutor.shutdownNow();
+    }
+
+    /**
+     * Get the port terminals connect to
+     * @return the port, or -1 if the server is not running
+     */
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    /**
+     * Check if sessions run on virtual threads
+     * @return
+     */
+    public boolean isUsingVirtualThreads() {
+        ExecutorService executor = sessionExecutor;
+        return executor != null && !(executor instanceof ThreadPoolExecutor);
+    }
+
+    private void accept(ServerSocket socket) {
+        while (!socket.isClosed()) {
+            Socket connection;
+            try {
+                connection = socket.accept();
+            } catch (IOException ex) {
+                if (!socket.isClosed()) log.error("Could not accept a terminal connection", ex);
+                continue;
+            }
+            if (!sessionPermits.tryAcquire()) {
+                turnAway(connection);
+                continue;
+            }
+            openConnections.add(connection);
+            try {
+                sessionExecutor.execute(() -> runSession(connection));
+            } catch (RuntimeException ex) {
+                //Rejected while stopping
+                endSession(connection);
+            }
+        }
+    }
+
+    private void runSession(Socket connection) {
+        try {
+            connection.setSoTimeout((int) TimeUnit.SECONDS.toMillis(idleTimeoutSeconds));
+            //Not buffered, so prompts reach the terminal without waiting for the end of a line
+            PrintStream output = new PrintStream(connection.getOutputStream(), false, StandardCharsets.UTF_8);
+            toolManagementInterface.run(output, connection.getInputStream(), output);
+            output.flush();
+        } catch (IOException ex) {
+            log.debug("Terminal session ended early", ex);
+        } finally {
+            endSession(connection);
+        }
+    }
+
+    private void endSession(Socket connection) {
+        openConnections.remove(connection);
+        closeQuietly(connection);
+        sessionPermits.release();
+    }
+
+    private void turnAway(Socket connection) {
+        try (connection) {
+            connection.getOutputStream().write((BUSY_MESSAGE + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            //The terminal is gone already
+        }
+    }
+
+    /**
+     * Use a virtual thread for every session when the JVM has them. They are looked up by reflection
+     * because this is built for Java 11, and JVMs that only have them as a preview fall back to the pool.
+     */
+    private ExecutorService createSessionExecutor() {
+        if (virtualThreads) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                log.debug("Virtual threads are not available, using a pool of {} threads", maxSessions);
+            }
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(maxSessions, maxSessions, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "terminal-session-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static void closeQuietly(Socket connection) {
+        try {
+            connection.close();
+        } catch (IOException ex) {
+            //Closing is best effort
+        }
+    }
+}
@@ -2,7 +2,11 @@ package com.mfurst.mf0721.userinterface;
 
 import com.mfurst.mf0721.exception.ToolManagementException;
 import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.Reservation;
 import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.service.AgreementJournal;
+import com.mfurst.mf0721.service.AvailabilityService;
+import com.mfurst.mf0721.service.PricingSnapshot;
 import com.mfurst.mf0721.service.RentalService;
 import com.mfurst.mf0721.service.ToolService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,10 +29,32 @@ public class ToolManagementInterface {
             "Daily Rental Charge: %s\nAmount of days charge is applied: %d\nCharge Before Any Discounts: %s\nDiscount Percentage: %d%%\n" +
             "Discount Amount: %s\nFinal Charge Amount: %s";
 
+    /**
+     * Receipt message compiled once, renders the same text as formatting the receipt message
+     */
+    protected static final ReceiptTemplate RECEIPT_TEMPLATE = ReceiptTemplate.compile(RECEIPT_MESSAGE,
+            ReceiptTemplate.Field.TOOL_CODE,
+            ReceiptTemplate.Field.TOOL_TYPE,
+            ReceiptTemplate.Field.TOOL_BRAND,
+            ReceiptTemplate.Field.AMOUNT_OF_RENTAL_DAYS,
+            ReceiptTemplate.Field.CHECK_OUT_DATE,
+            ReceiptTemplate.Field.DUE_DATE,
+            ReceiptTemplate.Field.DAILY_CHARGE_AMOUNT,
+            ReceiptTemplate.Field.CHARGE_DAYS,
+            ReceiptTemplate.Field.PRE_DISCOUNT_CHARGE,
+            ReceiptTemplate.Field.DISCOUNT_PERCENT,
+            ReceiptTemplate.Field.DISCOUNT_AMOUNT,
+            ReceiptTemplate.Field.FINAL_CHARGE
+    );
+
     @Autowired
     private ToolService toolService;
     @Autowired
     private RentalService rentalService;
+    @Autowired
+    private AgreementJournal agreementJournal;
+    @Autowired
+    private AvailabilityService availabilityService;
 
     /**
      * Run the interface
@@ -42,7 +68,9 @@ public class ToolManagementInterface {
             //Get tool information by asking user for tool code
             outputStream.print("Enter tool code to search by: ");
             String toolCode = inputScanner.next();
-            ToolInformation toolInformation = toolService.getToolByCode(toolCode);
+            //The agreement is priced with the holidays that were loaded with the tool, even if they are reloaded while prompting
+            PricingSnapshot snapshot = toolService.getSnapshot();
+            ToolInformation toolInformation = toolService.getToolByCode(snapshot, toolCode);
 
             //Get checkout date from the user
             outputStream.print("Enter date of rental (mm/dd/yy): ");
@@ -61,9 +89,22 @@ public class ToolManagementInterface {
 
             //Generate rental agreement
             RentalAgreement agreement = rentalService.calculateRentalAgreement(
-                    toolInformation, checkoutDate, rentalPeriod, discountPercentage
+                    snapshot, toolInformation, checkoutDate, rentalPeriod, discountPercentage, null
             );
 
+            //Hold the tool before the agreement is recorded, so two terminals cannot hand it out for the same days
+            Reservation reservation = null;
+            if (availabilityService.isEnabled()) {
+                reservation = availabilityService.reserve(toolInformation.getToolCode(), checkoutDate, rentalPeriod);
+            }
+
+            //Only hand out agreements that have been recorded
+            try {
+                agreementJournal.record(agreement);
+            } catch (Exception ex) {
+                if (reservation != null) availabilityService.release(reservation);
+                throw ex;
+            }
             outputRentalAgreement(agreement, outputStream);
         } catch (ToolManagementException ex) {
             errorStream.println(ex.getMessage());
@@ -80,21 +121,6 @@ public class ToolManagementInterface {
      * @param outputStream
      */
     protected void outputRentalAgreement(RentalAgreement rentalAgreement, PrintStream outputStream) {
-        outputStream.println(
-                String.format(RECEIPT_MESSAGE,
-                        rentalAgreement.getToolCode(),
-                        rentalAgreement.getToolType(),
-                        rentalAgreement.getToolBrand(),
-                        rentalAgreement.getAmountOfRentalDays(),
-                        rentalAgreement.getFormattedCheckOutDate(),
-                        rentalAgreement.getFormattedDueDate(),
-                        rentalAgreement.getFormattedDailyChargeAmount(),
-                        rentalAgreement.getChargeDays(),
-                        rentalAgreement.getFormattedPreDiscountCharge(),
-                        rentalAgreement.getDiscountPercent(),
-                        rentalAgreement.getFormattedDiscountAmount(),
-                        rentalAgreement.getFormattedFinalCharge()
-                        )
-        );
+        outputStream.println(RECEIPT_TEMPLATE.render(rentalAgreement));
     }
 }
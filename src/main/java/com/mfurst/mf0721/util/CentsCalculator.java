@@ -0,0 +1,102 @@
+package com.mfurst.mf0721.util;
+
+import java.math.BigDecimal;
+
+/**
+ * Rental charge arithmetic on whole cents held in a long.
+ *
+ * Every method gives the same result as the equivalent BigDecimal calculation
+ * with a scale of 2 and HALF_UP rounding. Amounts that cannot be held exactly in
+ * cents, and results that would overflow a long, are reported as
+ * {@link #NOT_REPRESENTABLE} so the caller can fall back to BigDecimal.
+ */
+public final class CentsCalculator {
+    /**
+     * Marker for an amount that cannot be represented as whole cents in a long
+     */
+    public static final long NOT_REPRESENTABLE = Long.MIN_VALUE;
+
+    private CentsCalculator() {
+    }
+
+    /**
+     * Convert an amount to whole cents
+     * @param amount
+     * @return the amount in cents, or NOT_REPRESENTABLE if it has fractions of a cent or is too large
+     */
+    public static long toCents(BigDecimal amount) {
+        if (amount == null) return NOT_REPRESENTABLE;
+        BigDecimal cents = amount.movePointRight(2);
+        if (cents.scale() > 0) {
+            cents = cents.stripTrailingZeros();
+            if (cents.scale() > 0) return NOT_REPRESENTABLE;
+        }
+        if (cents.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) > 0
+                || cents.compareTo(BigDecimal.valueOf(-Long.MAX_VALUE)) < 0) {
+            return NOT_REPRESENTABLE;
+        }
+        return cents.longValue();
+    }
+
+    /**
+     * Convert whole cents to an amount with a scale of 2
+     * @param cents
+     * @return
+     */
+    public static BigDecimal toAmount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    /**
+     * Charge before discount: the daily charge times the amount of charged days
+     * @param dailyChargeCents
+     * @param chargeDays
+     * @return the charge in cents, or NOT_REPRESENTABLE
+     */
+    public static long preDiscountCharge(long dailyChargeCents, int chargeDays) {
+        if (dailyChargeCents == NOT_REPRESENTABLE) return NOT_REPRESENTABLE;
+        return multiply(dailyChargeCents, chargeDays);
+    }
+
+    /**
+     * Discount amount: the discount percentage of the charge, rounded half up to the nearest cent
+     * @param chargeCents
+     * @param discountPercentage
+     * @return the discount in cents, or NOT_REPRESENTABLE
+     */
+    public static long discountAmount(long chargeCents, int discountPercentage) {
+        if (chargeCents == NOT_REPRESENTABLE) return NOT_REPRESENTABLE;
+        long hundredthsOfCents = multiply(chargeCents, discountPercentage);
+        if (hundredthsOfCents == NOT_REPRESENTABLE) return NOT_REPRESENTABLE;
+        long cents = hundredthsOfCents / 100;
+        long remainder = hundredthsOfCents % 100;
+        //Half up rounds halves away from zero for both positive and negative amounts
+        if (remainder >= 50) cents++;
+        if (remainder <= -50) cents--;
+        return cents;
+    }
+
+    /**
+     * Final charge: the charge with the discount taken off
+     * @param chargeCents
+     * @param discountCents
+     * @return the final charge in cents, or NOT_REPRESENTABLE
+     */
+    public static long finalCharge(long chargeCents, long discountCents) {
+        if (chargeCents == NOT_REPRESENTABLE || discountCents == NOT_REPRESENTABLE) return NOT_REPRESENTABLE;
+        long difference = chargeCents - discountCents;
+        //Overflow happened if both inputs have a different sign than the result
+        if (((chargeCents ^ difference) & (discountCents ^ chargeCents)) < 0 || difference == NOT_REPRESENTABLE) {
+            return NOT_REPRESENTABLE;
+        }
+        return difference;
+    }
+
+    private static long multiply(long cents, long factor) {
+        long product = cents * factor;
+        long high = Math.multiplyHigh(cents, factor);
+        //The product fits in a long if the high bits are just the sign extension of the low bits
+        if (high != (product >> 63) || product == NOT_REPRESENTABLE) return NOT_REPRESENTABLE;
+        return product;
+    }
+}
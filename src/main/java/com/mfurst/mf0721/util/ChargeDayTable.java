@@ -0,0 +1,139 @@
+package com.mfurst.mf0721.util;
+
+import java.time.LocalDate;
+
+/**
+ * Precomputed table of cumulative weekend and holiday counts for every day
+ * in a window of years.
+ *
+ * Each entry packs the running count of weekend days that are not holidays in the high 32 bits and the
+ * running holiday count in the low 32 bits. Both counts only ever grow, so
+ * subtracting two entries gives both counts for the days in between at once
+ * and any combination of charged day types comes from two array lookups.
+ */
+public class ChargeDayTable {
+    private static final long HOLIDAY_MASK = 0xFFFFFFFFL;
+
+    private final HolidayCalendar holidayCalendar;
+    private final int startYear;
+    private final int endYear;
+    private final long firstEpochDay;
+    private final long lastEpochDay;
+    /**
+     * Entry i holds the counts for every day up to and including firstEpochDay + i
+     */
+    private final long[] cumulativeCounts;
+
+    /**
+     * Build a table covering January 1st of the start year through December 31st of the end year
+     * @param holidayCalendar calendar used to find observed holidays
+     * @param startYear first year in the table
+     * @param endYear last year in the table
+     */
+    public ChargeDayTable(HolidayCalendar holidayCalendar, int startYear, int endYear) {
+        if (endYear < startYear) {
+            throw new IllegalArgumentException(String.format("Invalid charge day table window [%d-%d]", startYear, endYear));
+        }
+        this.holidayCalendar = holidayCalendar;
+        this.startYear = startYear;
+        this.endYear = endYear;
+        this.firstEpochDay = LocalDate.of(startYear, 1, 1).toEpochDay();
+        this.lastEpochDay = LocalDate.of(endYear, 12, 31).toEpochDay();
+        this.cumulativeCounts = new long[Math.toIntExact(lastEpochDay - firstEpochDay + 1)];
+
+        long weekendDays = 0;
+        long holidays = 0;
+        for (int year = startYear; year <= endYear; year++) {
+            long[] observedHolidays = holidayCalendar.getObservedHolidays(year);
+            int nextHoliday = 0;
+            long yearFirstEpochDay = LocalDate.of(year, 1, 1).toEpochDay();
+            long yearLastEpochDay = LocalDate.of(year, 12, 31).toEpochDay();
+            for (long epochDay = yearFirstEpochDay; epochDay <= yearLastEpochDay; epochDay++) {
+                //Every day is exactly one of a holiday, a weekend day or a weekday
+                if (nextHoliday < observedHolidays.length && observedHolidays[nextHoliday] == epochDay) {
+                    holidays++;
+                    nextHoliday++;
+                } else if (HolidayCalendar.isWeekend(epochDay)) {
+                    weekendDays++;
+                }
+                cumulativeCounts[(int) (epochDay - firstEpochDay)] = (weekendDays << 32) | holidays;
+            }
+        }
+    }
+
+    /**
+     * Check if this table was built from the provided calendar
+     * @param holidayCalendar
+     * @return
+     */
+    public boolean isBuiltFrom(HolidayCalendar holidayCalendar) {
+        return this.holidayCalendar == holidayCalendar;
+    }
+
+    /**
+     * Check if both dates are inside of the table window
+     * @param firstDate
+     * @param secondDate
+     * @return
+     */
+    public boolean covers(LocalDate firstDate, LocalDate secondDate) {
+        long firstDateEpochDay = firstDate.toEpochDay();
+        long secondDateEpochDay = secondDate.toEpochDay();
+        return firstDateEpochDay >= firstEpochDay && firstDateEpochDay <= lastEpochDay
+                && secondDateEpochDay >= firstEpochDay && secondDateEpochDay <= lastEpochDay;
+    }
+
+    /**
+     * Count the days charged after the first date (non-inclusive) up to and including the second date.
+     * Holidays on weekends are holidays, and weekdays are the days that are neither weekend days nor holidays.
+     * Both dates must be covered by the table.
+     * @param firstDate
+     * @param secondDate
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @return
+     */
+    public int getChargeDays(LocalDate firstDate, LocalDate secondDate,
+                             boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) {
+        long firstDateEpochDay = firstDate.toEpochDay();
+        long secondDateEpochDay = secondDate.toEpochDay();
+        //Nothing is counted between dates that are out of order, matching the day type counts in DateUtil
+        long counts = firstDateEpochDay >= secondDateEpochDay ? 0
+                : cumulativeCounts[(int) (secondDateEpochDay - firstEpochDay)]
+                - cumulativeCounts[(int) (firstDateEpochDay - firstEpochDay)];
+        int weekendDays = (int) (counts >>> 32);
+        int holidays = (int) (counts & HOLIDAY_MASK);
+        int weekdays = (int) (secondDateEpochDay - firstDateEpochDay) - weekendDays - holidays;
+
+        int chargeDays = 0;
+        if (chargeWeekdays) chargeDays += weekdays;
+        if (chargeWeekends) chargeDays += weekendDays;
+        if (chargeHolidays) chargeDays += holidays;
+        return chargeDays;
+    }
+
+    public int getStartYear() {
+        return startYear;
+    }
+
+    public int getEndYear() {
+        return endYear;
+    }
+
+    /**
+     * Amount of days stored in the table
+     * @return
+     */
+    public int getDayCount() {
+        return cumulativeCounts.length;
+    }
+
+    /**
+     * Approximate heap used by the table's day entries, in bytes
+     * @return
+     */
+    public long getMemoryFootprintBytes() {
+        return (long) cumulativeCounts.length * Long.BYTES;
+    }
+}
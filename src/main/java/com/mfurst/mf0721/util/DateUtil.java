@@ -1,46 +1,106 @@
 package com.mfurst.mf0721.util;
 
-import com.mfurst.mf0721.exception.ErrorCode;
 import com.mfurst.mf0721.exception.ToolManagementException;
 import com.mfurst.mf0721.model.dto.Holiday;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.time.DayOfWeek;
+import javax.annotation.Resource;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Utility class for date operations
+ *
+ * Dates are counted with the configured holidays unless a holiday region is provided,
+ * in which case the holidays of that region are used instead. Each region gets its own
+ * calendar and charge day table, built the first time the region is used, so memory
+ * only grows with the regions that are actually priced.
  */
 @Component
 public class DateUtil {
+    private static final Logger log = LoggerFactory.getLogger(DateUtil.class);
 
     @Autowired
-    private List<Holiday> holidays;
+    private volatile List<Holiday> holidays;
 
     /**
-     * Get the number of weekend days between two dates
+     * Holidays of each holiday region by region name
+     */
+    @Resource(name = "holidayRegions")
+    private volatile Map<String, List<Holiday>> holidayRegions = Map.of();
+
+    @Value("${application.calendar.max-cached-years:" + HolidayCalendar.DEFAULT_MAX_CACHED_YEARS + "}")
+    private int maxCachedYears = HolidayCalendar.DEFAULT_MAX_CACHED_YEARS;
+
+    /**
+     * First year of the precomputed charge day table, the table is disabled when not set
+     */
+    @Value("${application.calendar.charge-table.start-year:0}")
+    private int chargeTableStartYear;
+
+    /**
+     * Last year of the precomputed charge day table, the table is disabled when not set
+     */
+    @Value("${application.calendar.charge-table.end-year:0}")
+    private int chargeTableEndYear;
+
+    private volatile HolidayCalendars holidayCalendars;
+
+    /**
+     * Number of weekend days in the first n days of a Monday based week,
+     * indexed by n. Used to count the partial week left over after all
+     * full weeks have been counted.
+     */
+    private static final int[] WEEKEND_DAYS_IN_PARTIAL_WEEK = {0, 0, 0, 0, 0, 0, 1, 2};
+
+    /**
+     * Epoch day 0 (1970-01-01) was a Thursday, shifting by this offset
+     * makes epoch days line up with Monday based weeks
+     */
+    private static final long EPOCH_DAY_MONDAY_OFFSET = 3;
+
+    /**
+     * Get the number of weekend days between two dates. The first date is
+     * not counted, the second date is.
+     *
+     * This is computed arithmetically from the epoch day of each date, so
+     * the cost is the same no matter how far apart the dates are.
      * @param firstDate
      * @param secondDate
      * @return
      */
     public int getNumberOfWeekendsBetweenTwoDates(
             LocalDate firstDate, LocalDate secondDate) {
-        int weekendsBetween = 0;
-        while (!(firstDate.isEqual(secondDate) || firstDate.isAfter(secondDate))) {
-            firstDate = firstDate.plusDays(1);
-            if (firstDate.getDayOfWeek().equals(DayOfWeek.SATURDAY)
-                    || firstDate.getDayOfWeek().equals(DayOfWeek.SUNDAY)) {
-                weekendsBetween++;
-            }
-        }
-        return weekendsBetween;
+        long firstEpochDay = firstDate.toEpochDay();
+        long secondEpochDay = secondDate.toEpochDay();
+        if (firstEpochDay >= secondEpochDay) return 0;
+        return (int) (countWeekendsUpTo(secondEpochDay) - countWeekendsUpTo(firstEpochDay));
+    }
+
+    /**
+     * Count the weekend days from a fixed origin up to and including the
+     * provided epoch day. Only differences between two results are meaningful.
+     * @param epochDay
+     * @return
+     */
+    private static long countWeekendsUpTo(long epochDay) {
+        long daysSinceMonday = epochDay + EPOCH_DAY_MONDAY_OFFSET;
+        long fullWeeks = Math.floorDiv(daysSinceMonday, 7);
+        int remainingDays = (int) Math.floorMod(daysSinceMonday, 7) + 1;
+        return fullWeeks * 2 + WEEKEND_DAYS_IN_PARTIAL_WEEK[remainingDays];
     }
 
     /**
-     * Calculate the number of observed holidays between two dates
+     * Calculate the number of observed holidays between two dates. The first
+     * date is not counted, the second date is.
      * @param firstDate
      * @param secondDate
      * @return
@@ -50,42 +110,383 @@ public class DateUtil {
         //Always return 0 holidays if there are none, no need to do other logic
         if (holidays.isEmpty()) return 0;
 
-        int totalHolidays = 0;
-        List<Integer> uniqueYearsBetweenDates = getYearsBetweenTwoDates(firstDate, secondDate);
-
-        for (Holiday holiday: holidays) {
-            for (Integer year: uniqueYearsBetweenDates) {
-                LocalDate holidayDate = getHolidayDate(holiday, year);
-                if (firstDate.isBefore(holidayDate)
-                    && ( secondDate.isAfter(holidayDate) || secondDate.isEqual(holidayDate) )
-                ) {
-                    //If the holiday is between the first date (non-inclusive) and second date (inclusive)
-                    //then we need to include it in the total holidays
-                    totalHolidays += 1;
-                }
+        return getHolidayCalendar().countHolidaysBetween(firstDate, secondDate);
+    }
+
+    /**
+     * Calculate the number of days that should be charged between two dates. The first
+     * date is not counted, the second date is. Weekdays are any days that are not
+     * weekends or holidays.
+     *
+     * Dates inside of the configured charge day table window are answered from the table,
+     * any other dates are counted from the weekends and holidays between them.
+     * @param firstDate
+     * @param secondDate
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @return
+     */
+    public int getNumberOfChargeDaysBetweenTwoDates(
+            LocalDate firstDate, LocalDate secondDate,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) throws ToolManagementException {
+        return getNumberOfChargeDaysBetweenTwoDates(getHolidayCalendars(), null,
+                firstDate, secondDate, chargeWeekdays, chargeWeekends, chargeHolidays);
+    }
+
+    /**
+     * Calculate the number of days that should be charged between two dates using the
+     * holidays of a holiday region. The first date is not counted, the second date is.
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @param firstDate
+     * @param secondDate
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @return
+     */
+    public int getNumberOfChargeDaysBetweenTwoDates(String holidayRegion,
+            LocalDate firstDate, LocalDate secondDate,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) throws ToolManagementException {
+        return getNumberOfChargeDaysBetweenTwoDates(getHolidayCalendars(), holidayRegion,
+                firstDate, secondDate, chargeWeekdays, chargeWeekends, chargeHolidays);
+    }
+
+    /**
+     * Calculate the number of days that should be charged between two dates using the
+     * holidays of a holiday region from the provided calendars. The first date is not counted, the second date is.
+     * @param calendars holiday calendars to count with, such as the calendars of a pricing snapshot
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @param firstDate
+     * @param secondDate
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @return
+     */
+    public int getNumberOfChargeDaysBetweenTwoDates(HolidayCalendars calendars, String holidayRegion,
+            LocalDate firstDate, LocalDate secondDate,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) throws ToolManagementException {
+        ChargeDayTable table = calendars.getChargeDayTable(holidayRegion);
+        if (table != null && table.covers(firstDate, secondDate)) {
+            return table.getChargeDays(firstDate, secondDate, chargeWeekdays, chargeWeekends, chargeHolidays);
+        }
+        return countChargeDays(firstDate, secondDate, calendars.getCalendar(holidayRegion),
+                chargeWeekdays, chargeWeekends, chargeHolidays);
+    }
+
+    /**
+     * Calculate the number of days that should be charged for every rental period from one day up to
+     * the longest rental period, using the holidays of a holiday region. Each count is the same as
+     * counting from the checkout date to the due date of that period, but the calendar is only
+     * walked once from the checkout date to the last due date.
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @param checkoutDate
+     * @param longestRentalPeriod
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @return charge days of each rental period, the charge days of a period of n days are at index n - 1
+     */
+    public int[] getNumberOfChargeDaysOfEachRentalPeriod(String holidayRegion,
+            LocalDate checkoutDate, int longestRentalPeriod,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) throws ToolManagementException {
+        return getNumberOfChargeDaysOfEachRentalPeriod(getHolidayCalendars(), holidayRegion, checkoutDate,
+                longestRentalPeriod, chargeWeekdays, chargeWeekends, chargeHolidays);
+    }
+
+    /**
+     * Calculate the number of days that should be charged for every rental period from one day up to
+     * the longest rental period, using the holidays of a holiday region from the provided calendars
+     * @param calendars holiday calendars to count with, such as the calendars of a pricing snapshot
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @param checkoutDate
+     * @param longestRentalPeriod
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @return charge days of each rental period, the charge days of a period of n days are at index n - 1
+     */
+    public int[] getNumberOfChargeDaysOfEachRentalPeriod(HolidayCalendars calendars, String holidayRegion,
+            LocalDate checkoutDate, int longestRentalPeriod,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) throws ToolManagementException {
+        int[] chargeDays = new int[Math.max(0, longestRentalPeriod)];
+        if (chargeDays.length == 0) return chargeDays;
+        long checkoutEpochDay = checkoutDate.toEpochDay();
+        long[] holidayEpochDays = getHolidaysBetween(calendars.getCalendar(holidayRegion),
+                checkoutEpochDay, checkoutEpochDay + longestRentalPeriod);
+
+        long epochDay = checkoutEpochDay;
+        int dayOfWeek = checkoutDate.getDayOfWeek().getValue();
+        int nextHoliday = 0;
+        int totalChargeDays = 0;
+        for (int period = 1; period <= longestRentalPeriod; period++) {
+            epochDay++;
+            dayOfWeek = dayOfWeek == 7 ? 1 : dayOfWeek + 1;
+            //Every day is exactly one of a holiday, a weekend day or a weekday
+            if (nextHoliday < holidayEpochDays.length && holidayEpochDays[nextHoliday] == epochDay) {
+                nextHoliday++;
+                if (chargeHolidays) totalChargeDays++;
+            } else if (dayOfWeek >= 6) {
+                if (chargeWeekends) totalChargeDays++;
+            } else if (chargeWeekdays) {
+                totalChargeDays++;
+            }
+            chargeDays[period - 1] = totalChargeDays;
+        }
+        return chargeDays;
+    }
+
+    /**
+     * Get the sorted epoch days of the holidays after the first day up to and including the last day.
+     * Each year only has the holidays observed in it, so the years in between hold every such holiday once.
+     * @param calendar
+     * @param firstEpochDay
+     * @param lastEpochDay
+     * @return
+     */
+    private static long[] getHolidaysBetween(HolidayCalendar calendar, long firstEpochDay, long lastEpochDay) {
+        int lastYear = LocalDate.ofEpochDay(lastEpochDay).getYear();
+        long[] holidays = new long[0];
+        int count = 0;
+        for (int year = LocalDate.ofEpochDay(firstEpochDay).getYear(); year <= lastYear; year++) {
+            for (long holiday : calendar.getObservedHolidays(year)) {
+                if (holiday <= firstEpochDay || holiday > lastEpochDay) continue;
+                if (count == holidays.length) holidays = Arrays.copyOf(holidays, Math.max(8, count * 2));
+                holidays[count++] = holiday;
             }
         }
+        return Arrays.copyOf(holidays, count);
+    }
 
-        return totalHolidays;
+    /**
+     * Calculate the number of days that should be charged for a rental of the same length checked out on each
+     * of a range of consecutive dates, using the holidays of a holiday region. Each count is the same as counting
+     * from that checkout date to its due date, but the rental is slid over the calendar one day at a time: weekends
+     * are counted arithmetically and every holiday is only looked at once, for the checkout dates whose rentals it
+     * falls in.
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @param firstCheckoutDate
+     * @param checkoutDates amount of consecutive checkout dates starting at the first one
+     * @param rentalPeriod
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @throws IllegalArgumentException if the rental period is less than 1 day
+     * @return charge days of each checkout date, the charge days of the first checkout date plus n days are at index n
+     */
+    public int[] getNumberOfChargeDaysOfEachCheckoutDate(String holidayRegion,
+            LocalDate firstCheckoutDate, int checkoutDates, int rentalPeriod,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) throws ToolManagementException {
+        return getNumberOfChargeDaysOfEachCheckoutDate(getHolidayCalendars(), holidayRegion, firstCheckoutDate,
+                checkoutDates, rentalPeriod, chargeWeekdays, chargeWeekends, chargeHolidays);
     }
 
-    protected LocalDate getHolidayDate(Holiday holiday, int year) throws ToolManagementException{
-        LocalDate holidayDate = LocalDate.of(year, holiday.getMonth(), holiday.getDay());
-        switch(holiday.getType().toLowerCase()) {
-            case "closest-weekday":
-                //Weekday holidays are always the closest weekday to the actual holiday
-                if (holidayDate.getDayOfWeek().equals(DayOfWeek.SATURDAY)) return holidayDate.minusDays(1);
-                if (holidayDate.getDayOfWeek().equals(DayOfWeek.SUNDAY)) return holidayDate.plusDays(1);
-                return holidayDate;
-            case "next-monday":
-                //Next Monday holidays are always the Monday following the date
-                while (!holidayDate.getDayOfWeek().equals(DayOfWeek.MONDAY)) {
-                    holidayDate = holidayDate.plusDays(1);
+    /**
+     * Calculate the number of days that should be charged for a rental of the same length checked out on each
+     * of a range of consecutive dates, using the holidays of a holiday region from the provided calendars
+     * @param calendars holiday calendars to count with, such as the calendars of a pricing snapshot
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @param firstCheckoutDate
+     * @param checkoutDates amount of consecutive checkout dates starting at the first one
+     * @param rentalPeriod
+     * @param chargeWeekdays
+     * @param chargeWeekends
+     * @param chargeHolidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @throws IllegalArgumentException if the rental period is less than 1 day
+     * @return charge days of each checkout date, the charge days of the first checkout date plus n days are at index n
+     */
+    public int[] getNumberOfChargeDaysOfEachCheckoutDate(HolidayCalendars calendars, String holidayRegion,
+            LocalDate firstCheckoutDate, int checkoutDates, int rentalPeriod,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) throws ToolManagementException {
+        if (rentalPeriod < 1) throw new IllegalArgumentException("Rental period must be at least 1 day");
+        int[] chargeDays = new int[Math.max(0, checkoutDates)];
+        if (chargeDays.length == 0) return chargeDays;
+        long firstEpochDay = firstCheckoutDate.toEpochDay();
+        long lastEpochDay = firstEpochDay + chargeDays.length - 1;
+
+        //Holidays entering and leaving the rental, the holidays of the rental checked out on a day are the sum up to it
+        int[] holidayChanges = new int[chargeDays.length + 1];
+        int[] weekendHolidayChanges = new int[chargeDays.length + 1];
+        HolidayCalendar calendar = calendars.getCalendar(holidayRegion);
+        int lastYear = LocalDate.ofEpochDay(lastEpochDay + rentalPeriod).getYear();
+        for (int year = firstCheckoutDate.getYear(); year <= lastYear; year++) {
+            for (long holiday : calendar.getObservedHolidays(year)) {
+                //A holiday is in the rentals checked out from the rental period before it up to the day before it
+                long firstCheckout = Math.max(firstEpochDay, holiday - rentalPeriod);
+                long lastCheckout = Math.min(lastEpochDay, holiday - 1);
+                if (firstCheckout > lastCheckout) continue;
+                holidayChanges[(int) (firstCheckout - firstEpochDay)]++;
+                holidayChanges[(int) (lastCheckout - firstEpochDay) + 1]--;
+                if (HolidayCalendar.isWeekend(holiday)) {
+                    weekendHolidayChanges[(int) (firstCheckout - firstEpochDay)]++;
+                    weekendHolidayChanges[(int) (lastCheckout - firstEpochDay) + 1]--;
                 }
-                return holidayDate;
-            default:
-                throw new ToolManagementException(ErrorCode.DATE0001, holiday.toString());
+            }
+        }
+
+        int holidays = 0;
+        int weekendHolidays = 0;
+        for (int i = 0; i < chargeDays.length; i++) {
+            holidays += holidayChanges[i];
+            weekendHolidays += weekendHolidayChanges[i];
+            long checkoutEpochDay = firstEpochDay + i;
+            //Holidays on weekends are holidays, not weekend days
+            int weekends = (int) (countWeekendsUpTo(checkoutEpochDay + rentalPeriod) - countWeekendsUpTo(checkoutEpochDay))
+                    - weekendHolidays;
+            int weekdays = rentalPeriod - weekends - holidays;
+            int total = 0;
+            if (chargeWeekdays) total += weekdays;
+            if (chargeWeekends) total += weekends;
+            if (chargeHolidays) total += holidays;
+            chargeDays[i] = total;
         }
+        return chargeDays;
+    }
+
+    /**
+     * Count the charge days between two dates. Every day is exactly one of a holiday, a weekend day
+     * or a weekday, so holidays on weekends are only counted as holidays.
+     */
+    private int countChargeDays(LocalDate firstDate, LocalDate secondDate, HolidayCalendar calendar,
+            boolean chargeWeekdays, boolean chargeWeekends, boolean chargeHolidays) {
+        int holidaysBetweenDates = calendar.countHolidaysBetween(firstDate, secondDate);
+        int weekendsBetweenDates = getNumberOfWeekendsBetweenTwoDates(firstDate, secondDate)
+                - calendar.countWeekendHolidaysBetween(firstDate, secondDate);
+        int daysBetweenDates = (int) (secondDate.toEpochDay() - firstDate.toEpochDay());
+        int weekdays = daysBetweenDates - weekendsBetweenDates - holidaysBetweenDates;
+
+        int chargeDays = 0;
+        if (chargeWeekdays) chargeDays += weekdays;
+        if (chargeWeekends) chargeDays += weekendsBetweenDates;
+        if (chargeHolidays) chargeDays += holidaysBetweenDates;
+        return chargeDays;
+    }
+
+    /**
+     * Get the charge day table for the configured holidays and table window.
+     * The table is built on first use and rebuilt if the holidays are replaced.
+     * @return the table, or null if no table window is configured
+     * @throws ToolManagementException if any configured holiday is not valid
+     */
+    protected ChargeDayTable getChargeDayTable() throws ToolManagementException {
+        return getHolidayCalendars().getChargeDayTable(null);
+    }
+
+    /**
+     * Get the calendar of observed holidays for the configured holidays.
+     * The calendar is built on first use and rebuilt if the holidays are replaced,
+     * so a different instance means the holidays have changed.
+     * @return
+     * @throws ToolManagementException if any configured holiday is not valid
+     */
+    public HolidayCalendar getHolidayCalendar() throws ToolManagementException {
+        return getHolidayCalendars().getCalendar(null);
+    }
+
+    /**
+     * Get the calendar of observed holidays of a holiday region.
+     * Calendars are built the first time a region is used and rebuilt if the regions are replaced.
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @return
+     */
+    public HolidayCalendar getHolidayCalendar(String holidayRegion) throws ToolManagementException {
+        return getHolidayCalendars().getCalendar(holidayRegion);
+    }
+
+    /**
+     * Get the calendars of the current holidays and holiday regions, which are all replaced together.
+     * They are built on first use and rebuilt if the holidays or regions are replaced.
+     * @return
+     * @throws ToolManagementException if any configured holiday is not valid
+     */
+    public HolidayCalendars getHolidayCalendars() throws ToolManagementException {
+        HolidayCalendars calendars = holidayCalendars;
+        if (calendars != null && calendars.isBuiltFrom(holidays, holidayRegions,
+                maxCachedYears, chargeTableStartYear, chargeTableEndYear)) return calendars;
+        synchronized (this) {
+            calendars = holidayCalendars;
+            if (calendars == null || !calendars.isBuiltFrom(holidays, holidayRegions,
+                    maxCachedYears, chargeTableStartYear, chargeTableEndYear)) {
+                calendars = new HolidayCalendars(holidays, holidayRegions,
+                        maxCachedYears, chargeTableStartYear, chargeTableEndYear);
+                holidayCalendars = calendars;
+            }
+            return calendars;
+        }
+    }
+
+    /**
+     * Replace the holidays with a copy of the provided list, keeping the holiday regions.
+     * The new calendar and charge day table are built before they are published,
+     * so date calculations keep using the previous holidays until then.
+     * @param holidays
+     * @throws ToolManagementException if any of the holidays is not valid, the previous holidays are kept
+     */
+    public void reloadHolidays(List<Holiday> holidays) throws ToolManagementException {
+        reloadHolidays(holidays, holidayRegions);
+    }
+
+    /**
+     * Replace the holidays and holiday regions with copies of the provided ones.
+     * Every region is validated before anything is published, so date calculations
+     * keep using the previous holidays and regions until then.
+     * @param holidays
+     * @param holidayRegions holidays of each region by region name
+     * @throws ToolManagementException if any of the holidays is not valid, the previous holidays and regions are kept
+     */
+    public void reloadHolidays(List<Holiday> holidays, Map<String, List<Holiday>> holidayRegions) throws ToolManagementException {
+        publishHolidayCalendars(buildHolidayCalendars(holidays, holidayRegions));
+    }
+
+    /**
+     * Build the calendars of copies of the provided holidays and holiday regions without using them yet.
+     * Every region and the charge day table are built, so the calendars are completely validated.
+     * @param holidays
+     * @param holidayRegions holidays of each region by region name
+     * @throws ToolManagementException if any of the holidays is not valid
+     * @return
+     */
+    public HolidayCalendars buildHolidayCalendars(List<Holiday> holidays, Map<String, List<Holiday>> holidayRegions)
+            throws ToolManagementException {
+        List<Holiday> newHolidays = List.copyOf(holidays);
+        Map<String, List<Holiday>> newHolidayRegions = new HashMap<>();
+        holidayRegions.forEach((name, regionHolidays) -> newHolidayRegions.put(name, List.copyOf(regionHolidays)));
+        HolidayCalendars calendars = new HolidayCalendars(newHolidays, newHolidayRegions,
+                maxCachedYears, chargeTableStartYear, chargeTableEndYear);
+        calendars.buildAll();
+        return calendars;
+    }
+
+    /**
+     * Count dates with calendars built by {@link #buildHolidayCalendars(List, Map)} from now on
+     * @param calendars
+     */
+    public void publishHolidayCalendars(HolidayCalendars calendars) {
+        synchronized (this) {
+            //The calendars are written last so anything that sees them also sees their holidays and regions
+            this.holidays = calendars.getHolidays();
+            this.holidayRegions = calendars.getHolidayRegions();
+            holidayCalendars = calendars;
+        }
+    }
+
+    static ChargeDayTable buildChargeDayTable(HolidayCalendar calendar, int startYear, int endYear) {
+        ChargeDayTable table = new ChargeDayTable(calendar, startYear, endYear);
+        log.info("Built charge day table for {}-{} with {} days using {} bytes",
+                table.getStartYear(), table.getEndYear(), table.getDayCount(), table.getMemoryFootprintBytes());
+        return table;
+    }
+
+    protected LocalDate getHolidayDate(Holiday holiday, int year) throws ToolManagementException{
+        return HolidayCalendar.getObservedDate(holiday, year);
     }
 
     /**
@@ -0,0 +1,260 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.dto.Holiday;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calendar of observed holiday dates built from the configured holidays.
+ *
+ * Holidays are compiled into {@link HolidayRule}s once when the calendar is created.
+ * The observed dates of a year are materialized the first time that year is needed and
+ * kept as a sorted array of epoch days, so counting holidays in a date range
+ * is a binary search per year instead of re-evaluating every holiday. A day is a
+ * holiday once no matter how many holidays are observed on it, and holidays
+ * observed on weekends are also kept apart so they are not counted as weekend days too.
+ *
+ * Counting still looks at every year in the range, so it costs one binary search per
+ * year, and one evaluation of the rules for each year that is not cached. When a range
+ * has more years than the cache can hold, the years in its middle are evaluated without
+ * being cached, so a very long rental does not keep evicting the years other quotes use.
+ *
+ * A calendar is immutable apart from its year cache and is safe to share
+ * between threads. Years are only added to the cache one at a time, so the cache
+ * never holds more than its limit.
+ */
+public class HolidayCalendar {
+    /**
+     * Amount of years kept in the cache when no limit is provided
+     */
+    public static final int DEFAULT_MAX_CACHED_YEARS = 64;
+
+    private static final long[] NO_HOLIDAYS = new long[0];
+    private static final YearHolidays NO_YEAR_HOLIDAYS = new YearHolidays(NO_HOLIDAYS, NO_HOLIDAYS);
+
+    private final List<Holiday> holidays;
+    private final HolidayRule[] rules;
+    private final int maxCachedYears;
+    private final Map<Integer, YearHolidays> observedEpochDaysByYear = new ConcurrentHashMap<>();
+
+    /**
+     * Create a calendar for the provided holidays using the default year cache size
+     * @param holidays configured holidays
+     * @throws ToolManagementException if any holiday is not valid
+     */
+    public HolidayCalendar(List<Holiday> holidays) throws ToolManagementException {
+        this(holidays, DEFAULT_MAX_CACHED_YEARS);
+    }
+
+    /**
+     * Create a calendar for the provided holidays
+     * @param holidays configured holidays
+     * @param maxCachedYears maximum amount of years to keep materialized at once
+     * @throws ToolManagementException if any holiday is not valid
+     */
+    public HolidayCalendar(List<Holiday> holidays, int maxCachedYears) throws ToolManagementException {
+        this.holidays = holidays;
+        this.maxCachedYears = Math.max(1, maxCachedYears);
+        this.rules = new HolidayRule[holidays.size()];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = HolidayRules.compile(holidays.get(i));
+        }
+    }
+
+    /**
+     * Get the date a holiday is observed on in the provided year
+     * @param holiday
+     * @param year
+     * @throws ToolManagementException if the holiday is not valid
+     * @return the observed date, or null if the holiday does not happen in that year
+     */
+    public static LocalDate getObservedDate(Holiday holiday, int year) throws ToolManagementException {
+        return HolidayRules.compile(holiday).getObservedDate(year);
+    }
+
+    /**
+     * Check if this calendar was built from the provided holiday list
+     * @param holidays
+     * @return
+     */
+    public boolean isBuiltFrom(List<Holiday> holidays) {
+        return this.holidays == holidays;
+    }
+
+    /**
+     * Count the observed holidays after the first date (non-inclusive)
+     * up to and including the second date.
+     * @param firstDate
+     * @param secondDate
+     * @return
+     */
+    public int countHolidaysBetween(LocalDate firstDate, LocalDate secondDate) {
+        return countBetween(firstDate, secondDate, false);
+    }
+
+    /**
+     * Count the observed holidays on Saturdays and Sundays after the first date (non-inclusive)
+     * up to and including the second date. These days are holidays, so they are taken off the weekend days.
+     * @param firstDate
+     * @param secondDate
+     * @return
+     */
+    public int countWeekendHolidaysBetween(LocalDate firstDate, LocalDate secondDate) {
+        return countBetween(firstDate, secondDate, true);
+    }
+
+    /**
+     * Get the sorted epoch days of every holiday observed in the provided year.
+     * A day appears once even when several holidays are observed on it.
+     * @param year
+     * @return
+     */
+    public long[] getObservedHolidays(int year) {
+        return getObservedEpochDays(year).all.clone();
+    }
+
+    /**
+     * Check if an epoch day is a Saturday or Sunday
+     * @param epochDay
+     * @return
+     */
+    public static boolean isWeekend(long epochDay) {
+        //Epoch day 0 (1970-01-01) was a Thursday, so Saturday and Sunday are 2 and 3
+        long dayOfWeek = Math.floorMod(epochDay, 7);
+        return dayOfWeek == 2 || dayOfWeek == 3;
+    }
+
+    /**
+     * Amount of years currently materialized in the cache
+     * @return
+     */
+    public int getCachedYearCount() {
+        return observedEpochDaysByYear.size();
+    }
+
+    private int countBetween(LocalDate firstDate, LocalDate secondDate, boolean onlyWeekends) {
+        if (rules.length == 0 || !firstDate.isBefore(secondDate)) return 0;
+        long firstEpochDay = firstDate.toEpochDay();
+        long secondEpochDay = secondDate.toEpochDay();
+        int firstYear = firstDate.getYear();
+        int lastYear = secondDate.getYear();
+        //Ranges with more years than the cache holds only cache the years at their ends
+        boolean cacheEveryYear = (long) lastYear - firstYear < maxCachedYears;
+        int totalHolidays = 0;
+        for (int year = firstYear; year <= lastYear; year++) {
+            YearHolidays yearHolidays = cacheEveryYear || year == firstYear || year == lastYear
+                    ? getObservedEpochDays(year) : findObservedEpochDays(year);
+            long[] epochDays = onlyWeekends ? yearHolidays.onWeekends : yearHolidays.all;
+            totalHolidays += countUpTo(epochDays, secondEpochDay) - countUpTo(epochDays, firstEpochDay);
+        }
+        return totalHolidays;
+    }
+
+    private YearHolidays getObservedEpochDays(int year) {
+        YearHolidays yearHolidays = observedEpochDaysByYear.get(year);
+        if (yearHolidays != null) return yearHolidays;
+
+        yearHolidays = materializeYear(year);
+        //Misses are rare, so they are added one at a time to keep the cache within its limit
+        synchronized (observedEpochDaysByYear) {
+            YearHolidays existing = observedEpochDaysByYear.get(year);
+            if (existing != null) return existing;
+            if (observedEpochDaysByYear.size() >= maxCachedYears) {
+                evictFarthestYearFrom(year);
+            }
+            observedEpochDaysByYear.put(year, yearHolidays);
+        }
+        return yearHolidays;
+    }
+
+    /**
+     * Get the holidays of a year from the cache, or evaluate them without caching them
+     * @param year
+     * @return
+     */
+    private YearHolidays findObservedEpochDays(int year) {
+        YearHolidays yearHolidays = observedEpochDaysByYear.get(year);
+        return yearHolidays != null ? yearHolidays : materializeYear(year);
+    }
+
+    /**
+     * Evaluate every holiday for the years surrounding the provided year and keep
+     * the ones that are observed inside of it. Holidays near the start or end of a year
+     * can be observed in the year before or after (e.g. a Saturday January 1st observed on Friday).
+     * Holidays observed on the same day are only kept once.
+     * @param year
+     * @return
+     */
+    private YearHolidays materializeYear(int year) {
+        long[] epochDays = new long[rules.length * 3];
+        int count = 0;
+        for (HolidayRule rule : rules) {
+            for (int holidayYear = year - 1; holidayYear <= year + 1; holidayYear++) {
+                LocalDate observedDate = rule.getObservedDate(holidayYear);
+                if (observedDate != null && observedDate.getYear() == year) {
+                    epochDays[count++] = observedDate.toEpochDay();
+                }
+            }
+        }
+        if (count == 0) return NO_YEAR_HOLIDAYS;
+        Arrays.sort(epochDays, 0, count);
+        int uniqueCount = 0;
+        int weekendCount = 0;
+        long[] onWeekends = new long[count];
+        for (int i = 0; i < count; i++) {
+            if (uniqueCount > 0 && epochDays[uniqueCount - 1] == epochDays[i]) continue;
+            epochDays[uniqueCount++] = epochDays[i];
+            if (isWeekend(epochDays[i])) onWeekends[weekendCount++] = epochDays[i];
+        }
+        return new YearHolidays(Arrays.copyOf(epochDays, uniqueCount),
+                weekendCount == 0 ? NO_HOLIDAYS : Arrays.copyOf(onWeekends, weekendCount));
+    }
+
+    private void evictFarthestYearFrom(int year) {
+        Integer farthestYear = null;
+        for (Integer cachedYear : observedEpochDaysByYear.keySet()) {
+            if (farthestYear == null || Math.abs(cachedYear - year) > Math.abs(farthestYear - year)) {
+                farthestYear = cachedYear;
+            }
+        }
+        if (farthestYear != null) observedEpochDaysByYear.remove(farthestYear);
+    }
+
+    /**
+     * Count the values in a sorted array that are less than or equal to the provided value
+     * @param sortedValues
+     * @param value
+     * @return
+     */
+    private static int countUpTo(long[] sortedValues, long value) {
+        int low = 0;
+        int high = sortedValues.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorted epoch days of the holidays observed in one year, and of the ones among them on weekends
+     */
+    private static final class YearHolidays {
+        private final long[] all;
+        private final long[] onWeekends;
+
+        private YearHolidays(long[] all, long[] onWeekends) {
+            this.all = all;
+            this.onWeekends = onWeekends;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.dto.Holiday;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holiday calendars of one holiday configuration: the calendar of the configured holidays,
+ * the calendars of the holiday regions and their charge day tables.
+ *
+ * The holidays and regions never change once this is created, so everything counted with
+ * the same instance uses the same holidays. A region's calendar and the charge day tables
+ * are built the first time they are used and then kept, and are safe to share between threads.
+ */
+public final class HolidayCalendars {
+    private final List<Holiday> holidays;
+    private final Map<String, List<Holiday>> holidayRegions;
+    private final int maxCachedYears;
+    private final int chargeTableStartYear;
+    private final int chargeTableEndYear;
+    private final RegionalCalendar calendar;
+    private final Map<String, List<Holiday>> holidaysByName = new HashMap<>();
+    private final Map<String, RegionalCalendar> calendarsByName = new ConcurrentHashMap<>();
+
+    /**
+     * Create the calendars of the provided holidays and regions. Region calendars are built when first used.
+     * @param holidays
+     * @param holidayRegions holidays of each region by region name
+     * @param maxCachedYears maximum amount of years each calendar keeps materialized at once
+     * @param chargeTableStartYear first year of the charge day tables, the tables are disabled when not set
+     * @param chargeTableEndYear last year of the charge day tables, the tables are disabled when not set
+     * @throws ToolManagementException if any of the holidays is not valid
+     */
+    HolidayCalendars(List<Holiday> holidays, Map<String, List<Holiday>> holidayRegions, int maxCachedYears,
+                     int chargeTableStartYear, int chargeTableEndYear) throws ToolManagementException {
+        this.holidays = holidays;
+        this.holidayRegions = holidayRegions;
+        this.maxCachedYears = maxCachedYears;
+        this.chargeTableStartYear = chargeTableStartYear;
+        this.chargeTableEndYear = chargeTableEndYear;
+        this.calendar = new RegionalCalendar(new HolidayCalendar(holidays, maxCachedYears));
+        holidayRegions.forEach((name, regionHolidays) -> holidaysByName.put(name.toLowerCase(Locale.ROOT), regionHolidays));
+    }
+
+    /**
+     * Check if these calendars were built from the provided holidays, regions and settings
+     * @param holidays
+     * @param holidayRegions
+     * @param maxCachedYears
+     * @param chargeTableStartYear
+     * @param chargeTableEndYear
+     * @return
+     */
+    boolean isBuiltFrom(List<Holiday> holidays, Map<String, List<Holiday>> holidayRegions, int maxCachedYears,
+                        int chargeTableStartYear, int chargeTableEndYear) {
+        return this.holidays == holidays && this.holidayRegions == holidayRegions
+                && this.maxCachedYears == maxCachedYears
+                && this.chargeTableStartYear == chargeTableStartYear && this.chargeTableEndYear == chargeTableEndYear;
+    }
+
+    List<Holiday> getHolidays() {
+        return holidays;
+    }
+
+    Map<String, List<Holiday>> getHolidayRegions() {
+        return holidayRegions;
+    }
+
+    /**
+     * Get the calendar of observed holidays of a holiday region
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @return
+     */
+    public HolidayCalendar getCalendar(String holidayRegion) throws ToolManagementException {
+        return getRegionalCalendar(holidayRegion).calendar;
+    }
+
+    /**
+     * Get the charge day table of a holiday region, building it on first use
+     * @param holidayRegion name of the region ignoring case, null uses the configured holidays
+     * @throws ToolManagementException if the region does not exist or has invalid holidays
+     * @return the table, or null if no table window is configured
+     */
+    ChargeDayTable getChargeDayTable(String holidayRegion) throws ToolManagementException {
+        if (!isChargeDayTableEnabled()) return null;
+        RegionalCalendar region = getRegionalCalendar(holidayRegion);
+        ChargeDayTable table = region.chargeDayTable;
+        if (table != null) return table;
+        synchronized (region) {
+            if (region.chargeDayTable == null) {
+                region.chargeDayTable = DateUtil.buildChargeDayTable(region.calendar, chargeTableStartYear, chargeTableEndYear);
+            }
+            return region.chargeDayTable;
+        }
+    }
+
+    /**
+     * Build the calendar of every region and the charge day table of the configured holidays now
+     * instead of on first use, so a new configuration is completely validated before it is used
+     * @throws ToolManagementException if any region has invalid holidays
+     */
+    void buildAll() throws ToolManagementException {
+        //The years and tables of the regions are still only built when used
+        for (String name : holidayRegions.keySet()) {
+            getRegionalCalendar(name);
+        }
+        getChargeDayTable(null);
+    }
+
+    private boolean isChargeDayTableEnabled() {
+        return chargeTableStartYear > 0 && chargeTableEndYear >= chargeTableStartYear;
+    }
+
+    private RegionalCalendar getRegionalCalendar(String name) throws ToolManagementException {
+        if (name == null) return calendar;
+        String key = name.toLowerCase(Locale.ROOT);
+        RegionalCalendar region = calendarsByName.get(key);
+        if (region != null) return region;
+        List<Holiday> regionHolidays = holidaysByName.get(key);
+        if (regionHolidays == null) throw new ToolManagementException(ErrorCode.DATE0002, name);
+        synchronized (this) {
+            region = calendarsByName.get(key);
+            if (region == null) {
+                region = new RegionalCalendar(new HolidayCalendar(regionHolidays, maxCachedYears));
+                calendarsByName.put(key, region);
+            }
+            return region;
+        }
+    }
+
+    /**
+     * Calendar of a holiday region and its charge day table once it is built
+     */
+    private static final class RegionalCalendar {
+        private final HolidayCalendar calendar;
+        private volatile ChargeDayTable chargeDayTable;
+
+        private RegionalCalendar(HolidayCalendar calendar) {
+            this.calendar = calendar;
+        }
+    }
+}
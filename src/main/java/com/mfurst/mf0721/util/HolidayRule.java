@@ -0,0 +1,21 @@
+package com.mfurst.mf0721.util;
+
+import java.time.LocalDate;
+
+/**
+ * A compiled holiday rule that finds the date a holiday is observed on in a year.
+ *
+ * Rules are evaluated by {@link HolidayCalendar} once per year when the year is
+ * materialized, never while counting holidays, so the amount and kind of rules
+ * does not change the cost of a quote. Rules must be immutable and safe to share
+ * between threads. See {@link HolidayRules} for the rules that can be configured.
+ */
+public interface HolidayRule {
+    /**
+     * Get the date the holiday of the provided year is observed on. The observed
+     * date may fall in the year before or after, e.g. a Saturday January 1st observed on Friday.
+     * @param year
+     * @return the observed date, or null if the holiday does not happen in that year
+     */
+    LocalDate getObservedDate(int year);
+}
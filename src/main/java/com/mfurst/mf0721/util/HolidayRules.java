@@ -0,0 +1,158 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.dto.Holiday;
+
+import java.time.DateTimeException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Holiday rules that can be configured, and compilation of configured holidays into them.
+ *
+ * Supported holiday types:
+ *   fixed: the same month and day every year, moved by its observance
+ *   closest-weekday: a fixed holiday observed on the closest weekday
+ *   next-monday: a fixed holiday observed on the Monday on or following it
+ *   nth-weekday: the nth (1-4) day of week of a month, e.g. the 4th Thursday of November
+ *   last-weekday: the last day of week of a month, e.g. the last Monday of May
+ *   once: a single date in a single year, moved by its observance
+ */
+public final class HolidayRules {
+    /**
+     * Ways a holiday is moved when it falls on a weekend
+     */
+    public enum Observance {
+        /**
+         * Observed on the actual holiday
+         */
+        NONE("none"),
+        /**
+         * Observed on the closest weekday to the actual holiday
+         */
+        CLOSEST_WEEKDAY("closest-weekday"),
+        /**
+         * Observed on the Monday on or following the actual holiday
+         */
+        NEXT_MONDAY("next-monday");
+
+        private final String configName;
+
+        Observance(String configName) {
+            this.configName = configName;
+        }
+
+        private static Observance fromConfigName(String configName) {
+            if (configName == null || configName.isBlank()) return NONE;
+            for (Observance observance : values()) {
+                if (observance.configName.equalsIgnoreCase(configName)) return observance;
+            }
+            return null;
+        }
+
+        private LocalDate observe(LocalDate holidayDate) {
+            DayOfWeek dayOfWeek = holidayDate.getDayOfWeek();
+            switch (this) {
+                case CLOSEST_WEEKDAY:
+                    if (dayOfWeek == DayOfWeek.SATURDAY) return holidayDate.minusDays(1);
+                    if (dayOfWeek == DayOfWeek.SUNDAY) return holidayDate.plusDays(1);
+                    return holidayDate;
+                case NEXT_MONDAY:
+                    return holidayDate.plusDays((DayOfWeek.MONDAY.getValue() - dayOfWeek.getValue() + 7) % 7);
+                default:
+                    return holidayDate;
+            }
+        }
+    }
+
+    private HolidayRules() {
+    }
+
+    /**
+     * Compile a configured holiday into its rule
+     * @param holiday
+     * @throws ToolManagementException if the holiday has an unknown type or observance, or fields that are not valid for its type
+     * @return
+     */
+    public static HolidayRule compile(Holiday holiday) throws ToolManagementException {
+        String type = holiday.getType() == null ? "" : holiday.getType().toLowerCase();
+        try {
+            switch (type) {
+                case "fixed":
+                    return fixed(MonthDay.of(holiday.getMonth(), holiday.getDay()), getObservance(holiday));
+                case "closest-weekday":
+                    return fixed(MonthDay.of(holiday.getMonth(), holiday.getDay()), Observance.CLOSEST_WEEKDAY);
+                case "next-monday":
+                    return fixed(MonthDay.of(holiday.getMonth(), holiday.getDay()), Observance.NEXT_MONDAY);
+                case "nth-weekday":
+                    if (holiday.getDayOfWeek() == null) break;
+                    return nthWeekday(Month.of(holiday.getMonth()), holiday.getWeek(), holiday.getDayOfWeek());
+                case "last-weekday":
+                    if (holiday.getDayOfWeek() == null) break;
+                    return lastWeekday(Month.of(holiday.getMonth()), holiday.getDayOfWeek());
+                case "once":
+                    return once(LocalDate.of(holiday.getYear(), holiday.getMonth(), holiday.getDay()), getObservance(holiday));
+                default:
+                    break;
+            }
+        } catch (DateTimeException | IllegalArgumentException ex) {
+            //Invalid months, days and weeks fall through to the same error as unknown types
+        }
+        throw new ToolManagementException(ErrorCode.DATE0001, holiday.toString());
+    }
+
+    /**
+     * Holiday on the same month and day every year. February 29th is observed on February 28th outside of leap years.
+     * @param monthDay
+     * @param observance
+     * @return
+     */
+    public static HolidayRule fixed(MonthDay monthDay, Observance observance) {
+        return year -> observance.observe(monthDay.atYear(year));
+    }
+
+    /**
+     * Holiday on the nth day of week of a month
+     * @param month
+     * @param week from 1 to 4, use {@link #lastWeekday(Month, DayOfWeek)} for the last one
+     * @param dayOfWeek
+     * @throws IllegalArgumentException if the week is not from 1 to 4
+     * @return
+     */
+    public static HolidayRule nthWeekday(Month month, int week, DayOfWeek dayOfWeek) {
+        //Every month has at least 4 of each day of week, so the holiday happens every year
+        if (week < 1 || week > 4) throw new IllegalArgumentException("Week must be from 1 to 4");
+        return year -> LocalDate.of(year, month, 1).with(TemporalAdjusters.dayOfWeekInMonth(week, dayOfWeek));
+    }
+
+    /**
+     * Holiday on the last day of week of a month
+     * @param month
+     * @param dayOfWeek
+     * @return
+     */
+    public static HolidayRule lastWeekday(Month month, DayOfWeek dayOfWeek) {
+        return year -> LocalDate.of(year, month, 1).with(TemporalAdjusters.lastInMonth(dayOfWeek));
+    }
+
+    /**
+     * Holiday that only happens on a single date
+     * @param date
+     * @param observance
+     * @return
+     */
+    public static HolidayRule once(LocalDate date, Observance observance) {
+        LocalDate observedDate = observance.observe(date);
+        return year -> year == date.getYear() ? observedDate : null;
+    }
+
+    private static Observance getObservance(Holiday holiday) {
+        Observance observance = Observance.fromConfigName(holiday.getObservance());
+        if (observance == null) throw new IllegalArgumentException("Unknown observance " + holiday.getObservance());
+        return observance;
+    }
+}
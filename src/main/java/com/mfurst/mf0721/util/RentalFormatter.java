@@ -0,0 +1,129 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.model.RawRentalAgreement;
+import com.mfurst.mf0721.model.RentalAgreement;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Compiled date and currency formats used for rental agreements.
+ *
+ * Patterns are compiled once when the formatter is created. DateTimeFormatter
+ * is immutable and shared, DecimalFormat is not thread-safe so every thread
+ * gets its own copy of the compiled currency format.
+ */
+public class RentalFormatter {
+    private final String datePattern;
+    private final String currencyPattern;
+    private final DateTimeFormatter dateFormatter;
+    private final ThreadLocal<DecimalFormat> currencyFormatter;
+
+    /**
+     * Compile the provided patterns
+     * @param datePattern pattern for {@link DateTimeFormatter}
+     * @param currencyPattern pattern for {@link DecimalFormat}
+     */
+    public RentalFormatter(String datePattern, String currencyPattern) {
+        this.datePattern = datePattern;
+        this.currencyPattern = currencyPattern;
+        this.dateFormatter = DateTimeFormatter.ofPattern(datePattern);
+        //Compile once to fail fast on invalid patterns, each thread then works from a copy
+        DecimalFormat compiledCurrencyFormat = new DecimalFormat(currencyPattern);
+        this.currencyFormatter = ThreadLocal.withInitial(() -> (DecimalFormat) compiledCurrencyFormat.clone());
+    }
+
+    /**
+     * Check if this formatter was compiled from the provided patterns
+     * @param datePattern
+     * @param currencyPattern
+     * @return
+     */
+    public boolean isBuiltFrom(String datePattern, String currencyPattern) {
+        return this.datePattern.equals(datePattern) && this.currencyPattern.equals(currencyPattern);
+    }
+
+    /**
+     * Parse a date in the date format
+     * @param date
+     * @throws DateTimeParseException if the date does not match the format
+     * @return
+     */
+    public LocalDate parseDate(String date) {
+        return LocalDate.parse(date, dateFormatter);
+    }
+
+    /**
+     * Parse a date in the date format without throwing for dates that do not match it.
+     * Text that does not match the pattern is rejected before a full parse, which would
+     * build a DateTimeParseException with a stack trace for every invalid date.
+     * @param date
+     * @return the date, or null if it does not match the format
+     */
+    public LocalDate tryParseDate(String date) {
+        if (date == null) return null;
+        ParsePosition position = new ParsePosition(0);
+        if (dateFormatter.parseUnresolved(date, position) == null
+                || position.getErrorIndex() >= 0 || position.getIndex() != date.length()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(date, dateFormatter);
+        } catch (DateTimeParseException ex) {
+            //Matches the pattern but is not a valid date, e.g. 02/30/21
+            return null;
+        }
+    }
+
+    public String formatDate(LocalDate date) {
+        return dateFormatter.format(date);
+    }
+
+    /**
+     * Format a date given as days since 1970-01-01
+     * @param epochDay
+     * @return
+     */
+    public String formatDate(long epochDay) {
+        return dateFormatter.format(LocalDate.ofEpochDay(epochDay));
+    }
+
+    public String formatCurrency(BigDecimal amount) {
+        return currencyFormatter.get().format(amount);
+    }
+
+    /**
+     * Format an amount given in whole cents
+     * @param cents
+     * @return
+     */
+    public String formatCents(long cents) {
+        return formatCurrency(CentsCalculator.toAmount(cents));
+    }
+
+    /**
+     * Format every date and amount of a raw rental agreement
+     * @param raw
+     * @return
+     */
+    public RentalAgreement format(RawRentalAgreement raw) {
+        RentalAgreement agreement = new RentalAgreement();
+        agreement.setToolCode(raw.getToolCode());
+        agreement.setToolBrand(raw.getToolBrand());
+        agreement.setToolType(raw.getToolType());
+        agreement.setFormattedCheckOutDate(formatDate(raw.getCheckOutEpochDay()));
+        agreement.setAmountOfRentalDays(raw.getAmountOfRentalDays());
+        agreement.setDiscountPercent(raw.getDiscountPercent());
+        agreement.setFormattedDueDate(formatDate(raw.getDueEpochDay()));
+        agreement.setChargeDays(raw.getChargeDays());
+        agreement.setFormattedDailyChargeAmount(formatCurrency(raw.getDailyChargeAmount()));
+        agreement.setFormattedPreDiscountCharge(formatCents(raw.getPreDiscountChargeCents()));
+        agreement.setFormattedDiscountAmount(formatCents(raw.getDiscountAmountCents()));
+        agreement.setFormattedFinalCharge(formatCents(raw.getFinalChargeCents()));
+        return agreement;
+    }
+}
@@ -0,0 +1,44 @@
+package com.mfurst.mf0721;
+
+import com.mfurst.mf0721.exception.UsageException;
+import com.mfurst.mf0721.userinterface.BulkPricingInterface;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AppCommandLineRunnerTest {
+
+    /**
+     * Formats should be found by name ignoring case
+     */
+    @Test
+    void parseFormatShouldIgnoreCase() {
+        assertEquals(BulkPricingInterface.Format.CSV, AppCommandLineRunner.parseFormat("csv"));
+        assertEquals(BulkPricingInterface.Format.NDJSON, AppCommandLineRunner.parseFormat("NdJson"));
+    }
+
+    /**
+     * An unknown format should not be found instead of failing
+     */
+    @Test
+    void parseFormatShouldReturnNullForUnknownFormat() {
+        assertNull(AppCommandLineRunner.parseFormat("xml"));
+        assertNull(AppCommandLineRunner.parseFormat(""));
+        assertEquals("csv, ndjson", AppCommandLineRunner.getFormatNames());
+    }
+
+    /**
+     * An unknown format should be a usage error that exits with status 2
+     */
+    @Test
+    void runShouldReportUnknownFormatAsUsageError() throws Exception {
+        try {
+            new AppCommandLineRunner().run("--bulk", "--format=xml");
+            fail("Bulk pricing should not run with an unknown format");
+        } catch (UsageException ex) {
+            assertEquals("Unknown format xml.", ex.getMessage());
+            assertEquals("Please use one of csv, ndjson.", ex.getAction());
+            assertEquals(2, ex.getExitCode());
+        }
+    }
+}
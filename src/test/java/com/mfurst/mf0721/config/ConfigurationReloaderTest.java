@@ -0,0 +1,297 @@
+package com.mfurst.mf0721.config;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Holiday;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.service.PricingMetrics;
+import com.mfurst.mf0721.service.PricingSnapshot;
+import com.mfurst.mf0721.service.RentalService;
+import com.mfurst.mf0721.service.ToolService;
+import com.mfurst.mf0721.util.DateUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class ConfigurationReloaderTest {
+
+    private static final String CONFIGURATION = "holiday:\n" +
+            "  - type: closest-weekday\n" +
+            "    month: 07\n" +
+            "    day: 04\n" +
+            "  - type: next-monday\n" +
+            "    month: 09\n" +
+            "    day: 01\n" +
+            "tool-data:\n" +
+            "  tool-type:\n" +
+            "    - type: Ladder\n" +
+            "      charge: 2.49\n" +
+            "      weekday: true\n" +
+            "      weekend: true\n" +
+            "      holiday: false\n" +
+            "  tools:\n" +
+            "    - code: LADW\n" +
+            "      type: Ladder\n" +
+            "      brand: Werner\n" +
+            "    - code: LADL\n" +
+            "      type: Ladder\n" +
+            "      brand: Louisville\n";
+
+    @TempDir
+    Path directory;
+
+    private ToolService toolService;
+
+    private DateUtil dateUtil;
+
+    private RentalService rentalService;
+
+    private ConfigurationReloader reloader;
+
+    @BeforeEach
+    void setUp() {
+        dateUtil = new DateUtil();
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of(new Holiday("closest-weekday", 7, 4)));
+
+        toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(toolService, "tools", List.of(new Tool("LADW", "Ladder", "Werner")));
+        ReflectionTestUtils.setField(toolService, "toolTypes", List.of(
+                new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false)
+        ));
+        ReflectionTestUtils.setField(toolService, "dateUtil", dateUtil);
+
+        rentalService = new RentalService();
+        ReflectionTestUtils.setField(rentalService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "toolService", toolService);
+        ReflectionTestUtils.setField(rentalService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(rentalService, "dateFormat", "MM/dd/yy");
+        ReflectionTestUtils.setField(rentalService, "currencyFormat", "$#,##0.00");
+        ReflectionTestUtils.setField(toolService, "rentalService", rentalService);
+
+        reloader = new ConfigurationReloader();
+        ReflectionTestUtils.setField(reloader, "toolService", toolService);
+    }
+
+    /**
+     * Reloading should replace the tools, tool types and holidays
+     */
+    @Test
+    void reloadShouldPublishNewConfiguration() throws IOException {
+        Path file = Files.writeString(directory.resolve("tools.yaml"), CONFIGURATION);
+        try {
+            reloader.reload(file);
+
+            assertEquals(new BigDecimal("2.49"), toolService.getToolByCode("LADW").getToolType().getCharge());
+            assertEquals("Louisville", toolService.getToolByCode("ladl").getToolBrand());
+            assertEquals(1, dateUtil.getNumberOfHolidaysBetweenTwoDates(
+                    LocalDate.of(2020, 8, 31), LocalDate.of(2020, 9, 7)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Rule based holidays should be read from the file
+     */
+    @Test
+    void reloadShouldReadRuleBasedHolidays() throws IOException {
+        Path file = Files.writeString(directory.resolve("tools.yaml"), CONFIGURATION.replace("holiday:\n",
+                "holiday:\n" +
+                "  - type: nth-weekday\n" +
+                "    month: 11\n" +
+                "    week: 4\n" +
+                "    day-of-week: thursday\n"));
+        try {
+            reloader.reload(file);
+
+            //Thanksgiving of 2021 is Thursday November 25th
+            assertEquals(1, dateUtil.getNumberOfHolidaysBetweenTwoDates(
+                    LocalDate.of(2021, 11, 22), LocalDate.of(2021, 11, 28)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Holiday regions should be read from the file
+     */
+    @Test
+    void reloadShouldReadHolidayRegions() throws IOException {
+        Path file = Files.writeString(directory.resolve("tools.yaml"), CONFIGURATION +
+                "holiday-regions:\n" +
+                "  east:\n" +
+                "    - type: last-weekday\n" +
+                "      month: 5\n" +
+                "      day-of-week: monday\n");
+        try {
+            reloader.reload(file);
+
+            //Memorial day of 2021 is Monday May 31st
+            assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates("east",
+                    LocalDate.of(2021, 5, 28), LocalDate.of(2021, 6, 1), false, false, true));
+            assertEquals(0, dateUtil.getNumberOfChargeDaysBetweenTwoDates(null,
+                    LocalDate.of(2021, 5, 28), LocalDate.of(2021, 6, 1), false, false, true));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Every pricing snapshot should hold the catalog and holidays of the same file while reloads replace them
+     */
+    @Test
+    void reloadShouldPublishCatalogAndHolidaysTogether() throws Exception {
+        //Labor Day is only a holiday in the file where ladders cost 2.49
+        Path withHoliday = Files.writeString(directory.resolve("with-holiday.yaml"), CONFIGURATION);
+        Path withoutHoliday = Files.writeString(directory.resolve("without-holiday.yaml"), CONFIGURATION
+                .replace("charge: 2.49", "charge: 3.49")
+                .replace("  - type: next-monday\n    month: 09\n    day: 01\n", ""));
+        reloader.reload(withHoliday);
+
+        AtomicBoolean reloading = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> reloads = executor.submit(() -> {
+                for (int i = 0; i < 200; i++) {
+                    reloader.reload(i % 2 == 0 ? withoutHoliday : withHoliday);
+                }
+                reloading.set(false);
+                return null;
+            });
+            while (reloading.get()) {
+                PricingSnapshot snapshot = toolService.getSnapshot();
+                BigDecimal charge = snapshot.getCatalog().find("LADW").getToolType().getCharge();
+                int holidays = snapshot.getCalendars().getCalendar(null)
+                        .countHolidaysBetween(LocalDate.of(2020, 8, 31), LocalDate.of(2020, 9, 7));
+                assertEquals(new BigDecimal("2.49").equals(charge) ? 1 : 0, holidays, "Holidays with ladders at " + charge);
+            }
+            reloads.get();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * A quote should be priced with the holidays of the snapshot its tool was found in, even after a reload
+     */
+    @Test
+    void quoteShouldUseTheSnapshotItsToolWasFoundIn() throws IOException {
+        //Labor Day is only a holiday in the file where ladders cost 2.49
+        Path withHoliday = Files.writeString(directory.resolve("with-holiday.yaml"), CONFIGURATION);
+        Path withoutHoliday = Files.writeString(directory.resolve("without-holiday.yaml"), CONFIGURATION
+                .replace("charge: 2.49", "charge: 3.49")
+                .replace("  - type: next-monday\n    month: 09\n    day: 01\n", ""));
+        try {
+            reloader.reload(withHoliday);
+            PricingSnapshot snapshot = toolService.getSnapshot();
+            ToolInformation ladder = toolService.getToolByCode(snapshot, "LADW");
+
+            reloader.reload(withoutHoliday);
+            RentalAgreement agreement = rentalService.calculateRentalAgreement(
+                    snapshot, ladder, LocalDate.of(2020, 8, 31), 7, 0, null);
+            assertEquals(6, agreement.getChargeDays());
+            assertEquals("$14.94", agreement.getFormattedFinalCharge());
+
+            PricingSnapshot reloaded = toolService.getSnapshot();
+            agreement = rentalService.calculateRentalAgreement(reloaded, toolService.getToolByCode(reloaded, "LADW"),
+                    LocalDate.of(2020, 8, 31), 7, 0, null);
+            assertEquals(7, agreement.getChargeDays());
+            assertEquals("$24.43", agreement.getFormattedFinalCharge());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Reloading should remove the agreements priced with the previous configuration
+     */
+    @Test
+    void reloadShouldEmptyQuoteCache() throws IOException {
+        ReflectionTestUtils.setField(rentalService, "quoteCacheMaximumSize", 100L);
+        Path file = Files.writeString(directory.resolve("tools.yaml"), CONFIGURATION);
+        try {
+            PricingSnapshot snapshot = toolService.getSnapshot();
+            ToolInformation ladder = toolService.getToolByCode(snapshot, "LADW");
+            rentalService.calculateRentalAgreement(snapshot, ladder, LocalDate.of(2020, 7, 2), 3, 10, null);
+            rentalService.calculateRentalAgreement(snapshot, ladder, LocalDate.of(2020, 7, 2), 3, 10, null);
+            assertEquals(1, rentalService.getQuoteCacheStats().hitCount());
+
+            reloader.reload(file);
+            //Even a quote that still uses the previous snapshot is priced again
+            rentalService.calculateRentalAgreement(snapshot, ladder, LocalDate.of(2020, 7, 2), 3, 10, null);
+            assertEquals(1, rentalService.getQuoteCacheStats().hitCount());
+            assertEquals(2, rentalService.getQuoteCacheStats().missCount());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * A file with invalid holidays should keep the previous configuration
+     */
+    @Test
+    void reloadShouldKeepPreviousConfigurationForInvalidHolidays() throws IOException {
+        Path file = Files.writeString(directory.resolve("tools.yaml"),
+                CONFIGURATION.replace("type: next-monday", "type: every-monday"));
+        try {
+            reloader.reload(file);
+            fail("Reload should fail for an invalid holiday");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.DATE0001, ex.getErrorCode());
+        }
+        try {
+            assertEquals(BigDecimal.valueOf(1.99), toolService.getToolByCode("LADW").getToolType().getCharge());
+            assertEquals(0, dateUtil.getNumberOfHolidaysBetweenTwoDates(
+                    LocalDate.of(2020, 8, 31), LocalDate.of(2020, 9, 7)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Missing or unreadable files should fail without changing the configuration
+     */
+    @Test
+    void reloadShouldFailForUnreadableFiles() throws IOException {
+        try {
+            reloader.reload(directory.resolve("missing.yaml"));
+            fail("Reload should fail for a missing file");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.CONF0001, ex.getErrorCode());
+        }
+        Path file = Files.writeString(directory.resolve("tools.yaml"),
+                CONFIGURATION.replace("charge: 2.49", "charge: free"));
+        try {
+            reloader.reload(file);
+            fail("Reload should fail for a charge that is not a number");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.CONF0001, ex.getErrorCode());
+        }
+        try {
+            assertEquals(BigDecimal.valueOf(1.99), toolService.getToolByCode("LADW").getToolType().getCharge());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.mfurst.mf0721.controller;
+
+import com.mfurst.mf0721.Mf0721Application;
+import com.mfurst.mf0721.model.RentalRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The tests for this class are used for integration tests against the running HTTP server
+ */
+@ActiveProfiles({"test", "http"})
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = Mf0721Application.class,
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT
+)
+@AutoConfigureWebTestClient
+class PricingControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    /**
+     * Tools should be found by code ignoring case
+     */
+    @Test
+    void getToolShouldReturnToolInformation() {
+        webTestClient.get().uri("/api/tools/ladw")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.toolCode").isEqualTo("LADW")
+                .jsonPath("$.toolBrand").isEqualTo("Werner")
+                .jsonPath("$.toolType.type").isEqualTo("Ladder")
+                .jsonPath("$.toolType.charge").isEqualTo(1.99);
+    }
+
+    /**
+     * Unknown tools should not be found
+     */
+    @Test
+    void getToolShouldReturnNotFoundForUnknownTool() {
+        webTestClient.get().uri("/api/tools/NONE")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("TOOL0002")
+                .jsonPath("$.message").isEqualTo("Provided tool code [NONE] is not valid.");
+    }
+
+    /**
+     * Quotes from query parameters should match the command line interface
+     */
+    @Test
+    void getQuoteShouldReturnRentalAgreement() {
+        webTestClient.get().uri("/api/quotes?toolCode=LADW&checkoutDate=07/02/20&rentalPeriod=3&discountPercentage=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.toolCode").isEqualTo("LADW")
+                .jsonPath("$.formattedDueDate").isEqualTo("07/05/20")
+                .jsonPath("$.chargeDays").isEqualTo(2)
+                .jsonPath("$.formattedPreDiscountCharge").isEqualTo("$3.98")
+                .jsonPath("$.formattedDiscountAmount").isEqualTo("$0.40")
+                .jsonPath("$.formattedFinalCharge").isEqualTo("$3.58");
+    }
+
+    /**
+     * Price tables should have an agreement for every rental period, priced the same as a single quote
+     */
+    @Test
+    void getQuoteTableShouldReturnEveryRentalPeriod() {
+        webTestClient.get().uri("/api/quotes/table?toolCode=LADW&checkoutDate=07/02/20&lastRentalPeriod=30&discountPercentage=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(30)
+                .jsonPath("$[0].amountOfRentalDays").isEqualTo(1)
+                .jsonPath("$[2].formattedDueDate").isEqualTo("07/05/20")
+                .jsonPath("$[2].chargeDays").isEqualTo(2)
+                .jsonPath("$[2].formattedFinalCharge").isEqualTo("$3.58")
+                .jsonPath("$[29].amountOfRentalDays").isEqualTo(30);
+        webTestClient.get().uri("/api/quotes/table?toolCode=LADW&checkoutDate=07/02/20&lastRentalPeriod=5000")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("RENT0007");
+    }
+
+    /**
+     * The cheapest checkout dates should avoid the holiday for a tool that is not charged on holidays
+     */
+    @Test
+    void getCheapestQuotesShouldRankCheckoutDates() {
+        webTestClient.get().uri("/api/quotes/cheapest?toolCode=LADW&earliestCheckoutDate=07/01/20&latestCheckoutDate=07/10/20&rentalPeriod=3&limit=3")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].formattedCheckOutDate").isEqualTo("07/01/20")
+                .jsonPath("$[0].chargeDays").isEqualTo(2)
+                .jsonPath("$[0].formattedFinalCharge").isEqualTo("$3.98")
+                .jsonPath("$[1].formattedCheckOutDate").isEqualTo("07/02/20")
+                .jsonPath("$[2].formattedCheckOutDate").isEqualTo("07/03/20")
+                .jsonPath("$[2].chargeDays").isEqualTo(3);
+        webTestClient.get().uri("/api/quotes/cheapest?toolCode=LADW&earliestCheckoutDate=07/01/20&latestCheckoutDate=07/01/25&rentalPeriod=3")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("RENT0008");
+    }
+
+    /**
+     * Tools of a type that are not reserved should be found, and quoted when asked for quotes
+     */
+    @Test
+    void getAvailabilityShouldReturnToolsOfType() {
+        webTestClient.get().uri("/api/availability?toolType=jackhammer&checkoutDate=07/02/20&rentalPeriod=4")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].toolCode").isEqualTo("JAKR")
+                .jsonPath("$[1].toolCode").isEqualTo("JAKD");
+        webTestClient.get().uri("/api/availability/quotes?toolType=Jackhammer&checkoutDate=07/02/20&rentalPeriod=4&discountPercentage=50")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].toolBrand").isEqualTo("DeWalt")
+                .jsonPath("$[1].formattedFinalCharge").isEqualTo("$1.49");
+        webTestClient.get().uri("/api/availability?toolType=Jackhammer&checkoutDate=07/02/20&rentalPeriod=0")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("RENT0001");
+    }
+
+    /**
+     * Quotes from a request body should match the command line interface
+     */
+    @Test
+    void postQuoteShouldReturnRentalAgreement() {
+        webTestClient.post().uri("/api/quotes")
+                .bodyValue(new RentalRequest("JAKR", "07/02/15", 9, 0))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.formattedDueDate").isEqualTo("07/11/15")
+                .jsonPath("$.chargeDays").isEqualTo(5)
+                .jsonPath("$.formattedFinalCharge").isEqualTo("$14.95");
+    }
+
+    /**
+     * Invalid rental information should be a bad request with the error code
+     */
+    @Test
+    void postQuoteShouldReturnBadRequestForInvalidDiscount() {
+        webTestClient.post().uri("/api/quotes")
+                .bodyValue(new RentalRequest("JAKR", "09/03/15", 5, 101))
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("RENT0004")
+                .jsonPath("$.message").isEqualTo("Discount rate cannot be greater than one-hundred percent.");
+    }
+
+    /**
+     * Missing or badly typed query parameters should be a bad request with the error code
+     */
+    @Test
+    void getQuoteShouldReturnBadRequestForInvalidParameters() {
+        webTestClient.get().uri("/api/quotes?toolCode=LADW&checkoutDate=07/02/20&rentalPeriod=abc")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("HTTP0001")
+                .jsonPath("$.message").value(message -> assertTrue(message.toString().contains("rentalPeriod")));
+        webTestClient.get().uri("/api/quotes?toolCode=LADW&checkoutDate=07/02/20")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("HTTP0001")
+                .jsonPath("$.message").value(message -> assertTrue(message.toString().contains("rentalPeriod")));
+    }
+
+    /**
+     * A request body that is not valid JSON should be a bad request with the error code
+     */
+    @Test
+    void postQuoteShouldReturnBadRequestForMalformedBody() {
+        webTestClient.post().uri("/api/quotes")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"toolCode\": \"JAKR\", \"rentalDays\": ")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("HTTP0001");
+    }
+
+    /**
+     * Unknown holiday regions should be a bad request with the error code
+     */
+    @Test
+    void getQuoteShouldReturnBadRequestForUnknownHolidayRegion() {
+        webTestClient.get().uri("/api/quotes?toolCode=LADW&checkoutDate=07/02/20&rentalPeriod=3&holidayRegion=north")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST)
+                .expectBody()
+                .jsonPath("$.code").isEqualTo("DATE0002")
+                .jsonPath("$.message").isEqualTo("Holiday region [north] does not exist.");
+    }
+
+    /**
+     * Metrics should be scrapeable in the Prometheus text format after a quote
+     */
+    @Test
+    void getMetricsShouldReturnPrometheusText() {
+        webTestClient.get().uri("/api/quotes?toolCode=LADW&checkoutDate=07/02/20&rentalPeriod=3")
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/api/metrics")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_PLAIN)
+                .expectBody(String.class)
+                .value(text -> assertTrue(text.contains(
+                        "mf0721_operations_total{operation=\"agreement\",tool_type=\"Ladder\"}")));
+
+        webTestClient.get().uri("/api/metrics/snapshot")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.latencies[?(@.operation == 'agreement' && @.toolType == 'Ladder')].count").exists();
+    }
+}
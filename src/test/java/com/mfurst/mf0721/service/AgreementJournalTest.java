@@ -0,0 +1,253 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.model.JournalEntry;
+import com.mfurst.mf0721.model.RentalAgreement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class AgreementJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private final AgreementJournal journal = new AgreementJournal();
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+    }
+
+    /**
+     * Agreements should be replayed in the order they were recorded
+     */
+    @Test
+    void replayShouldReturnRecordedAgreementsInOrder() throws IOException {
+        Path file = directory.resolve("agreements.journal");
+        journal.open(file, AgreementJournal.Durability.GROUP, 16, 16);
+        for (int i = 0; i < 100; i++) {
+            journal.record(agreement(i));
+        }
+
+        List<JournalEntry> entries = new ArrayList<>();
+        assertEquals(100, AgreementJournal.replay(file, entries::add));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(agreement(i), entries.get(i).getAgreement());
+            assertNotNull(entries.get(i).getIssuedAt());
+        }
+    }
+
+    /**
+     * Agreements recorded from many threads at once should all be written exactly once
+     */
+    @Test
+    void recordFromManyThreadsShouldWriteEveryAgreement() throws Exception {
+        Path file = directory.resolve("agreements.journal");
+        journal.open(file, AgreementJournal.Durability.GROUP, 64, 128);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                results.add(executor.submit(() -> {
+                    for (int i = offset; i < 2000; i += 8) {
+                        journal.record(agreement(i));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        Set<Integer> rentalDays = new HashSet<>();
+        assertEquals(2000, AgreementJournal.replay(file,
+                entry -> rentalDays.add(entry.getAgreement().getAmountOfRentalDays())));
+        assertEquals(2000, rentalDays.size());
+    }
+
+    /**
+     * Closing should write every agreement that is still waiting when callers do not wait
+     */
+    @Test
+    void closeShouldWriteWaitingAgreements() throws IOException {
+        Path file = directory.resolve("agreements.journal");
+        journal.open(file, AgreementJournal.Durability.NONE, 8, 1024);
+        for (int i = 0; i < 500; i++) {
+            journal.record(agreement(i));
+        }
+        journal.close();
+
+        assertEquals(500, AgreementJournal.replay(file, entry -> { }));
+    }
+
+    /**
+     * Recording with a journal that was closed underneath the caller should fail instead of waiting forever
+     */
+    @Test
+    void recordShouldFailOnceTheJournalIsClosed() throws IOException {
+        Path file = directory.resolve("agreements.journal");
+        journal.open(file, AgreementJournal.Durability.GROUP, 8, 1);
+        journal.record(agreement(1));
+        Object closedWriter = ReflectionTestUtils.getField(journal, "writer");
+        journal.close();
+
+        //The same as a caller that read the writer just before the journal was closed
+        ReflectionTestUtils.setField(journal, "writer", closedWriter);
+        try {
+            journal.record(agreement(2));
+            fail("Recording with a closed journal should fail");
+        } catch (IOException ex) {
+            assertTrue(ex.getMessage().contains("closed"));
+        }
+        journal.close();
+        assertEquals(1, AgreementJournal.replay(file, entry -> { }));
+    }
+
+    /**
+     * Callers recording while the journal is closed should either have their agreement written or fail,
+     * and none of them should be left waiting
+     */
+    @Test
+    void closeWhileRecordingShouldNotLeaveCallersWaiting() throws Exception {
+        Path file = directory.resolve("agreements.journal");
+        journal.open(file, AgreementJournal.Durability.GROUP, 4, 1);
+        Object openWriter = ReflectionTestUtils.getField(journal, "writer");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        AtomicInteger recorded = new AtomicInteger();
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        //Keep using the writer after it is closed, the same as callers that read it just before
+                        ReflectionTestUtils.setField(journal, "writer", openWriter);
+                        try {
+                            journal.record(agreement(i));
+                            recorded.incrementAndGet();
+                        } catch (IOException ex) {
+                            return null;
+                        }
+                    }
+                    return null;
+                }));
+            }
+            Thread.sleep(20);
+            journal.close();
+            for (Future<?> result : results) {
+                result.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(recorded.get(), AgreementJournal.replay(file, entry -> { }));
+    }
+
+    /**
+     * A partial record at the end should be skipped by replays and cut off when the journal is reopened
+     */
+    @Test
+    void openShouldDiscardPartialLastRecord() throws IOException {
+        Path file = directory.resolve("agreements.journal");
+        journal.open(file, AgreementJournal.Durability.GROUP, 8, 8);
+        journal.record(agreement(1));
+        journal.record(agreement(2));
+        journal.close();
+        Files.write(file, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+        assertEquals(2, AgreementJournal.replay(file, entry -> { }));
+
+        journal.open(file, AgreementJournal.Durability.ASYNC, 8, 8);
+        journal.record(agreement(3));
+        journal.close();
+
+        List<JournalEntry> entries = new ArrayList<>();
+        assertEquals(3, AgreementJournal.replay(file, entries::add));
+        assertEquals(agreement(3), entries.get(2).getAgreement());
+    }
+
+    /**
+     * A corrupt record before the end should stop the journal from opening and leave the file as it was
+     */
+    @Test
+    void openShouldRefuseCorruptRecordBeforeTheEnd() throws IOException {
+        Path file = directory.resolve("agreements.journal");
+        journal.open(file, AgreementJournal.Durability.GROUP, 8, 8);
+        for (int i = 0; i < 3; i++) {
+            journal.record(agreement(i));
+        }
+        journal.close();
+        byte[] original = Files.readAllBytes(file);
+        int firstRecordLength = 8 + ByteBuffer.wrap(original).getInt();
+
+        //A flipped bit in the payload of the second record
+        byte[] badChecksum = original.clone();
+        badChecksum[firstRecordLength + 12] ^= 1;
+        //An impossible length for the second record
+        byte[] badLength = original.clone();
+        ByteBuffer.wrap(badLength).putInt(firstRecordLength, -1);
+
+        for (byte[] corrupt : List.of(badChecksum, badLength)) {
+            Files.write(file, corrupt);
+            try {
+                journal.open(file, AgreementJournal.Durability.GROUP, 8, 8);
+                fail("A journal with a corrupt record should not be opened");
+            } catch (IOException ex) {
+                assertTrue(ex.getMessage().contains("corrupt"));
+            }
+            assertFalse(journal.isEnabled());
+            assertArrayEquals(corrupt, Files.readAllBytes(file));
+            assertEquals(1, AgreementJournal.replay(file, entry -> { }));
+        }
+    }
+
+    /**
+     * Recording does nothing when no journal is open
+     */
+    @Test
+    void recordShouldDoNothingWhenDisabled() throws IOException {
+        assertFalse(journal.isEnabled());
+        journal.record(agreement(1));
+    }
+
+    private static RentalAgreement agreement(int rentalDays) {
+        return RentalAgreement.builder()
+                .toolCode("LADW")
+                .toolType("Ladder")
+                .toolBrand("Werner")
+                .amountOfRentalDays(rentalDays)
+                .formattedCheckOutDate("07/02/20")
+                .formattedDueDate("07/05/20")
+                .formattedDailyChargeAmount("$1.99")
+                .chargeDays(2)
+                .formattedPreDiscountCharge("$3.98")
+                .discountPercent(10)
+                .formattedDiscountAmount("$0.40")
+                .formattedFinalCharge(rentalDays % 2 == 0 ? "$3.58" : null)
+                .build();
+    }
+}
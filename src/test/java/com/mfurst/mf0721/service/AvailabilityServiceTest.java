@@ -0,0 +1,246 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.Reservation;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Holiday;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.DateUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class AvailabilityServiceTest {
+
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2020, 7, 2);
+
+    private AvailabilityService availabilityService;
+
+    @BeforeEach
+    void setUp() {
+        ToolService toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
+        toolService.reloadCatalog(
+                List.of(new Tool("LADW", "Ladder", "Werner"), new Tool("JAKR", "Jackhammer", "Ridgid"),
+                        new Tool("JAKD", "Jackhammer", "DeWalt"), new Tool("JAKB", "Jackhammer", "Bosch")),
+                List.of(new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false),
+                        new ToolType("Jackhammer", BigDecimal.valueOf(2.99), true, false, false)));
+        RentalService rentalService = new RentalService();
+        ReflectionTestUtils.setField(rentalService, "pricingMetrics", new PricingMetrics());
+        DateUtil dateUtil = new DateUtil();
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of(new Holiday("closest-weekday", 7, 4)));
+        ReflectionTestUtils.setField(toolService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "toolService", toolService);
+        ReflectionTestUtils.setField(rentalService, "dateFormat", "MM/dd/yy");
+        ReflectionTestUtils.setField(rentalService, "currencyFormat", "$#,##0.00");
+        availabilityService = new AvailabilityService();
+        ReflectionTestUtils.setField(availabilityService, "toolService", toolService);
+        ReflectionTestUtils.setField(availabilityService, "rentalService", rentalService);
+    }
+
+    /**
+     * A reservation should hold the tool from its checkout date up to but not including its due date
+     */
+    @Test
+    void reserveShouldHoldToolUntilDueDate() throws ToolManagementException {
+        Reservation reservation = availabilityService.reserve("ladw", CHECKOUT_DATE, 3);
+        assertEquals(new Reservation("LADW", CHECKOUT_DATE, CHECKOUT_DATE.plusDays(3)), reservation);
+
+        assertFalse(availabilityService.isAvailable("LADW", CHECKOUT_DATE, 1));
+        assertFalse(availabilityService.isAvailable("LADW", CHECKOUT_DATE.minusDays(1), 2));
+        assertFalse(availabilityService.isAvailable("LADW", CHECKOUT_DATE.plusDays(2), 5));
+        assertFalse(availabilityService.isAvailable("LADW", CHECKOUT_DATE.minusDays(5), 20));
+        assertTrue(availabilityService.isAvailable("LADW", CHECKOUT_DATE.minusDays(1), 1));
+        assertTrue(availabilityService.isAvailable("LADW", CHECKOUT_DATE.plusDays(3), 1));
+        assertTrue(availabilityService.isAvailable("JAKR", CHECKOUT_DATE, 3));
+    }
+
+    /**
+     * Reserving a tool for a day it is already out should fail, while the days around it can still be reserved
+     */
+    @Test
+    void reserveShouldFailIfToolIsAlreadyReserved() throws ToolManagementException {
+        availabilityService.reserve("LADW", CHECKOUT_DATE, 3);
+        try {
+            availabilityService.reserve("LADW", CHECKOUT_DATE.plusDays(2), 3);
+            fail("Reserving an overlapping period should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0006, ex.getErrorCode());
+            assertEquals("Tool [LADW] is not available from [07/04/20] until [07/07/20].", ex.getMessage());
+        }
+
+        availabilityService.reserve("LADW", CHECKOUT_DATE.minusDays(2), 2);
+        availabilityService.reserve("LADW", CHECKOUT_DATE.plusDays(3), 2);
+        assertEquals(3, availabilityService.getReservations("LADW", CHECKOUT_DATE.minusDays(10), CHECKOUT_DATE.plusDays(10)).size());
+    }
+
+    /**
+     * Reserving should fail for unknown tools and rental periods shorter than a day
+     */
+    @Test
+    void reserveShouldFailForInvalidToolOrPeriod() {
+        try {
+            availabilityService.reserve("NONE", CHECKOUT_DATE, 3);
+            fail("Reserving an unknown tool should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.TOOL0002, ex.getErrorCode());
+        }
+        try {
+            availabilityService.reserve("LADW", CHECKOUT_DATE, 0);
+            fail("Reserving for zero days should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0001, ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Releasing a reservation should free its days, and only exact reservations should be released
+     */
+    @Test
+    void releaseShouldFreeReservedDays() throws ToolManagementException {
+        Reservation reservation = availabilityService.reserve("LADW", CHECKOUT_DATE, 3);
+        assertFalse(availabilityService.release(new Reservation("LADW", CHECKOUT_DATE, CHECKOUT_DATE.plusDays(2))));
+        assertFalse(availabilityService.release(new Reservation("JAKR", CHECKOUT_DATE, CHECKOUT_DATE.plusDays(3))));
+        assertFalse(availabilityService.isAvailable("LADW", CHECKOUT_DATE, 3));
+
+        assertTrue(availabilityService.release(reservation));
+        assertTrue(availabilityService.isAvailable("LADW", CHECKOUT_DATE, 3));
+        assertFalse(availabilityService.release(reservation));
+    }
+
+    /**
+     * Only reservations that include a day of the requested dates should be found, sorted by checkout date
+     */
+    @Test
+    void getReservationsShouldFindOverlappingReservations() throws ToolManagementException {
+        Reservation second = availabilityService.reserve("LADW", CHECKOUT_DATE.plusDays(10), 5);
+        Reservation first = availabilityService.reserve("LADW", CHECKOUT_DATE, 3);
+        availabilityService.reserve("LADW", CHECKOUT_DATE.plusDays(20), 5);
+
+        assertEquals(List.of(first, second), availabilityService.getReservations("ladw", CHECKOUT_DATE.plusDays(2), CHECKOUT_DATE.plusDays(11)));
+        assertEquals(List.of(second), availabilityService.getReservations("LADW", CHECKOUT_DATE.plusDays(3), CHECKOUT_DATE.plusDays(20)));
+        assertEquals(List.of(), availabilityService.getReservations("LADW", CHECKOUT_DATE.plusDays(15), CHECKOUT_DATE.plusDays(20)));
+        assertEquals(List.of(), availabilityService.getReservations("LADW", CHECKOUT_DATE.plusDays(11), CHECKOUT_DATE));
+        assertEquals(List.of(), availabilityService.getReservations("JAKR", CHECKOUT_DATE, CHECKOUT_DATE.plusDays(30)));
+    }
+
+    /**
+     * Terminals checking out the same tool at the same time should never both reserve the same day
+     */
+    @Test
+    void reserveShouldNeverDoubleBookConcurrently() throws Exception {
+        int threads = 8;
+        int days = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger reservedDays = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int rentalPeriod = t % 3 + 1;
+                futures.add(executor.submit(() -> {
+                    List<Integer> offsets = new ArrayList<>();
+                    for (int i = 0; i < days; i++) {
+                        offsets.add(i);
+                    }
+                    Collections.shuffle(offsets);
+                    start.await();
+                    for (int offset : offsets) {
+                        try {
+                            availabilityService.reserve("LADW", CHECKOUT_DATE.plusDays(offset), rentalPeriod);
+                            reservedDays.addAndGet(rentalPeriod);
+                        } catch (ToolManagementException ex) {
+                            assertEquals(ErrorCode.RENT0006, ex.getErrorCode());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        List<Reservation> reservations = availabilityService.getReservations("LADW", CHECKOUT_DATE, CHECKOUT_DATE.plusDays(days + 3));
+        int countedDays = 0;
+        for (int i = 0; i < reservations.size(); i++) {
+            Reservation reservation = reservations.get(i);
+            countedDays += (int) (reservation.getDueDate().toEpochDay() - reservation.getCheckOutDate().toEpochDay());
+            if (i > 0) assertFalse(reservation.getCheckOutDate().isBefore(reservations.get(i - 1).getDueDate()));
+        }
+        assertEquals(reservedDays.get(), countedDays);
+    }
+
+    /**
+     * Only the tools of the requested type that are free for every day of the rental should be found
+     */
+    @Test
+    void findAvailableToolsShouldOnlyFindFreeToolsOfType() throws ToolManagementException {
+        availabilityService.reserve("JAKR", CHECKOUT_DATE, 3);
+        availabilityService.reserve("JAKB", CHECKOUT_DATE.plusDays(5), 3);
+
+        assertEquals(List.of("JAKD", "JAKB"), toolCodes(availabilityService.findAvailableTools("jackhammer", CHECKOUT_DATE, 5)));
+        assertEquals(List.of("JAKD"), toolCodes(availabilityService.findAvailableTools("Jackhammer", CHECKOUT_DATE, 6)));
+        assertEquals(List.of("JAKR", "JAKD", "JAKB"), toolCodes(availabilityService.findAvailableTools("Jackhammer", CHECKOUT_DATE.plusDays(3), 2)));
+        assertEquals(List.of("LADW"), toolCodes(availabilityService.findAvailableTools("Ladder", CHECKOUT_DATE, 5)));
+        assertEquals(List.of(), availabilityService.findAvailableTools("Chainsaw", CHECKOUT_DATE, 5));
+        try {
+            availabilityService.findAvailableTools("Jackhammer", CHECKOUT_DATE, 0);
+            fail("Searching for zero days should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0001, ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Every available tool should be quoted the same way as quoting it on its own
+     */
+    @Test
+    void quoteAvailableToolsShouldQuoteEachFreeTool() throws ToolManagementException {
+        availabilityService.reserve("JAKD", CHECKOUT_DATE, 3);
+
+        List<RentalAgreement> agreements = availabilityService.quoteAvailableTools("Jackhammer", CHECKOUT_DATE, 4, 50, null);
+        assertEquals(2, agreements.size());
+        assertEquals("JAKR", agreements.get(0).getToolCode());
+        assertEquals("Bosch", agreements.get(1).getToolBrand());
+        assertEquals("$1.49", agreements.get(1).getFormattedFinalCharge());
+        try {
+            availabilityService.quoteAvailableTools("Jackhammer", CHECKOUT_DATE, 4, 101, null);
+            fail("Quoting with an invalid discount should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0004, ex.getErrorCode());
+        }
+    }
+
+    private static List<String> toolCodes(List<ToolInformation> tools) {
+        List<String> codes = new ArrayList<>();
+        for (ToolInformation tool : tools) {
+            codes.add(tool.getToolCode());
+        }
+        return codes;
+    }
+}
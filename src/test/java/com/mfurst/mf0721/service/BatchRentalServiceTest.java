@@ -0,0 +1,195 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.model.RentalRequest;
+import com.mfurst.mf0721.model.RentalResult;
+import com.mfurst.mf0721.model.dto.Holiday;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.DateUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class BatchRentalServiceTest {
+
+    private BatchRentalService batchRentalService;
+
+    private DateUtil dateUtil;
+
+    private ToolService toolService;
+
+    @BeforeEach
+    void setUp() {
+        dateUtil = new DateUtil();
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of(
+                new Holiday("next-monday", 9, 1),
+                new Holiday("closest-weekday", 7, 4)
+        ));
+        ReflectionTestUtils.setField(dateUtil, "holidayRegions", Map.of("west", List.of()));
+
+        RentalService rentalService = new RentalService();
+        ReflectionTestUtils.setField(rentalService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(rentalService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "dateFormat", "MM/dd/yy");
+        ReflectionTestUtils.setField(rentalService, "currencyFormat", "$#,##0.00");
+
+        toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(toolService, "tools", List.of(
+                new Tool("LADW", "Ladder", "Werner"),
+                new Tool("JAKR", "Jackhammer", "Ridgid")
+        ));
+        ReflectionTestUtils.setField(toolService, "toolTypes", List.of(
+                new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false),
+                new ToolType("Jackhammer", BigDecimal.valueOf(2.99), true, false, false)
+        ));
+
+        ReflectionTestUtils.setField(toolService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "toolService", toolService);
+
+        batchRentalService = new BatchRentalService();
+        ReflectionTestUtils.setField(batchRentalService, "toolService", toolService);
+        ReflectionTestUtils.setField(batchRentalService, "rentalService", rentalService);
+        ReflectionTestUtils.setField(batchRentalService, "parallelism", 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchRentalService.shutdown();
+    }
+
+    /**
+     * A valid request should generate the same agreement as the command line interface
+     */
+    @Test
+    void quoteShouldGenerateAgreementForValidRequest() {
+        RentalResult result = batchRentalService.quote(new RentalRequest("LADW", "07/02/20", 3, 10));
+        assertTrue(result.isSuccessful());
+        assertEquals("07/05/20", result.getAgreement().getFormattedDueDate());
+        assertEquals(2, result.getAgreement().getChargeDays());
+        assertEquals("$3.58", result.getAgreement().getFormattedFinalCharge());
+    }
+
+    /**
+     * Requests with a holiday region should be priced with the holidays of that region
+     */
+    @Test
+    void quoteShouldUseHolidayRegion() {
+        //West has no holidays, so Independence day is charged
+        RentalResult result = batchRentalService.quote(new RentalRequest("LADW", "07/02/20", 3, 10, "west"));
+        assertTrue(result.isSuccessful());
+        assertEquals(3, result.getAgreement().getChargeDays());
+        assertEquals("$5.37", result.getAgreement().getFormattedFinalCharge());
+
+        assertEquals(ErrorCode.DATE0002, batchRentalService.quote(new RentalRequest("LADW", "07/02/20", 3, 10, "north"))
+                .getError().getErrorCode());
+    }
+
+    /**
+     * Every validation should report its own error code
+     */
+    @Test
+    void quoteShouldReportErrorCodeForInvalidRequests() {
+        assertEquals(ErrorCode.TOOL0001, batchRentalService.quote(new RentalRequest(null, "07/02/20", 3, 10)).getError().getErrorCode());
+        assertEquals(ErrorCode.TOOL0002, batchRentalService.quote(new RentalRequest("LADR", "07/02/20", 3, 10)).getError().getErrorCode());
+        assertEquals(ErrorCode.RENT0002, batchRentalService.quote(new RentalRequest("LADW", "2020-07-02", 3, 10)).getError().getErrorCode());
+        assertEquals(ErrorCode.RENT0002, batchRentalService.quote(new RentalRequest("LADW", null, 3, 10)).getError().getErrorCode());
+        assertEquals(ErrorCode.RENT0001, batchRentalService.quote(new RentalRequest("LADW", "07/02/20", 0, 10)).getError().getErrorCode());
+        assertEquals(ErrorCode.RENT0003, batchRentalService.quote(new RentalRequest("LADW", "07/02/20", 3, -1)).getError().getErrorCode());
+        assertEquals(ErrorCode.RENT0004, batchRentalService.quote(new RentalRequest("LADW", "07/02/20", 3, 101)).getError().getErrorCode());
+    }
+
+    /**
+     * Results of a large batch should be in the same order as the requests,
+     * with failures in place of the requests that failed
+     */
+    @Test
+    void quoteAllShouldPreserveRequestOrder() {
+        List<RentalRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            requests.add(i % 10 == 0
+                    ? new RentalRequest("NONE", "07/02/20", 1, 0)
+                    : new RentalRequest(i % 2 == 0 ? "LADW" : "JAKR", "07/02/20", 1 + i % 30, i % 101));
+        }
+
+        List<RentalResult> results = batchRentalService.quoteAll(requests);
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); i++) {
+            RentalRequest request = requests.get(i);
+            RentalResult result = results.get(i);
+            if (i % 10 == 0) {
+                assertFalse(result.isSuccessful());
+                assertEquals(ErrorCode.TOOL0002, result.getError().getErrorCode());
+            } else {
+                assertEquals(batchRentalService.quote(request), result);
+                assertEquals(request.getToolCode(), result.getAgreement().getToolCode());
+                assertEquals(request.getRentalPeriod(), result.getAgreement().getAmountOfRentalDays());
+                assertEquals(request.getDiscountPercentage(), result.getAgreement().getDiscountPercent());
+            }
+        }
+    }
+
+    /**
+     * A missing request or an unexpected exception while pricing should only fail its own result
+     */
+    @Test
+    void quoteAllShouldIsolateUnexpectedFailures() {
+        RentalService failingRentalService = new RentalService() {
+            @Override
+            public LocalDate tryParseRentalDate(String rentalDateString) {
+                if ("02/30/21".equals(rentalDateString)) throw new DateTimeException("Invalid date 'FEBRUARY 30'");
+                return super.tryParseRentalDate(rentalDateString);
+            }
+        };
+        ReflectionTestUtils.setField(failingRentalService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(failingRentalService, "toolService", toolService);
+        ReflectionTestUtils.setField(failingRentalService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(failingRentalService, "dateFormat", "MM/dd/yy");
+        ReflectionTestUtils.setField(failingRentalService, "currencyFormat", "$#,##0.00");
+        ReflectionTestUtils.setField(batchRentalService, "rentalService", failingRentalService);
+
+        List<RentalRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            requests.add(new RentalRequest("LADW", "07/02/20", 3, 10));
+        }
+        requests.set(17, null);
+        requests.set(42, new RentalRequest("LADW", "02/30/21", 3, 10));
+
+        List<RentalResult> results = batchRentalService.quoteAll(requests);
+        assertEquals(requests.size(), results.size());
+        for (int i = 0; i < requests.size(); i++) {
+            RentalResult result = results.get(i);
+            if (i == 17) {
+                assertEquals(ErrorCode.BULK0001, result.getError().getErrorCode());
+            } else if (i == 42) {
+                assertEquals(ErrorCode.BULK0002, result.getError().getErrorCode());
+                assertTrue(result.getError().getMessage().contains("FEBRUARY 30"));
+            } else {
+                assertTrue(result.isSuccessful());
+                assertEquals("$3.58", result.getAgreement().getFormattedFinalCharge());
+            }
+        }
+    }
+
+    /**
+     * An empty batch should return no results
+     */
+    @Test
+    void quoteAllShouldHandleEmptyBatch() {
+        assertTrue(batchRentalService.quoteAll(List.of()).isEmpty());
+    }
+}
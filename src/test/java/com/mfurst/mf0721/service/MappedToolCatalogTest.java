@@ -0,0 +1,208 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.CentsCalculator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class MappedToolCatalogTest {
+
+    private static final ToolType LADDER = new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false);
+    private static final ToolType CHAINSAW = new ToolType("Chainsaw", new BigDecimal("1.490"), true, false, true);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Tool codes and tool types should be matched ignoring case, with the tool types read back unchanged
+     */
+    @Test
+    void findShouldIgnoreCase() throws IOException {
+        MappedToolCatalog catalog = writeAndOpen(
+                List.of(new Tool("LADW", "ladder", "Werner"), new Tool("chns", "CHAINSAW", "Stihl")),
+                List.of(LADDER, CHAINSAW));
+        try {
+            assertEquals(new ToolInformation("LADW", "Werner", LADDER), catalog.find("ladw"));
+            assertEquals(new ToolInformation("chns", "Stihl", CHAINSAW), catalog.find("ChNs"));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * The daily charge of each tool type should be converted to cents when the file is opened
+     */
+    @Test
+    void getDailyChargeCentsShouldConvertEachToolType() throws IOException {
+        ToolType fractionalCents = new ToolType("Drill", new BigDecimal("0.995"), true, true, true);
+        MappedToolCatalog catalog = writeAndOpen(
+                List.of(new Tool("chns", "Chainsaw", "Stihl"), new Tool("DRLB", "Drill", "Bosch")),
+                List.of(CHAINSAW, fractionalCents));
+        try {
+            assertEquals(149, catalog.getDailyChargeCents(catalog.find("CHNS").getToolType()));
+            assertEquals(CentsCalculator.NOT_REPRESENTABLE, catalog.getDailyChargeCents(catalog.find("DRLB").getToolType()));
+            assertEquals(149, catalog.getDailyChargeCents(catalog.findAllOfType("chainsaw").get(0).getToolType()));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * When codes or types are repeated the first one should be used
+     */
+    @Test
+    void findShouldUseFirstMatchingToolAndType() throws IOException {
+        ToolType otherLadder = new ToolType("LADDER", BigDecimal.ONE, false, false, false);
+        MappedToolCatalog catalog = writeAndOpen(
+                List.of(new Tool("LADW", "Ladder", "Werner"), new Tool("ladw", "Ladder", "Other")),
+                List.of(LADDER, otherLadder));
+        try {
+            assertEquals(1, catalog.size());
+            ToolInformation information = catalog.find("LADW");
+            assertEquals("Werner", information.getToolBrand());
+            assertEquals(LADDER, information.getToolType());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Unknown codes and tools without a type should fail with the requested code
+     */
+    @Test
+    void findShouldFailForUnknownCodeOrMissingType() throws IOException {
+        MappedToolCatalog catalog = writeAndOpen(List.of(new Tool("JAKR", "Jackhammer", "Ridgid")), null);
+        try {
+            catalog.find("LADW");
+            fail("Unknown codes should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.TOOL0002, ex.getErrorCode());
+            assertEquals("Provided tool code [LADW] is not valid.", ex.getMessage());
+        }
+        try {
+            catalog.find("jakr");
+            fail("Tools without a type should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.TOOL0003, ex.getErrorCode());
+            assertEquals("Tool with code [jakr] does not have a valid type.", ex.getMessage());
+        }
+    }
+
+    /**
+     * Every tool in a large catalog should be found, the same as the in-memory index
+     */
+    @Test
+    void findShouldMatchIndexForLargeCatalogs() throws IOException {
+        List<Tool> tools = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            tools.add(new Tool(String.format("T%05d", i), i % 2 == 0 ? "Ladder" : "Chainsaw", "Brand" + i));
+        }
+        ToolCatalogIndex index = new ToolCatalogIndex(tools, List.of(LADDER, CHAINSAW));
+        MappedToolCatalog catalog = writeAndOpen(tools, List.of(LADDER, CHAINSAW));
+        try {
+            assertEquals(index.size(), catalog.size());
+            for (int i = 0; i < 50_000; i++) {
+                String code = String.format("t%05d", i);
+                assertEquals(index.find(code), catalog.find(code));
+            }
+            catalog.find("T50000");
+            fail("Unknown codes should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.TOOL0002, ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Missing files and files that are not catalogs should not open
+     */
+    @Test
+    void openShouldFailForInvalidFiles() throws IOException {
+        try {
+            MappedToolCatalog.open(directory.resolve("missing.bin"));
+            fail("Missing files should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.CONF0001, ex.getErrorCode());
+            assertTrue(ex.getCause() instanceof IOException);
+        }
+        for (String content : List.of("", "not a tool catalog")) {
+            Path file = Files.writeString(directory.resolve("invalid.bin"), content);
+            try {
+                MappedToolCatalog.open(file);
+                fail("Files that are not catalogs should fail");
+            } catch (ToolManagementException ex) {
+                assertEquals(ErrorCode.CONF0001, ex.getErrorCode());
+            }
+        }
+    }
+
+    /**
+     * The tool service should find tools in an exported catalog until the tools are reloaded
+     */
+    @Test
+    void toolServiceShouldUseCatalogFile() throws IOException {
+        ToolService toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(toolService, "tools", List.of(new Tool("LADW", "Ladder", "Werner")));
+        ReflectionTestUtils.setField(toolService, "toolTypes", List.of(LADDER));
+        Path file = directory.resolve("catalog.bin");
+        try {
+            toolService.exportCatalog(file);
+            toolService.reloadCatalog(List.of(new Tool("CHNS", "Chainsaw", "Stihl")), List.of(CHAINSAW));
+            toolService.reloadCatalog(file);
+            assertEquals("Werner", toolService.getToolByCode("ladw").getToolBrand());
+
+            toolService.reloadCatalog(List.of(new Tool("CHNS", "Chainsaw", "Stihl")), List.of(CHAINSAW));
+            assertEquals("Stihl", toolService.getToolByCode("chns").getToolBrand());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Tools of a type should be listed the same as the in-memory index lists them
+     */
+    @Test
+    void findAllOfTypeShouldMatchIndex() throws IOException {
+        List<Tool> tools = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            tools.add(new Tool(String.format("T%04d", i), i % 3 == 0 ? "ladder" : i % 3 == 1 ? "Chainsaw" : "Jackhammer", "Brand" + i));
+        }
+        tools.add(new Tool("t0001", "Chainsaw", "Repeated"));
+        MappedToolCatalog catalog = writeAndOpen(tools, List.of(LADDER, CHAINSAW));
+        ToolCatalogIndex index = new ToolCatalogIndex(tools, List.of(LADDER, CHAINSAW));
+
+        assertEquals(334, catalog.findAllOfType("LADDER").size());
+        assertEquals(index.findAllOfType("Ladder"), catalog.findAllOfType("LADDER"));
+        assertEquals(index.findAllOfType("chainsaw"), catalog.findAllOfType("chainsaw"));
+        assertEquals(List.of(), catalog.findAllOfType("Jackhammer"));
+        assertEquals(List.of(), catalog.findAllOfType(null));
+    }
+
+    private MappedToolCatalog writeAndOpen(List<Tool> tools, List<ToolType> toolTypes) throws IOException {
+        Path file = directory.resolve("catalog.bin");
+        MappedToolCatalog.write(file, tools, toolTypes);
+        try {
+            return MappedToolCatalog.open(file);
+        } catch (ToolManagementException ex) {
+            return fail(ex.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,138 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ErrorMetrics;
+import com.mfurst.mf0721.model.LatencyMetrics;
+import com.mfurst.mf0721.model.MetricsSnapshot;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.DateUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class PricingMetricsTest {
+
+    private PricingMetrics pricingMetrics;
+
+    private ToolService toolService;
+
+    private RentalService rentalService;
+
+    @BeforeEach
+    void setUp() {
+        pricingMetrics = new PricingMetrics();
+        ReflectionTestUtils.setField(pricingMetrics, "latencySampleRate", 1);
+
+        toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", pricingMetrics);
+        toolService.reloadCatalog(List.of(new Tool("LADW", "Ladder", "Werner")),
+                List.of(new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false)));
+
+        DateUtil dateUtil = new DateUtil();
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of());
+        ReflectionTestUtils.setField(toolService, "dateUtil", dateUtil);
+        rentalService = new RentalService();
+        ReflectionTestUtils.setField(rentalService, "pricingMetrics", pricingMetrics);
+        ReflectionTestUtils.setField(rentalService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "toolService", toolService);
+        ReflectionTestUtils.setField(rentalService, "dateFormat", "MM/dd/yy");
+        ReflectionTestUtils.setField(rentalService, "currencyFormat", "$#,##0.00");
+    }
+
+    /**
+     * Successful operations should be recorded by tool type and failures by error code
+     */
+    @Test
+    void snapshotShouldReportOperationsByToolTypeAndErrorCode() {
+        try {
+            ToolInformation ladder = toolService.getToolByCode("LADW");
+            LocalDate checkoutDate = rentalService.parseRentalDate("07/02/20");
+            rentalService.calculateRentalAgreement(ladder, checkoutDate, 3, 10);
+            rentalService.calculateRawRentalAgreement(ladder, checkoutDate, 3, 10);
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+        for (String toolCode : new String[]{"NONE", "NONE", ""}) {
+            try {
+                toolService.getToolByCode(toolCode);
+                fail("Unknown tools should fail");
+            } catch (ToolManagementException ex) {
+                //Expected
+            }
+        }
+
+        MetricsSnapshot snapshot = pricingMetrics.snapshot();
+        assertEquals(List.of("tool_lookup/Ladder/1", "date_parse//1", "charge_days/Ladder/2", "agreement/Ladder/2"),
+                snapshot.getLatencies().stream()
+                        .map(latency -> latency.getOperation() + "/" + latency.getToolType() + "/" + latency.getCount())
+                        .collect(Collectors.toList()));
+        for (LatencyMetrics latency : snapshot.getLatencies()) {
+            assertEquals(latency.getCount(), latency.getSampleCount());
+            assertTrue(latency.getMaxNanos() >= latency.getP50Nanos());
+            assertTrue(latency.getSampleTotalNanos() >= latency.getMaxNanos());
+        }
+        assertEquals(List.of(
+                new ErrorMetrics("tool_lookup", ErrorCode.TOOL0001.name(), 1),
+                new ErrorMetrics("tool_lookup", ErrorCode.TOOL0002.name(), 2)
+        ), snapshot.getErrors());
+    }
+
+    /**
+     * Metrics should be written in the Prometheus text format
+     */
+    @Test
+    void toPrometheusTextShouldWriteSummariesAndCounters() {
+        pricingMetrics.recordSuccess(PricingMetrics.Operation.TOOL_LOOKUP, "Ladder \"XL\"", pricingMetrics.start());
+        pricingMetrics.recordFailure(PricingMetrics.Operation.DATE_PARSE, ErrorCode.RENT0002);
+
+        String text = pricingMetrics.toPrometheusText();
+        assertTrue(text.contains("mf0721_operations_total{operation=\"tool_lookup\",tool_type=\"Ladder \\\"XL\\\"\"} 1\n"));
+        assertTrue(text.contains("# TYPE mf0721_operation_latency_seconds summary\n"));
+        assertTrue(text.contains("mf0721_operation_latency_seconds{operation=\"tool_lookup\",tool_type=\"Ladder \\\"XL\\\"\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("mf0721_operation_latency_seconds_count{operation=\"tool_lookup\",tool_type=\"Ladder \\\"XL\\\"\"} 1\n"));
+        assertTrue(text.contains("# TYPE mf0721_operation_errors_total counter\n"));
+        assertTrue(text.contains("mf0721_operation_errors_total{operation=\"date_parse\",error_code=\"RENT0002\"} 1\n"));
+    }
+
+    /**
+     * Every operation should be counted but only a sample of them timed
+     */
+    @Test
+    void sampledMetricsShouldCountEveryOperation() {
+        ReflectionTestUtils.setField(pricingMetrics, "latencySampleRate", 16);
+        for (int i = 0; i < 16_000; i++) {
+            pricingMetrics.recordSuccess(PricingMetrics.Operation.AGREEMENT, "Ladder", pricingMetrics.start());
+        }
+
+        LatencyMetrics latency = pricingMetrics.snapshot().getLatencies().get(0);
+        assertEquals(16_000, latency.getCount());
+        //One in 16 on average
+        assertTrue(latency.getSampleCount() > 500 && latency.getSampleCount() < 1_500, "Sampled " + latency.getSampleCount());
+    }
+
+    /**
+     * Nothing should be recorded when metrics are disabled
+     */
+    @Test
+    void disabledMetricsShouldNotRecord() {
+        ReflectionTestUtils.setField(pricingMetrics, "enabled", false);
+        pricingMetrics.recordSuccess(PricingMetrics.Operation.AGREEMENT, "Ladder", pricingMetrics.start());
+        pricingMetrics.recordFailure(PricingMetrics.Operation.AGREEMENT, ErrorCode.RENT0005);
+
+        assertTrue(pricingMetrics.snapshot().getLatencies().isEmpty());
+        assertTrue(pricingMetrics.snapshot().getErrors().isEmpty());
+    }
+}
@@ -0,0 +1,109 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RentalAgreement;
+import com.mfurst.mf0721.model.dto.Holiday;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.HolidayCalendar;
+import com.mfurst.mf0721.util.RentalFormatter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class QuoteCacheTest {
+
+    private static final LocalDate CHECKOUT_DATE = LocalDate.of(2020, 7, 2);
+
+    private final ToolType ladder = new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false);
+
+    private final RentalAgreement agreement = RentalAgreement.builder().toolType("Ladder").chargeDays(2).build();
+
+    private final RentalFormatter formatter = new RentalFormatter("MM/dd/yy", "$#,##0.00");
+
+    private HolidayCalendar calendar;
+
+    @BeforeEach
+    void setUp() throws ToolManagementException {
+        calendar = new HolidayCalendar(List.of(new Holiday("closest-weekday", 7, 4)));
+    }
+
+    /**
+     * Agreements should only be found for the same tool type fields, dates, period and discount
+     */
+    @Test
+    void getShouldMatchEveryKeyField() {
+        QuoteCache cache = new QuoteCache(100, 0);
+        cache.put(ladder, CHECKOUT_DATE, 3, 10, null, calendar, formatter, agreement);
+
+        ToolType sameLadder = new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false);
+        assertSame(agreement, cache.get(sameLadder, CHECKOUT_DATE, 3, 10, null, calendar, formatter));
+        assertNull(cache.get(new ToolType("Ladder", BigDecimal.valueOf(2.99), true, true, false),
+                CHECKOUT_DATE, 3, 10, null, calendar, formatter));
+        assertNull(cache.get(new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, true),
+                CHECKOUT_DATE, 3, 10, null, calendar, formatter));
+        assertNull(cache.get(ladder, CHECKOUT_DATE.plusDays(1), 3, 10, null, calendar, formatter));
+        assertNull(cache.get(ladder, CHECKOUT_DATE, 4, 10, null, calendar, formatter));
+        assertNull(cache.get(ladder, CHECKOUT_DATE, 3, 20, null, calendar, formatter));
+        assertNull(cache.get(ladder, CHECKOUT_DATE, 3, 10, "east", calendar, formatter));
+        assertEquals(1, cache.getStats().hitCount());
+        assertEquals(6, cache.getStats().missCount());
+    }
+
+    /**
+     * Changing a tool type after it was cached should not change the cached key
+     */
+    @Test
+    void getShouldNotMatchChangedToolType() {
+        QuoteCache cache = new QuoteCache(100, 0);
+        ToolType changing = new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false);
+        cache.put(changing, CHECKOUT_DATE, 3, 10, null, calendar, formatter, agreement);
+        changing.setCharge(BigDecimal.valueOf(2.49));
+
+        assertNull(cache.get(changing, CHECKOUT_DATE, 3, 10, null, calendar, formatter));
+        assertSame(agreement, cache.get(ladder, CHECKOUT_DATE, 3, 10, null, calendar, formatter));
+    }
+
+    /**
+     * A different holiday calendar or formatter should miss and drop only the entry it was looked up for
+     */
+    @Test
+    void getShouldMissForNewCalendarOrFormatter() throws ToolManagementException {
+        QuoteCache cache = new QuoteCache(100, 0);
+        cache.put(ladder, CHECKOUT_DATE, 3, 10, null, calendar, formatter, agreement);
+        cache.put(ladder, CHECKOUT_DATE, 4, 10, null, calendar, formatter, agreement);
+
+        HolidayCalendar newCalendar = new HolidayCalendar(List.of(new Holiday("next-monday", 9, 1)));
+        assertNull(cache.get(ladder, CHECKOUT_DATE, 3, 10, null, newCalendar, formatter));
+        assertNull(cache.get(ladder, CHECKOUT_DATE, 3, 10, null, calendar, formatter));
+        //Quotes that still use the previous calendar keep their other entries
+        assertSame(agreement, cache.get(ladder, CHECKOUT_DATE, 4, 10, null, calendar, formatter));
+
+        cache.put(ladder, CHECKOUT_DATE, 3, 10, null, calendar, formatter, agreement);
+        assertNull(cache.get(ladder, CHECKOUT_DATE, 3, 10, null, calendar,
+                new RentalFormatter("MM/dd/yyyy", "$#,##0.00")));
+    }
+
+    /**
+     * The cache should evict agreements once it holds more than its maximum size
+     */
+    @Test
+    void putShouldEvictPastMaximumSize() {
+        //Evict on this thread so the counts are complete once the puts return
+        QuoteCache cache = new QuoteCache(10, 0, Runnable::run);
+        for (int days = 1; days <= 100; days++) {
+            cache.put(ladder, CHECKOUT_DATE, days, 0, null, calendar, formatter, agreement);
+        }
+        cache.cleanUp();
+
+        assertTrue(cache.size() <= 10);
+        assertTrue(cache.getStats().evictionCount() >= 90);
+    }
+}
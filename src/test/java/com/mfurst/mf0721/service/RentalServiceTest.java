@@ -2,6 +2,7 @@ package com.mfurst.mf0721.service;
 
 import com.mfurst.mf0721.exception.ErrorCode;
 import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.RawRentalAgreement;
 import com.mfurst.mf0721.model.RentalAgreement;
 import com.mfurst.mf0721.model.ToolInformation;
 import com.mfurst.mf0721.model.dto.Holiday;
@@ -15,6 +16,8 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,8 +37,14 @@ class RentalServiceTest {
                 new Holiday("closest-weekday", 7, 4)
         ));
 
+        ToolService toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
+        ReflectionTestUtils.setField(toolService, "dateUtil", dateUtil);
+
         rentalService = new RentalService();
+        ReflectionTestUtils.setField(rentalService, "pricingMetrics", new PricingMetrics());
         ReflectionTestUtils.setField(rentalService, "dateUtil", dateUtil);
+        ReflectionTestUtils.setField(rentalService, "toolService", toolService);
         ReflectionTestUtils.setField(rentalService, "dateFormat", "MM/dd/yy");
         ReflectionTestUtils.setField(rentalService, "currencyFormat", "$#,##0.00");
     }
@@ -206,6 +215,38 @@ class RentalServiceTest {
         }
     }
 
+    /**
+     * Validation failures should share one exception per error code without a stack trace,
+     * while other errors keep theirs
+     */
+    @Test
+    void validationFailuresShouldNotCaptureStackTraces() {
+        ToolManagementException first = assertThrows(ToolManagementException.class, () -> rentalService.parseRentalDate("010101"));
+        ToolManagementException second = assertThrows(ToolManagementException.class, () -> rentalService.parseRentalDate(null));
+        assertSame(first, second);
+        assertEquals(0, first.getStackTrace().length);
+        assertEquals(ErrorCode.RENT0002.getMessage(), first.getMessage());
+
+        ToolManagementException discount = assertThrows(ToolManagementException.class,
+                () -> rentalService.validateDiscountPercentage(101));
+        assertSame(ToolManagementException.of(ErrorCode.RENT0004), discount);
+        assertTrue(new ToolManagementException(ErrorCode.TOOL0002, "NONE").getStackTrace().length > 0);
+    }
+
+    /**
+     * Checks should return the same error codes as validation without throwing
+     */
+    @Test
+    void checksShouldReturnErrorCodes() {
+        assertEquals(ErrorCode.RENT0001, rentalService.checkRentalDays(0));
+        assertNull(rentalService.checkRentalDays(1));
+        assertEquals(ErrorCode.RENT0003, rentalService.checkDiscountPercentage(-1));
+        assertEquals(ErrorCode.RENT0004, rentalService.checkDiscountPercentage(101));
+        assertNull(rentalService.checkDiscountPercentage(100));
+        assertNull(rentalService.tryParseRentalDate("2001-01-01"));
+        assertEquals(LocalDate.of(2001, 1, 1), rentalService.tryParseRentalDate("01/01/01"));
+    }
+
     /**
      * Test that correctly formatted dates parse correctly
      */
@@ -354,4 +395,253 @@ class RentalServiceTest {
             fail(ex.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Test that rental agreements are properly calculated
+     * when the daily charge has fractions of a cent
+     */
+    @Test
+    void calculateRentalAgreementWhenChargeHasFractionsOfACent() {
+        try {
+            RentalAgreement expected = RentalAgreement.builder()
+                    .amountOfRentalDays(3)
+                    .chargeDays(3)
+                    .discountPercent(15)
+                    .formattedCheckOutDate("07/01/21")
+                    .formattedDailyChargeAmount("$2.00")
+                    .formattedDiscountAmount("$0.90")
+                    .formattedFinalCharge("$5.09")
+                    .formattedDueDate("07/04/21")
+                    .formattedPreDiscountCharge("$5.99")
+                    .toolBrand("Werner")
+                    .toolCode("LADW")
+                    .toolType("Ladder")
+                    .build();
+            RentalAgreement actual = rentalService.calculateRentalAgreement(
+                    new ToolInformation("LADW", "Werner",
+                            new ToolType(
+                                "Ladder", new BigDecimal("1.995"), true, true, true
+                            )),
+                    LocalDate.of(2021, 7, 1), 3, 15
+            );
+            assertEquals(expected, actual);
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Test that cached rental agreements are shared by tools of the same type
+     * and repriced when the holidays change
+     */
+    @Test
+    void calculateRentalAgreementWithQuoteCache() {
+        ReflectionTestUtils.setField(rentalService, "quoteCacheMaximumSize", 100L);
+        ToolType ladder = new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false);
+        try {
+            RentalAgreement first = rentalService.calculateRentalAgreement(
+                    new ToolInformation("LADW", "Werner", ladder), LocalDate.of(2020, 7, 2), 3, 10);
+            RentalAgreement second = rentalService.calculateRentalAgreement(
+                    new ToolInformation("LADL", "Louisville", ladder), LocalDate.of(2020, 7, 2), 3, 10);
+            assertEquals("LADW", first.getToolCode());
+            assertEquals("Werner", first.getToolBrand());
+            assertEquals("LADL", second.getToolCode());
+            assertEquals("Louisville", second.getToolBrand());
+            assertEquals(2, second.getChargeDays());
+            assertEquals("$3.58", second.getFormattedFinalCharge());
+            assertEquals(1, rentalService.getQuoteCacheStats().hitCount());
+            assertEquals(1, rentalService.getQuoteCacheStats().missCount());
+
+            //Without July 4th every day of the rental is charged
+            ReflectionTestUtils.setField(dateUtil, "holidays", List.of(new Holiday("next-monday", 9, 1)));
+            RentalAgreement third = rentalService.calculateRentalAgreement(
+                    new ToolInformation("LADW", "Werner", ladder), LocalDate.of(2020, 7, 2), 3, 10);
+            assertEquals(3, third.getChargeDays());
+            assertEquals("$5.37", third.getFormattedFinalCharge());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Test that raw rental agreements hold epoch days and cents, and format the same as rental agreements
+     */
+    @Test
+    void calculateRawRentalAgreement() {
+        ToolInformation ladder = new ToolInformation("LADW", "Werner",
+                new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false));
+        ToolInformation fractionalLadder = new ToolInformation("LADW", "Werner",
+                new ToolType("Ladder", new BigDecimal("1.995"), true, true, true));
+        try {
+            RawRentalAgreement raw = rentalService.calculateRawRentalAgreement(ladder, LocalDate.of(2020, 7, 2), 3, 10);
+            assertEquals(LocalDate.of(2020, 7, 2).toEpochDay(), raw.getCheckOutEpochDay());
+            assertEquals(LocalDate.of(2020, 7, 5).toEpochDay(), raw.getDueEpochDay());
+            assertEquals(2, raw.getChargeDays());
+            assertEquals(398, raw.getPreDiscountChargeCents());
+            assertEquals(40, raw.getDiscountAmountCents());
+            assertEquals(358, raw.getFinalChargeCents());
+            assertEquals(rentalService.calculateRentalAgreement(ladder, LocalDate.of(2020, 7, 2), 3, 10),
+                    rentalService.formatRentalAgreement(raw));
+
+            RawRentalAgreement fractionalRaw = rentalService.calculateRawRentalAgreement(
+                    fractionalLadder, LocalDate.of(2021, 7, 1), 3, 15);
+            assertEquals(599, fractionalRaw.getPreDiscountChargeCents());
+            assertEquals(90, fractionalRaw.getDiscountAmountCents());
+            assertEquals(509, fractionalRaw.getFinalChargeCents());
+            assertEquals(rentalService.calculateRentalAgreement(fractionalLadder, LocalDate.of(2021, 7, 1), 3, 15),
+                    rentalService.formatRentalAgreement(fractionalRaw));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Test that raw rental agreements fail when the charges do not fit in cents
+     */
+    @Test
+    void calculateRawRentalAgreementShouldFailForChargesTooLargeForCents() {
+        ToolInformation expensive = new ToolInformation("LADW", "Werner",
+                new ToolType("Ladder", new BigDecimal("1E+20"), true, true, true));
+        try {
+            rentalService.calculateRawRentalAgreement(expensive, LocalDate.of(2020, 7, 2), 3, 10);
+            fail("Charges too large for cents should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0005, ex.getErrorCode());
+        }
+        try {
+            RentalAgreement agreement = rentalService.calculateRentalAgreement(expensive, LocalDate.of(2020, 7, 2), 3, 10);
+            assertEquals("$300,000,000,000,000,000,000.00", agreement.getFormattedPreDiscountCharge());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Agreements for a range of rental periods should be the same as pricing each period on its own
+     */
+    @Test
+    void calculateRentalAgreementsShouldMatchEachAgreement() {
+        List<ToolInformation> tools = List.of(
+                new ToolInformation("LADW", "Werner", new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false)),
+                new ToolInformation("CHNS", "Stihl", new ToolType("Chainsaw", BigDecimal.valueOf(1.49), true, false, true)),
+                new ToolInformation("JAKR", "Ridgid", new ToolType("Jackhammer", BigDecimal.valueOf(2.99), true, false, false)),
+                new ToolInformation("FRAC", "Acme", new ToolType("Fractional", new BigDecimal("0.125"), true, true, true)));
+        try {
+            for (ToolInformation tool : tools) {
+                for (LocalDate checkout = LocalDate.of(2020, 6, 28); checkout.isBefore(LocalDate.of(2020, 9, 10)); checkout = checkout.plusDays(4)) {
+                    List<RentalAgreement> agreements = rentalService.calculateRentalAgreements(tool, checkout, 3, 40, 15, null);
+                    assertEquals(38, agreements.size());
+                    for (int period = 3; period <= 40; period++) {
+                        assertEquals(rentalService.calculateRentalAgreement(tool, checkout, period, 15), agreements.get(period - 3));
+                    }
+                }
+            }
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Ranges of rental periods should be validated, and a range that ends before it starts should be empty
+     */
+    @Test
+    void calculateRentalAgreementsShouldValidateRange() {
+        ToolInformation ladder = new ToolInformation("LADW", "Werner", new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false));
+        LocalDate checkout = LocalDate.of(2020, 7, 2);
+        try {
+            assertEquals(List.of(), rentalService.calculateRentalAgreements(ladder, checkout, 5, 4, 0, null));
+            assertEquals(RentalService.MAX_QUOTED_RENTAL_PERIODS,
+                    rentalService.calculateRentalAgreements(ladder, checkout, 1, RentalService.MAX_QUOTED_RENTAL_PERIODS, 0, null).size());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+        try {
+            rentalService.calculateRentalAgreements(ladder, checkout, 0, 30, 0, null);
+            fail("Rental periods below one day should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0001, ex.getErrorCode());
+        }
+        try {
+            rentalService.calculateRentalAgreements(ladder, checkout, 1, 30, 101, null);
+            fail("Invalid discounts should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0004, ex.getErrorCode());
+        }
+        try {
+            rentalService.calculateRentalAgreements(ladder, checkout, 1, Integer.MAX_VALUE, 0, null);
+            fail("Too many rental periods should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0007, ex.getErrorCode());
+            assertEquals("At most 1000 rental periods can be priced at once.", ex.getMessage());
+        }
+    }
+
+    /**
+     * The cheapest checkout dates should be ranked by final charge, then by date, and priced the same as each agreement
+     */
+    @Test
+    void findCheapestCheckoutDatesShouldRankEveryCheckoutDate() {
+        List<ToolInformation> tools = List.of(
+                new ToolInformation("LADW", "Werner", new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false)),
+                new ToolInformation("CHNS", "Stihl", new ToolType("Chainsaw", BigDecimal.valueOf(1.49), true, false, true)),
+                new ToolInformation("JAKR", "Ridgid", new ToolType("Jackhammer", BigDecimal.valueOf(2.99), true, false, false)));
+        LocalDate earliest = LocalDate.of(2020, 6, 20);
+        LocalDate latest = LocalDate.of(2020, 9, 20);
+        try {
+            for (ToolInformation tool : tools) {
+                for (int period : new int[]{1, 3, 10}) {
+                    List<RentalAgreement> expected = new ArrayList<>();
+                    for (LocalDate checkout = earliest; !checkout.isAfter(latest); checkout = checkout.plusDays(1)) {
+                        expected.add(rentalService.calculateRentalAgreement(tool, checkout, period, 10));
+                    }
+                    //Sorting is stable, so dates that cost the same stay in order
+                    expected.sort(Comparator.comparing(agreement -> new BigDecimal(
+                            agreement.getFormattedFinalCharge().replaceAll("[$,]", ""))));
+
+                    assertEquals(expected.subList(0, 5),
+                            rentalService.findCheapestCheckoutDates(tool, earliest, latest, period, 10, null, 5));
+                    assertEquals(expected,
+                            rentalService.findCheapestCheckoutDates(tool, earliest, latest, period, 10, null, Integer.MAX_VALUE));
+                }
+            }
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Ranges of checkout dates should be validated, and a range that ends before it starts should be empty
+     */
+    @Test
+    void findCheapestCheckoutDatesShouldValidateRange() {
+        ToolInformation ladder = new ToolInformation("LADW", "Werner", new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false));
+        LocalDate checkout = LocalDate.of(2020, 7, 2);
+        try {
+            assertEquals(List.of(), rentalService.findCheapestCheckoutDates(ladder, checkout, checkout.minusDays(1), 3, 0, null, 5));
+            assertEquals(List.of(), rentalService.findCheapestCheckoutDates(ladder, checkout, checkout.plusDays(10), 3, 0, null, 0));
+            assertEquals(RentalService.MAX_COMPARED_CHECKOUT_DATES, rentalService.findCheapestCheckoutDates(ladder, checkout,
+                    checkout.plusDays(RentalService.MAX_COMPARED_CHECKOUT_DATES - 1), 3, 0, null, Integer.MAX_VALUE).size());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+        try {
+            rentalService.findCheapestCheckoutDates(ladder, checkout, checkout.plusDays(10), 0, 0, null, 5);
+            fail("Rental periods below one day should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0001, ex.getErrorCode());
+        }
+        try {
+            rentalService.findCheapestCheckoutDates(ladder, checkout, checkout.plusDays(10), 3, -1, null, 5);
+            fail("Invalid discounts should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0003, ex.getErrorCode());
+        }
+        try {
+            rentalService.findCheapestCheckoutDates(ladder, checkout, checkout.plusDays(RentalService.MAX_COMPARED_CHECKOUT_DATES), 3, 0, null, 5);
+            fail("Too many checkout dates should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.RENT0008, ex.getErrorCode());
+            assertEquals("At most 1000 checkout dates can be compared at once.", ex.getMessage());
+        }
+    }
+}
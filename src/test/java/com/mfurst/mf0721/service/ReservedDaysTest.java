@@ -0,0 +1,86 @@
+package com.mfurst.mf0721.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class ReservedDaysTest {
+
+    /**
+     * Days should be free up to the first day of a reservation and again from its end day
+     */
+    @Test
+    void isFreeShouldExcludeEndDay() {
+        ReservedDays days = ReservedDays.NONE.reserve(10, 13).reserve(-5, -2);
+
+        assertFalse(days.isFree(10, 11));
+        assertFalse(days.isFree(12, 20));
+        assertFalse(days.isFree(0, 100));
+        assertFalse(days.isFree(-3, -2));
+        assertTrue(days.isFree(13, 20));
+        assertTrue(days.isFree(-2, 10));
+        assertTrue(days.isFree(-100, -5));
+        assertEquals(2, days.size());
+        assertEquals(-5, days.getFirstDay(0));
+        assertEquals(13, days.getEndDay(1));
+    }
+
+    /**
+     * Reserving days that are already reserved or no days at all should fail without changing the reserved days
+     */
+    @Test
+    void reserveShouldFailForReservedDays() {
+        ReservedDays days = ReservedDays.NONE.reserve(10, 13);
+        assertThrows(IllegalArgumentException.class, () -> days.reserve(12, 15));
+        assertThrows(IllegalArgumentException.class, () -> days.reserve(5, 11));
+        assertThrows(IllegalArgumentException.class, () -> days.reserve(5, 5));
+        assertEquals(1, days.size());
+        assertEquals(3, days.reserve(13, 15).reserve(8, 10).size());
+    }
+
+    /**
+     * Only a reservation of exactly the released days should be released
+     */
+    @Test
+    void releaseShouldOnlyReleaseExactReservations() {
+        ReservedDays days = ReservedDays.NONE.reserve(10, 13).reserve(13, 15);
+
+        assertSame(days, days.release(10, 15));
+        assertSame(days, days.release(11, 13));
+        ReservedDays released = days.release(10, 13);
+        assertEquals(1, released.size());
+        assertTrue(released.isFree(10, 13));
+        assertFalse(released.isFree(13, 14));
+        assertFalse(days.isFree(10, 13));
+    }
+
+    /**
+     * Random reservations and checks should match an uncompressed bitset of the same days
+     */
+    @Test
+    void isFreeShouldMatchBitSet() {
+        Random random = new Random(721);
+        BitSet reserved = new BitSet();
+        ReservedDays days = ReservedDays.NONE;
+        for (int i = 0; i < 2000; i++) {
+            int firstDay = random.nextInt(3000);
+            int endDay = firstDay + 1 + random.nextInt(20);
+            boolean free = reserved.get(firstDay, endDay).isEmpty();
+            assertEquals(free, days.isFree(firstDay, endDay));
+            if (free && random.nextBoolean()) {
+                days = days.reserve(firstDay, endDay);
+                reserved.set(firstDay, endDay);
+            } else if (days.size() > 0 && random.nextInt(4) == 0) {
+                int run = random.nextInt(days.size());
+                reserved.clear((int) days.getFirstDay(run), (int) days.getEndDay(run));
+                days = days.release(days.getFirstDay(run), days.getEndDay(run));
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.mfurst.mf0721.service;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.ToolInformation;
+import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.model.dto.ToolType;
+import com.mfurst.mf0721.util.CentsCalculator;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class ToolCatalogIndexTest {
+
+    private static final ToolType LADDER = new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false);
+    private static final ToolType CHAINSAW = new ToolType("Chainsaw", BigDecimal.valueOf(1.49), true, false, true);
+
+    /**
+     * Tool codes and tool types should be matched ignoring case
+     */
+    @Test
+    void findShouldIgnoreCase() {
+        ToolCatalogIndex index = new ToolCatalogIndex(
+                List.of(new Tool("LADW", "ladder", "Werner"), new Tool("chns", "CHAINSAW", "Stihl")),
+                List.of(LADDER, CHAINSAW));
+        try {
+            assertEquals(new ToolInformation("LADW", "Werner", LADDER), index.find("ladw"));
+            assertEquals(new ToolInformation("chns", "Stihl", CHAINSAW), index.find("ChNs"));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * The daily charge of each tool type should be converted to cents when the index is built
+     */
+    @Test
+    void getDailyChargeCentsShouldConvertEachToolType() {
+        ToolType fractionalCents = new ToolType("Drill", new BigDecimal("0.995"), true, true, true);
+        ToolCatalogIndex index = new ToolCatalogIndex(
+                List.of(new Tool("LADW", "Ladder", "Werner"), new Tool("DRLB", "Drill", "Bosch")),
+                List.of(LADDER, fractionalCents));
+        try {
+            assertEquals(199, index.getDailyChargeCents(index.find("LADW").getToolType()));
+            assertEquals(CentsCalculator.NOT_REPRESENTABLE, index.getDailyChargeCents(index.find("DRLB").getToolType()));
+            assertEquals(CentsCalculator.NOT_REPRESENTABLE, index.getDailyChargeCents(null));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * A tool type whose charge was changed, or that is not in the index, should be converted when asked for
+     */
+    @Test
+    void getDailyChargeCentsShouldFollowChangedCharge() {
+        ToolType ladder = new ToolType("Ladder", BigDecimal.valueOf(1.99), true, true, false);
+        ToolCatalogIndex index = new ToolCatalogIndex(List.of(new Tool("LADW", "Ladder", "Werner")), List.of(ladder));
+        try {
+            ToolType toolType = index.find("LADW").getToolType();
+            assertEquals(199, index.getDailyChargeCents(toolType));
+            toolType.setCharge(new BigDecimal("2.49"));
+            assertEquals(249, index.getDailyChargeCents(toolType));
+            assertEquals(149, index.getDailyChargeCents(CHAINSAW));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Looking up the same code twice should return the same shared tool information
+     */
+    @Test
+    void findShouldReturnSharedToolInformation() {
+        ToolCatalogIndex index = new ToolCatalogIndex(List.of(new Tool("LADW", "Ladder", "Werner")), List.of(LADDER));
+        try {
+            assertSame(index.find("LADW"), index.find("ladw"));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * When codes or types are repeated the first one should be used
+     */
+    @Test
+    void findShouldUseFirstMatchingToolAndType() {
+        ToolType otherLadder = new ToolType("LADDER", BigDecimal.ONE, false, false, false);
+        ToolCatalogIndex index = new ToolCatalogIndex(
+                List.of(new Tool("LADW", "Ladder", "Werner"), new Tool("ladw", "Ladder", "Other")),
+                List.of(LADDER, otherLadder));
+        try {
+            assertEquals(1, index.size());
+            ToolInformation information = index.find("LADW");
+            assertEquals("Werner", information.getToolBrand());
+            assertSame(LADDER, information.getToolType());
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Unknown codes and tools without a type should fail with the requested code
+     */
+    @Test
+    void findShouldFailForUnknownCodeOrMissingType() {
+        ToolCatalogIndex index = new ToolCatalogIndex(List.of(new Tool("JAKR", "Jackhammer", "Ridgid")), null);
+        try {
+            index.find("LADW");
+            fail("Unknown codes should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.TOOL0002, ex.getErrorCode());
+            assertEquals("Provided tool code [LADW] is not valid.", ex.getMessage());
+        }
+        try {
+            index.find("jakr");
+            fail("Tools without a type should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.TOOL0003, ex.getErrorCode());
+            assertEquals("Tool with code [jakr] does not have a valid type.", ex.getMessage());
+        }
+    }
+
+    /**
+     * Every tool in a large catalog should be found
+     */
+    @Test
+    void findShouldWorkForLargeCatalogs() {
+        List<Tool> tools = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            tools.add(new Tool(String.format("T%05d", i), i % 2 == 0 ? "Ladder" : "Chainsaw", "Brand" + i));
+        }
+        ToolCatalogIndex index = new ToolCatalogIndex(tools, List.of(LADDER, CHAINSAW));
+        try {
+            assertEquals(50_000, index.size());
+            for (int i = 0; i < 50_000; i++) {
+                assertEquals("Brand" + i, index.find(String.format("t%05d", i)).getToolBrand());
+            }
+            index.find("T50000");
+            fail("Unknown codes should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.TOOL0002, ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Tools of a type should be listed in catalog order ignoring case, leaving out repeated codes and tools without a type
+     */
+    @Test
+    void findAllOfTypeShouldListToolsOfType() {
+        ToolCatalogIndex index = new ToolCatalogIndex(
+                List.of(new Tool("LADW", "Ladder", "Werner"), new Tool("CHNS", "Chainsaw", "Stihl"),
+                        new Tool("ladw", "Ladder", "Other"), new Tool("LADL", "LADDER", "Louisville"),
+                        new Tool("JAKR", "Jackhammer", "Ridgid")),
+                List.of(LADDER, CHAINSAW));
+
+        assertEquals(List.of(new ToolInformation("LADW", "Werner", LADDER), new ToolInformation("LADL", "Louisville", LADDER)),
+                index.findAllOfType("ladder"));
+        assertEquals(List.of(new ToolInformation("CHNS", "Stihl", CHAINSAW)), index.findAllOfType("Chainsaw"));
+        assertEquals(List.of(), index.findAllOfType("Jackhammer"));
+        assertEquals(List.of(), index.findAllOfType(null));
+    }
+}
@@ -25,6 +25,7 @@ class ToolServiceTest {
     @BeforeEach
     void setUp() {
         toolService = new ToolService();
+        ReflectionTestUtils.setField(toolService, "pricingMetrics", new PricingMetrics());
     }
 
     /**
@@ -0,0 +1,89 @@
+package com.mfurst.mf0721.userinterface;
+
+import com.mfurst.mf0721.config.AppConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The tests for this class are used for integration tests
+ */
+@ActiveProfiles("test")
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = AppConfig.class
+)
+class BulkPricingInterfaceTest {
+
+    @Autowired
+    private BulkPricingInterface bulkPricingInterface;
+
+    /**
+     * CSV requests should be priced in order, with errors reported on the line of the failing request
+     */
+    @Test
+    void runTestForCsvRequests() throws IOException {
+        String data = "toolCode,checkoutDate,rentalPeriod,discountPercentage\n" +
+                "LADW,07/02/20,3,10\n" +
+                "\n" +
+                "JAKR,09/03/15,5,101\n" +
+                "\"CHNS\",07/02/15,5,25\n" +
+                "JAKD,09/03/15,six,0\n";
+        StringWriter output = new StringWriter();
+
+        long failures = bulkPricingInterface.run(new BufferedReader(new StringReader(data)), output,
+                BulkPricingInterface.Format.CSV);
+
+        assertEquals(2, failures);
+        assertEquals(BulkPricingInterface.CSV_OUTPUT_HEADER + "\n" +
+                "2,LADW,Ladder,Werner,3,07/02/20,07/05/20,$1.99,2,$3.98,10,$0.40,$3.58,,\n" +
+                "4,,,,,,,,,,,,,RENT0004,Discount rate cannot be greater than one-hundred percent.\n" +
+                "5,CHNS,Chainsaw,Stihl,5,07/02/15,07/07/15,$1.49,3,$4.47,25,$1.12,$3.35,,\n" +
+                "6,,,,,,,,,,,,,BULK0001,\"Rental request [JAKD,09/03/15,six,0] could not be read. " +
+                "Please check that it has a tool code, checkout date, amount of days and discount percentage.\"\n",
+                output.toString());
+    }
+
+    /**
+     * Newline delimited JSON requests should be priced in order, with errors reported on the line of the failing request
+     */
+    @Test
+    void runTestForJsonRequests() throws IOException {
+        String data = "{\"toolCode\":\"JAKR\",\"checkoutDate\":\"07/02/20\",\"rentalPeriod\":4,\"discountPercentage\":50}\n" +
+                "{\"toolCode\":\"NONE\",\"checkoutDate\":\"07/02/20\",\"rentalPeriod\":4,\"discountPercentage\":50}\n" +
+                "not json\n";
+        StringWriter output = new StringWriter();
+
+        long failures = bulkPricingInterface.run(new BufferedReader(new StringReader(data)), output,
+                BulkPricingInterface.Format.NDJSON);
+
+        assertEquals(2, failures);
+        String[] lines = output.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("{\"line\":1,\"agreement\":{\"toolCode\":\"JAKR\",\"toolType\":\"Jackhammer\",\"toolBrand\":\"Ridgid\"," +
+                "\"amountOfRentalDays\":4,\"formattedCheckOutDate\":\"07/02/20\",\"formattedDueDate\":\"07/06/20\"," +
+                "\"formattedDailyChargeAmount\":\"$2.99\",\"chargeDays\":1,\"formattedPreDiscountCharge\":\"$2.99\"," +
+                "\"discountPercent\":50,\"formattedDiscountAmount\":\"$1.50\",\"formattedFinalCharge\":\"$1.49\"}}", lines[0]);
+        assertEquals("{\"line\":2,\"error\":{\"code\":\"TOOL0002\",\"message\":\"Provided tool code [NONE] is not valid.\"}}", lines[1]);
+        assertTrue(lines[2].startsWith("{\"line\":3,\"error\":{\"code\":\"BULK0001\""));
+    }
+
+    /**
+     * Quoted CSV fields can contain commas and escaped quotes
+     */
+    @Test
+    void splitCsvLineShouldHandleQuotedFields() {
+        assertEquals(List.of("a", "b,c", "d\"e", ""), BulkPricingInterface.splitCsvLine("a,\"b,c\",\"d\"\"e\","));
+    }
+}
@@ -0,0 +1,104 @@
+package com.mfurst.mf0721.userinterface;
+
+import com.mfurst.mf0721.model.RentalAgreement;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class ReceiptTemplateTest {
+
+    private static final List<RentalAgreement> AGREEMENTS = List.of(
+            new RentalAgreement("LADW", "Ladder", "Werner", 3, "07/02/20", "07/05/20",
+                    "$1.99", 2, "$3.98", 10, "$0.40", "$3.58"),
+            new RentalAgreement("JAKR", "Jackhammer", "Ridgid", 123456, "07/02/20", "11/02/358",
+                    "$2.99", -7, "$1,234,567.89", 100, "$1,234,567.89", "$0.00"),
+            new RentalAgreement()
+    );
+
+    /**
+     * The receipt should be exactly the same as formatting the receipt message
+     */
+    @Test
+    void renderShouldMatchReceiptMessage() throws IOException {
+        for (RentalAgreement agreement : AGREEMENTS) {
+            String expected = formatReceiptMessage(agreement);
+            assertEquals(expected, ToolManagementInterface.RECEIPT_TEMPLATE.render(agreement));
+
+            StringBuilder builder = new StringBuilder("before ");
+            ToolManagementInterface.RECEIPT_TEMPLATE.render(agreement, builder);
+            assertEquals("before " + expected, builder.toString());
+
+            StringWriter writer = new StringWriter();
+            ToolManagementInterface.RECEIPT_TEMPLATE.render(agreement, writer);
+            assertEquals(expected, writer.toString());
+        }
+    }
+
+    /**
+     * Numbers shown with %d should use the digits of the default format locale like String.format
+     */
+    @Test
+    void renderShouldLocalizeDecimalDigitsLikeStringFormat() {
+        Locale original = Locale.getDefault(Locale.Category.FORMAT);
+        try {
+            Locale.setDefault(Locale.Category.FORMAT, Locale.forLanguageTag("th-TH-u-nu-thai"));
+            for (RentalAgreement agreement : AGREEMENTS) {
+                assertEquals(formatReceiptMessage(agreement), ToolManagementInterface.RECEIPT_TEMPLATE.render(agreement));
+            }
+        } finally {
+            Locale.setDefault(Locale.Category.FORMAT, original);
+        }
+    }
+
+    /**
+     * Other layouts can show any fields in any order
+     */
+    @Test
+    void compileShouldSupportOtherLayouts() {
+        ReceiptTemplate template = ReceiptTemplate.compile("%s|%s|%d%%|%s%n",
+                ReceiptTemplate.Field.TOOL_CODE,
+                ReceiptTemplate.Field.FINAL_CHARGE,
+                ReceiptTemplate.Field.DISCOUNT_PERCENT,
+                ReceiptTemplate.Field.CHARGE_DAYS);
+        assertEquals("LADW|$3.58|10%|2" + System.lineSeparator(), template.render(AGREEMENTS.get(0)));
+    }
+
+    /**
+     * Layouts that cannot be rendered should fail when they are compiled
+     */
+    @Test
+    void compileShouldFailForInvalidLayouts() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ReceiptTemplate.compile("%s %s", ReceiptTemplate.Field.TOOL_CODE));
+        assertThrows(IllegalArgumentException.class,
+                () -> ReceiptTemplate.compile("%5s", ReceiptTemplate.Field.TOOL_CODE));
+        assertThrows(IllegalArgumentException.class,
+                () -> ReceiptTemplate.compile("%d", ReceiptTemplate.Field.TOOL_CODE));
+        assertThrows(IllegalArgumentException.class,
+                () -> ReceiptTemplate.compile("100%"));
+    }
+
+    private static String formatReceiptMessage(RentalAgreement agreement) {
+        return String.format(ToolManagementInterface.RECEIPT_MESSAGE,
+                agreement.getToolCode(),
+                agreement.getToolType(),
+                agreement.getToolBrand(),
+                agreement.getAmountOfRentalDays(),
+                agreement.getFormattedCheckOutDate(),
+                agreement.getFormattedDueDate(),
+                agreement.getFormattedDailyChargeAmount(),
+                agreement.getChargeDays(),
+                agreement.getFormattedPreDiscountCharge(),
+                agreement.getDiscountPercent(),
+                agreement.getFormattedDiscountAmount(),
+                agreement.getFormattedFinalCharge());
+    }
+}
@@ -0,0 +1,165 @@
+package com.mfurst.mf0721.userinterface;
+
+import com.mfurst.mf0721.config.AppConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The tests for this class connect to the session server the same way as a terminal
+ */
+@ActiveProfiles("test")
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+        classes = AppConfig.class
+)
+class SessionServerTest {
+
+    private static final String INTERFACE_INPUT_MESSAGES = "Enter tool code to search by: Enter date of rental (mm/dd/yy): Enter amount of days customer will be renting for: Enter discount percentage [0-100]: ";
+
+    @Autowired
+    private ToolManagementInterface toolManagementInterface;
+
+    private SessionServer sessionServer;
+
+    @BeforeEach
+    void setUp() {
+        sessionServer = new SessionServer();
+        ReflectionTestUtils.setField(sessionServer, "toolManagementInterface", toolManagementInterface);
+        ReflectionTestUtils.setField(sessionServer, "enabled", true);
+        ReflectionTestUtils.setField(sessionServer, "port", 0);
+        ReflectionTestUtils.setField(sessionServer, "maxSessions", 16);
+        ReflectionTestUtils.setField(sessionServer, "idleTimeoutSeconds", 30);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        sessionServer.stop();
+    }
+
+    /**
+     * Terminals connected at the same time should each get their own session and receipt
+     */
+    @Test
+    void concurrentTerminalsShouldEachGetTheirReceipt() {
+        try {
+            sessionServer.start();
+            assertTrue(sessionServer.getPort() > 0);
+            List<CompletableFuture<String>> ladders = new ArrayList<>();
+            List<CompletableFuture<String>> chainsaws = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                ladders.add(CompletableFuture.supplyAsync(() -> runTerminal("LADW\r\n07/02/20\r\n3\r\n10\r\n")));
+                chainsaws.add(CompletableFuture.supplyAsync(() -> runTerminal("CHNS\r\n07/02/15\r\n5\r\n25\r\n")));
+            }
+            String ladderReceipt = INTERFACE_INPUT_MESSAGES + String.format(ToolManagementInterface.RECEIPT_MESSAGE,
+                    "LADW", "Ladder", "Werner", 3, "07/02/20", "07/05/20", "$1.99", 2, "$3.98", 10, "$0.40", "$3.58"
+                    ) + System.lineSeparator();
+            String chainsawReceipt = INTERFACE_INPUT_MESSAGES + String.format(ToolManagementInterface.RECEIPT_MESSAGE,
+                    "CHNS", "Chainsaw", "Stihl", 5, "07/02/15", "07/07/15", "$1.49", 3, "$4.47", 25, "$1.12", "$3.35"
+                    ) + System.lineSeparator();
+            for (int i = 0; i < ladders.size(); i++) {
+                assertEquals(ladderReceipt, ladders.get(i).get(30, TimeUnit.SECONDS));
+                assertEquals(chainsawReceipt, chainsaws.get(i).get(30, TimeUnit.SECONDS));
+            }
+        } catch (IOException | InterruptedException | ExecutionException | TimeoutException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Errors should be written to the terminal the same as on the command line
+     */
+    @Test
+    void invalidInputShouldBeReportedToTheTerminal() {
+        try {
+            sessionServer.start();
+            assertEquals(INTERFACE_INPUT_MESSAGES + "Discount rate cannot be greater than one-hundred percent." + System.lineSeparator(),
+                    runTerminal("JAKR\r\n09/03/15\r\n5\r\n101\r\n"));
+        } catch (IOException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Terminals beyond the most sessions at once should be asked to try again, and served once a session ends
+     */
+    @Test
+    void terminalsBeyondMaxSessionsShouldBeTurnedAway() {
+        ReflectionTestUtils.setField(sessionServer, "maxSessions", 1);
+        try {
+            sessionServer.start();
+            try (Socket waiting = connect()) {
+                //The first prompt means the waiting terminal holds the only session
+                InputStream input = waiting.getInputStream();
+                assertTrue(input.read() >= 0);
+                assertEquals(SessionServer.BUSY_MESSAGE + System.lineSeparator(), runTerminal("LADW\r\n07/02/20\r\n3\r\n10\r\n"));
+            }
+            String receipt = null;
+            for (int attempt = 0; attempt < 100 && (receipt == null || receipt.startsWith(SessionServer.BUSY_MESSAGE)); attempt++) {
+                //The session of the closed terminal ends once its input is gone
+                Thread.sleep(20);
+                receipt = runTerminal("LADW\r\n07/02/20\r\n3\r\n10\r\n");
+            }
+            assertTrue(receipt.startsWith(INTERFACE_INPUT_MESSAGES + "################################"), receipt);
+        } catch (IOException | InterruptedException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * The server should not listen unless it is enabled, and should pick a thread type that works on this JVM
+     */
+    @Test
+    void disabledServerShouldNotListen() {
+        ReflectionTestUtils.setField(sessionServer, "enabled", false);
+        try {
+            sessionServer.start();
+            assertEquals(-1, sessionServer.getPort());
+            assertFalse(sessionServer.isUsingVirtualThreads());
+
+            ReflectionTestUtils.setField(sessionServer, "enabled", true);
+            ReflectionTestUtils.setField(sessionServer, "virtualThreads", false);
+            sessionServer.start();
+            assertFalse(sessionServer.isUsingVirtualThreads());
+        } catch (IOException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    private Socket connect() throws IOException {
+        return new Socket(InetAddress.getLoopbackAddress(), sessionServer.getPort());
+    }
+
+    private String runTerminal(String input) {
+        try (Socket socket = connect()) {
+            socket.setSoTimeout(30_000);
+            OutputStream output = socket.getOutputStream();
+            output.write(input.getBytes(StandardCharsets.UTF_8));
+            output.flush();
+            return new String(socket.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
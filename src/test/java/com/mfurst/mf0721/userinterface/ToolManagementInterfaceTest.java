@@ -1,7 +1,9 @@
 package com.mfurst.mf0721.userinterface;
 
 import com.mfurst.mf0721.config.AppConfig;
+import com.mfurst.mf0721.model.Reservation;
 import com.mfurst.mf0721.model.dto.Tool;
+import com.mfurst.mf0721.service.AvailabilityService;
 import com.mfurst.mf0721.service.RentalService;
 import org.junit.jupiter.api.Test;
 import org.junit.runner.RunWith;
@@ -9,12 +11,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +38,9 @@ class ToolManagementInterfaceTest {
     @Autowired
     private ToolManagementInterface toolManagementInterface;
 
+    @Autowired
+    private AvailabilityService availabilityService;
+
     /**
      * If there is an invalid discount rate, then we should expect the error stream to equal the error
      * message for an invalid discount rate. In this case, an error message stating that the discount rate
@@ -162,4 +169,29 @@ class ToolManagementInterfaceTest {
                 ) + "\n", outputByteStream.toString());
         assertEquals("", errorByteStream.toString());
     }
-}
\ No newline at end of file
+
+    /**
+     * With availability enabled, a tool that is already out for any of the rental days should not be rented again
+     */
+    @Test
+    void runTestForOverlappingRentalsOfWernerLadderWithAvailability() {
+        ReflectionTestUtils.setField(availabilityService, "enabled", true);
+        try {
+            ByteArrayOutputStream firstErrorByteStream = new ByteArrayOutputStream();
+            toolManagementInterface.run(new PrintStream(new ByteArrayOutputStream()),
+                    new ByteArrayInputStream("LADW\r\n12/02/30\r\n3\r\n0\r\n".getBytes()), new PrintStream(firstErrorByteStream));
+            assertEquals("", firstErrorByteStream.toString());
+
+            ByteArrayOutputStream outputByteStream = new ByteArrayOutputStream();
+            ByteArrayOutputStream errorByteStream = new ByteArrayOutputStream();
+            toolManagementInterface.run(new PrintStream(outputByteStream),
+                    new ByteArrayInputStream("LADW\r\n12/04/30\r\n2\r\n0\r\n".getBytes()), new PrintStream(errorByteStream));
+            assertEquals(INTERFACE_INPUT_MESSAGES, outputByteStream.toString());
+            assertEquals("Tool [LADW] is not available from [12/04/30] until [12/06/30].\n", errorByteStream.toString());
+        } finally {
+            //The interface and availability service are shared with the other tests of this context
+            ReflectionTestUtils.setField(availabilityService, "enabled", false);
+            availabilityService.release(new Reservation("LADW", LocalDate.of(2030, 12, 2), LocalDate.of(2030, 12, 5)));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.mfurst.mf0721.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Every calculation is checked against the BigDecimal calculation used by the rental service
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+class CentsCalculatorTest {
+
+    private static final List<BigDecimal> DAILY_CHARGES = List.of(
+            new BigDecimal("0"), new BigDecimal("0.01"), new BigDecimal("0.5"), new BigDecimal("1"),
+            new BigDecimal("1.49"), new BigDecimal("1.98"), new BigDecimal("1.99"), new BigDecimal("2.99"),
+            new BigDecimal("1.990"), new BigDecimal("9999.99"), new BigDecimal("1E+2"), BigDecimal.valueOf(1.99)
+    );
+
+    /**
+     * Whole cent amounts convert exactly, fractions of a cent do not convert
+     */
+    @Test
+    void toCentsShouldOnlyConvertWholeCents() {
+        assertEquals(199, CentsCalculator.toCents(new BigDecimal("1.99")));
+        assertEquals(199, CentsCalculator.toCents(new BigDecimal("1.9900")));
+        assertEquals(10000, CentsCalculator.toCents(new BigDecimal("1E+2")));
+        assertEquals(-150, CentsCalculator.toCents(new BigDecimal("-1.5")));
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, CentsCalculator.toCents(new BigDecimal("1.995")));
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, CentsCalculator.toCents(new BigDecimal("1E+30")));
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, CentsCalculator.toCents(null));
+    }
+
+    /**
+     * Every discount percentage for every rental length up to two years should match BigDecimal
+     */
+    @Test
+    void chargesShouldMatchBigDecimalForEveryDayCountAndDiscount() {
+        for (BigDecimal dailyCharge : DAILY_CHARGES) {
+            for (int chargeDays = 0; chargeDays <= 731; chargeDays++) {
+                for (int discount = 0; discount <= 100; discount++) {
+                    assertMatchesBigDecimal(dailyCharge, chargeDays, discount);
+                }
+            }
+        }
+    }
+
+    /**
+     * Random daily charges, day counts and discounts should match BigDecimal
+     */
+    @Test
+    void chargesShouldMatchBigDecimalForRandomInputs() {
+        Random random = new Random(721);
+        for (int i = 0; i < 200_000; i++) {
+            BigDecimal dailyCharge = BigDecimal.valueOf(random.nextInt(10_000_000), random.nextInt(3));
+            int chargeDays = random.nextInt(100_000);
+            int discount = random.nextInt(101);
+            assertMatchesBigDecimal(dailyCharge, chargeDays, discount);
+        }
+    }
+
+    /**
+     * Negative amounts should round half away from zero like BigDecimal
+     */
+    @Test
+    void chargesShouldMatchBigDecimalForNegativeInputs() {
+        for (int cents = -1000; cents <= 0; cents++) {
+            for (int discount = -100; discount <= 100; discount++) {
+                assertMatchesBigDecimal(BigDecimal.valueOf(cents, 2), 3, discount);
+            }
+        }
+    }
+
+    /**
+     * Results that do not fit in a long should not be representable
+     */
+    @Test
+    void overflowShouldNotBeRepresentable() {
+        long dailyChargeCents = CentsCalculator.toCents(new BigDecimal("90000000000000"));
+        long charge = CentsCalculator.preDiscountCharge(dailyChargeCents, Integer.MAX_VALUE);
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, charge);
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, CentsCalculator.discountAmount(charge, 10));
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, CentsCalculator.discountAmount(Long.MAX_VALUE, 10));
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, CentsCalculator.finalCharge(Long.MAX_VALUE, -1));
+        assertEquals(CentsCalculator.NOT_REPRESENTABLE, CentsCalculator.finalCharge(1, CentsCalculator.NOT_REPRESENTABLE));
+    }
+
+    private static void assertMatchesBigDecimal(BigDecimal dailyCharge, int chargeDays, int discount) {
+        BigDecimal preDiscountCharge = dailyCharge
+                .multiply(BigDecimal.valueOf(chargeDays))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal discountAmount = preDiscountCharge
+                .multiply(BigDecimal.valueOf(discount))
+                .divide(BigDecimal.valueOf(100))
+                .setScale(2, RoundingMode.HALF_UP);
+        BigDecimal finalCharge = preDiscountCharge.subtract(discountAmount)
+                .setScale(2, RoundingMode.HALF_UP);
+
+        long dailyChargeCents = CentsCalculator.toCents(dailyCharge);
+        if (dailyCharge.stripTrailingZeros().scale() > 2) {
+            assertEquals(CentsCalculator.NOT_REPRESENTABLE, dailyChargeCents);
+            return;
+        }
+        long preDiscountCents = CentsCalculator.preDiscountCharge(dailyChargeCents, chargeDays);
+        long discountCents = CentsCalculator.discountAmount(preDiscountCents, discount);
+        long finalCents = CentsCalculator.finalCharge(preDiscountCents, discountCents);
+
+        String inputs = dailyCharge + " x " + chargeDays + " days at " + discount + "%";
+        //Scale and value must both match so formatting is identical
+        assertEquals(preDiscountCharge, CentsCalculator.toAmount(preDiscountCents), inputs);
+        assertEquals(discountAmount, CentsCalculator.toAmount(discountCents), inputs);
+        assertEquals(finalCharge, CentsCalculator.toAmount(finalCents), inputs);
+    }
+}
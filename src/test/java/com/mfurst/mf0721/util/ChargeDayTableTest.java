@@ -0,0 +1,129 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.dto.Holiday;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class ChargeDayTableTest {
+
+    private DateUtil dateUtil;
+
+    private ChargeDayTable chargeDayTable;
+
+    @BeforeEach
+    void setUp() throws ToolManagementException {
+        List<Holiday> holidays = List.of(
+                new Holiday("next-monday", 9, 1),
+                new Holiday("closest-weekday", 7, 4)
+        );
+        dateUtil = new DateUtil();
+        ReflectionTestUtils.setField(dateUtil, "holidays", holidays);
+        chargeDayTable = new ChargeDayTable(new HolidayCalendar(holidays), 2019, 2021);
+    }
+
+    /**
+     * The table should cover January 1st of the first year through December 31st of the last year
+     */
+    @Test
+    void tableShouldCoverEveryDayOfTheWindow() {
+        assertEquals(365 + 366 + 365, chargeDayTable.getDayCount());
+        assertEquals(chargeDayTable.getDayCount() * 8L, chargeDayTable.getMemoryFootprintBytes());
+        assertTrue(chargeDayTable.covers(LocalDate.of(2019, 1, 1), LocalDate.of(2021, 12, 31)));
+        assertFalse(chargeDayTable.covers(LocalDate.of(2018, 12, 31), LocalDate.of(2019, 1, 5)));
+        assertFalse(chargeDayTable.covers(LocalDate.of(2021, 12, 30), LocalDate.of(2022, 1, 1)));
+    }
+
+    /**
+     * A window that ends before it starts is not valid
+     */
+    @Test
+    void tableShouldFailForInvalidWindow() {
+        assertThrows(IllegalArgumentException.class, () -> new ChargeDayTable(
+                new HolidayCalendar(List.of()), 2021, 2020));
+    }
+
+    /**
+     * Table counts should match counting weekends and holidays separately
+     * for every combination of charged day types
+     */
+    @Test
+    void getChargeDaysShouldMatchDayTypeCounts() throws ToolManagementException {
+        LocalDate start = LocalDate.of(2019, 1, 1);
+        for (int offset = 0; offset < 730; offset += 3) {
+            LocalDate firstDate = start.plusDays(offset);
+            for (int length = 0; length < 370; length += 7) {
+                LocalDate secondDate = firstDate.plusDays(length);
+                for (int flags = 0; flags < 8; flags++) {
+                    boolean weekday = (flags & 1) != 0;
+                    boolean weekend = (flags & 2) != 0;
+                    boolean holiday = (flags & 4) != 0;
+                    assertEquals(
+                            dateUtil.getNumberOfChargeDaysBetweenTwoDates(firstDate, secondDate, weekday, weekend, holiday),
+                            chargeDayTable.getChargeDays(firstDate, secondDate, weekday, weekend, holiday),
+                            firstDate + " to " + secondDate + " with flags " + flags);
+                }
+            }
+        }
+    }
+
+    /**
+     * July 2021 has 20 weekdays, 10 weekend days and 1 holiday
+     */
+    @Test
+    void getChargeDaysForJuly() {
+        LocalDate checkout = LocalDate.of(2021, 7, 1);
+        LocalDate due = LocalDate.of(2021, 8, 1);
+        assertEquals(20, chargeDayTable.getChargeDays(checkout, due, true, false, false));
+        assertEquals(10, chargeDayTable.getChargeDays(checkout, due, false, true, false));
+        assertEquals(1, chargeDayTable.getChargeDays(checkout, due, false, false, true));
+        assertEquals(31, chargeDayTable.getChargeDays(checkout, due, true, true, true));
+    }
+
+    /**
+     * Holidays on weekends and holidays observed on the same day should make each day exactly one day type
+     */
+    @Test
+    void getChargeDaysShouldCountEveryDayOnceWithWeekendHolidays() throws ToolManagementException {
+        List<Holiday> holidays = List.of(
+                new Holiday("fixed", 12, 25),
+                new Holiday("closest-weekday", 7, 4),
+                new Holiday("fixed", 7, 5),
+                new Holiday("last-weekday", 5, 0, DayOfWeek.SUNDAY, 0, 0, null)
+        );
+        ReflectionTestUtils.setField(dateUtil, "holidays", holidays);
+        ChargeDayTable table = new ChargeDayTable(new HolidayCalendar(holidays), 2019, 2022);
+        LocalDate start = LocalDate.of(2019, 1, 1);
+        for (int offset = 0; offset < 1400; offset++) {
+            LocalDate firstDate = start.plusDays(offset);
+            for (int length : new int[]{1, 2, 3, 5, 10}) {
+                LocalDate secondDate = firstDate.plusDays(length);
+                if (!table.covers(firstDate, secondDate)) continue;
+                int weekdays = table.getChargeDays(firstDate, secondDate, true, false, false);
+                int weekends = table.getChargeDays(firstDate, secondDate, false, true, false);
+                int holidayDays = table.getChargeDays(firstDate, secondDate, false, false, true);
+                assertTrue(weekdays >= 0 && weekends >= 0 && holidayDays >= 0, firstDate + " for " + length + " days");
+                assertEquals(length, weekdays + weekends + holidayDays, firstDate + " for " + length + " days");
+                for (int flags = 0; flags < 8; flags++) {
+                    boolean weekday = (flags & 1) != 0;
+                    boolean weekend = (flags & 2) != 0;
+                    boolean holiday = (flags & 4) != 0;
+                    assertEquals(
+                            dateUtil.getNumberOfChargeDaysBetweenTwoDates(firstDate, secondDate, weekday, weekend, holiday),
+                            table.getChargeDays(firstDate, secondDate, weekday, weekend, holiday),
+                            firstDate + " to " + secondDate + " with flags " + flags);
+                }
+            }
+        }
+    }
+}
@@ -13,6 +13,7 @@ import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -74,6 +75,51 @@ class DateUtilTest {
         assertEquals(2, numberOfDays);
     }
 
+    @Test
+    void getNumberOfWeekendDaysWhenSecondDateIsNotAfterFirstDate() {
+        assertEquals(0, dateUtil.getNumberOfWeekendsBetweenTwoDates(
+                LocalDate.of(2021, 8, 7), //Saturday August 7th
+                LocalDate.of(2021, 8, 7)
+        ));
+        assertEquals(0, dateUtil.getNumberOfWeekendsBetweenTwoDates(
+                LocalDate.of(2021, 8, 16), //Monday August 16th
+                LocalDate.of(2021, 8, 7) // Saturday August 7th
+        ));
+    }
+
+    @Test
+    void getNumberOfWeekendDaysForMultiYearRental() {
+        int numberOfDays = dateUtil.getNumberOfWeekendsBetweenTwoDates(
+                LocalDate.of(2021, 1, 1), //Friday January 1st
+                LocalDate.of(2023, 1, 1) // Sunday January 1st
+        );
+        //2021 and 2022 both have 52 full weeks plus one extra day, only 2022's extra day (Saturday December 31st) is a weekend
+        //plus Sunday January 1st of 2023 as the return date
+        assertEquals(52 * 2 * 2 + 2, numberOfDays);
+    }
+
+    /**
+     * The closed form count should match walking each day of the rental
+     * for every combination of starting day of week and rental length
+     */
+    @Test
+    void getNumberOfWeekendDaysMatchesDayByDayCount() {
+        LocalDate start = LocalDate.of(1969, 12, 20);
+        for (int offset = 0; offset < 21; offset++) {
+            LocalDate firstDate = start.plusDays(offset);
+            int expected = 0;
+            for (int length = 0; length < 400; length++) {
+                LocalDate secondDate = firstDate.plusDays(length);
+                if (length > 0 && (secondDate.getDayOfWeek().equals(DayOfWeek.SATURDAY)
+                        || secondDate.getDayOfWeek().equals(DayOfWeek.SUNDAY))) {
+                    expected++;
+                }
+                assertEquals(expected, dateUtil.getNumberOfWeekendsBetweenTwoDates(firstDate, secondDate),
+                        firstDate + " to " + secondDate);
+            }
+        }
+    }
+
     @Test
     void getNumberOfHolidaysWhenThereAreNone() {
         ReflectionTestUtils.setField(dateUtil,"holidays", new ArrayList<>());
@@ -184,6 +230,219 @@ class DateUtilTest {
     }
 
 
+    /**
+     * Each holiday region should count its own holidays, and no region should use the configured holidays
+     */
+    @Test
+    void getNumberOfChargeDaysForHolidayRegions() {
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of(new Holiday("next-monday", 9, 1)));
+        ReflectionTestUtils.setField(dateUtil, "holidayRegions", Map.of(
+                "East", List.of(new Holiday("closest-weekday", 7, 4)),
+                "West", List.of()
+        ));
+        try {
+            LocalDate checkout = LocalDate.of(2021, 7, 1);
+            LocalDate due = LocalDate.of(2021, 9, 30);
+            assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates(null, checkout, due, false, false, true));
+            assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates("east", checkout, due, false, false, true));
+            assertEquals(0, dateUtil.getNumberOfChargeDaysBetweenTwoDates("WEST", checkout, due, false, false, true));
+            assertSame(dateUtil.getHolidayCalendar("East"), dateUtil.getHolidayCalendar("east"));
+            assertNotSame(dateUtil.getHolidayCalendar(null), dateUtil.getHolidayCalendar("east"));
+
+            //Regions answer from their own table once the table window is configured
+            int weekdays = dateUtil.getNumberOfChargeDaysBetweenTwoDates("east", checkout, due, true, false, false);
+            ReflectionTestUtils.setField(dateUtil, "chargeTableStartYear", 2021);
+            ReflectionTestUtils.setField(dateUtil, "chargeTableEndYear", 2021);
+            assertEquals(weekdays, dateUtil.getNumberOfChargeDaysBetweenTwoDates("east", checkout, due, true, false, false));
+            assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates("east", checkout, due, false, false, true));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+        try {
+            dateUtil.getNumberOfChargeDaysBetweenTwoDates("north", LocalDate.of(2021, 7, 1), LocalDate.of(2021, 7, 5),
+                    true, true, true);
+            fail("Unknown holiday regions should fail");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.DATE0002, ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Reloading with an invalid holiday region should keep the previous holidays and regions
+     */
+    @Test
+    void reloadHolidaysShouldValidateEveryRegion() {
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of());
+        ReflectionTestUtils.setField(dateUtil, "holidayRegions", Map.of("east", List.of(new Holiday("closest-weekday", 7, 4))));
+        try {
+            dateUtil.reloadHolidays(List.of(), Map.of("east", List.of(new Holiday("invalid-type", 7, 4))));
+            fail("Invalid holiday regions should fail the reload");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.DATE0001, ex.getErrorCode());
+        }
+        try {
+            assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates("east",
+                    LocalDate.of(2021, 7, 1), LocalDate.of(2021, 7, 6), false, false, true));
+
+            dateUtil.reloadHolidays(List.of(), Map.of("west", List.of(new Holiday("next-monday", 9, 1))));
+            assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates("west",
+                    LocalDate.of(2021, 9, 1), LocalDate.of(2021, 9, 7), false, false, true));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+        try {
+            dateUtil.getHolidayCalendar("east");
+            fail("Regions missing from the reload should be removed");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.DATE0002, ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Charge days should be the same with and without the precomputed table,
+     * and rentals outside of the table window should still be counted
+     */
+    @Test
+    void getNumberOfChargeDaysWithAndWithoutChargeDayTable() {
+        ReflectionTestUtils.setField(dateUtil,"holidays", List.of(
+            new Holiday("next-monday", 9, 1),
+            new Holiday("closest-weekday", 7, 4)
+        ));
+        try {
+            LocalDate checkout = LocalDate.of(2021, 7, 1);
+            LocalDate due = LocalDate.of(2021, 9, 30);
+            assertNull(dateUtil.getChargeDayTable());
+            int weekdays = dateUtil.getNumberOfChargeDaysBetweenTwoDates(checkout, due, true, false, false);
+            int holidays = dateUtil.getNumberOfChargeDaysBetweenTwoDates(checkout, due, false, false, true);
+
+            ReflectionTestUtils.setField(dateUtil, "chargeTableStartYear", 2021);
+            ReflectionTestUtils.setField(dateUtil, "chargeTableEndYear", 2021);
+            assertNotNull(dateUtil.getChargeDayTable());
+            assertEquals(weekdays, dateUtil.getNumberOfChargeDaysBetweenTwoDates(checkout, due, true, false, false));
+            assertEquals(holidays, dateUtil.getNumberOfChargeDaysBetweenTwoDates(checkout, due, false, false, true));
+            assertEquals(2, holidays);
+
+            //Outside of the table window
+            assertEquals(2, dateUtil.getNumberOfChargeDaysBetweenTwoDates(
+                    LocalDate.of(2022, 7, 1), LocalDate.of(2022, 9, 30), false, false, true));
+        } catch (ToolManagementException ex) {
+            //Always fail on any exception
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Holidays on weekends are holidays and holidays observed on the same day are one holiday,
+     * so charge days are never negative and every day is counted once, with or without the charge day table
+     */
+    @Test
+    void getNumberOfChargeDaysShouldCountWeekendHolidaysOnce() {
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of(
+            new Holiday("fixed", 12, 25),
+            new Holiday("closest-weekday", 7, 4),
+            new Holiday("fixed", 7, 5)
+        ));
+        try {
+            for (int chargeTableYear : new int[]{0, 2021}) {
+                ReflectionTestUtils.setField(dateUtil, "chargeTableStartYear", chargeTableYear);
+                ReflectionTestUtils.setField(dateUtil, "chargeTableEndYear", chargeTableYear);
+                //Christmas of 2021 is a Saturday
+                LocalDate friday = LocalDate.of(2021, 12, 24);
+                assertEquals(0, dateUtil.getNumberOfChargeDaysBetweenTwoDates(friday, friday.plusDays(1), true, false, false));
+                assertEquals(0, dateUtil.getNumberOfChargeDaysBetweenTwoDates(friday, friday.plusDays(1), false, true, false));
+                assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates(friday, friday.plusDays(1), false, false, true));
+                assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates(friday, friday.plusDays(3), true, false, false));
+                assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates(friday, friday.plusDays(3), false, true, false));
+                assertEquals(3, dateUtil.getNumberOfChargeDaysBetweenTwoDates(friday, friday.plusDays(3), true, true, true));
+                //Independence Day of 2021 is observed on Monday July 5th, the same day as the fixed July 5th holiday
+                LocalDate sunday = LocalDate.of(2021, 7, 4);
+                assertEquals(0, dateUtil.getNumberOfChargeDaysBetweenTwoDates(sunday, sunday.plusDays(1), true, false, false));
+                assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates(sunday, sunday.plusDays(1), false, false, true));
+                assertEquals(1, dateUtil.getNumberOfChargeDaysBetweenTwoDates(sunday, sunday.plusDays(1), true, true, true));
+            }
+            assertArrayEquals(new int[]{0, 0, 1}, dateUtil.getNumberOfChargeDaysOfEachRentalPeriod(
+                    null, LocalDate.of(2021, 12, 24), 3, true, false, false));
+            assertArrayEquals(new int[]{1, 1, 2}, dateUtil.getNumberOfChargeDaysOfEachCheckoutDate(
+                    null, LocalDate.of(2021, 12, 23), 3, 3, true, false, false));
+            assertArrayEquals(new int[]{0, 1}, dateUtil.getNumberOfChargeDaysOfEachCheckoutDate(
+                    null, LocalDate.of(2021, 7, 4), 2, 1, true, false, false));
+        } catch (ToolManagementException ex) {
+            //Always fail on any exception
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Charge days of every rental period should be the same as counting each period on its own,
+     * including holidays observed on weekends and a New Year's Day observed in the year before
+     */
+    @Test
+    void getNumberOfChargeDaysOfEachRentalPeriodMatchesCountingEachPeriod() {
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of(
+            new Holiday("next-monday", 9, 1),
+            new Holiday("closest-weekday", 7, 4),
+            new Holiday("closest-weekday", 1, 1),
+            new Holiday("fixed", 12, 25)
+        ));
+        try {
+            for (LocalDate checkout = LocalDate.of(2021, 6, 1); checkout.isBefore(LocalDate.of(2022, 2, 1)); checkout = checkout.plusDays(3)) {
+                for (int dayTypes = 0; dayTypes < 8; dayTypes++) {
+                    boolean weekdays = (dayTypes & 1) != 0;
+                    boolean weekends = (dayTypes & 2) != 0;
+                    boolean holidays = (dayTypes & 4) != 0;
+                    int[] chargeDays = dateUtil.getNumberOfChargeDaysOfEachRentalPeriod(null, checkout, 400, weekdays, weekends, holidays);
+                    assertEquals(400, chargeDays.length);
+                    for (int period = 1; period <= chargeDays.length; period++) {
+                        assertEquals(dateUtil.getNumberOfChargeDaysBetweenTwoDates(checkout, checkout.plusDays(period), weekdays, weekends, holidays),
+                                chargeDays[period - 1], checkout + " for " + period + " days");
+                    }
+                }
+            }
+            assertEquals(0, dateUtil.getNumberOfChargeDaysOfEachRentalPeriod(null, LocalDate.of(2021, 6, 1), 0, true, true, true).length);
+        } catch (ToolManagementException ex) {
+            //Always fail on any exception
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Charge days of every checkout date should be the same as counting each rental on its own, including
+     * rentals over holidays observed in a different year than their date
+     */
+    @Test
+    void getNumberOfChargeDaysOfEachCheckoutDateMatchesCountingEachRental() {
+        ReflectionTestUtils.setField(dateUtil, "holidays", List.of(
+            new Holiday("next-monday", 9, 1),
+            new Holiday("closest-weekday", 7, 4),
+            new Holiday("closest-weekday", 1, 1),
+            new Holiday("next-monday", 12, 31),
+            new Holiday("fixed", 12, 25)
+        ));
+        LocalDate firstCheckout = LocalDate.of(2021, 6, 1);
+        try {
+            for (int period : new int[]{1, 2, 3, 7, 30, 400}) {
+                for (int dayTypes = 0; dayTypes < 8; dayTypes++) {
+                    boolean weekdays = (dayTypes & 1) != 0;
+                    boolean weekends = (dayTypes & 2) != 0;
+                    boolean holidays = (dayTypes & 4) != 0;
+                    int[] chargeDays = dateUtil.getNumberOfChargeDaysOfEachCheckoutDate(null, firstCheckout, 700, period, weekdays, weekends, holidays);
+                    assertEquals(700, chargeDays.length);
+                    for (int i = 0; i < chargeDays.length; i++) {
+                        LocalDate checkout = firstCheckout.plusDays(i);
+                        assertEquals(dateUtil.getNumberOfChargeDaysBetweenTwoDates(checkout, checkout.plusDays(period), weekdays, weekends, holidays),
+                                chargeDays[i], checkout + " for " + period + " days");
+                    }
+                }
+            }
+            assertEquals(0, dateUtil.getNumberOfChargeDaysOfEachCheckoutDate(null, firstCheckout, 0, 5, true, true, true).length);
+        } catch (ToolManagementException ex) {
+            //Always fail on any exception
+            fail(ex.getMessage());
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> dateUtil.getNumberOfChargeDaysOfEachCheckoutDate(null, firstCheckout, 10, 0, true, true, true));
+    }
+
     /**
      * Check that if a holiday is supposed to be on the next closets Monday,
      * and it falls on a Monday, it should not change its date
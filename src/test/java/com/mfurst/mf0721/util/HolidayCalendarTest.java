@@ -0,0 +1,201 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.dto.Holiday;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class HolidayCalendarTest {
+
+    private static final List<Holiday> HOLIDAYS = List.of(
+            new Holiday("next-monday", 9, 1),
+            new Holiday("closest-weekday", 7, 4)
+    );
+
+    /**
+     * Creating a calendar with an unknown holiday type should fail
+     */
+    @Test
+    void createCalendarWithUnknownHolidayTypeShouldFail() {
+        try {
+            new HolidayCalendar(List.of(new Holiday("invalid-type", 7, 4)));
+            fail("Invalid types should always fail calendar creation");
+        } catch (ToolManagementException ex) {
+            assertEquals(ErrorCode.DATE0001, ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Observed holidays of a year should be sorted epoch days
+     */
+    @Test
+    void getObservedHolidaysShouldBeSortedEpochDays() {
+        try {
+            HolidayCalendar calendar = new HolidayCalendar(HOLIDAYS);
+            long[] observedHolidays = calendar.getObservedHolidays(2021);
+            assertArrayEquals(new long[]{
+                    LocalDate.of(2021, 7, 5).toEpochDay(),
+                    LocalDate.of(2021, 9, 6).toEpochDay()
+            }, observedHolidays);
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * The first date is not counted, the second date is
+     */
+    @Test
+    void countHolidaysBetweenShouldExcludeFirstDateAndIncludeSecondDate() {
+        try {
+            HolidayCalendar calendar = new HolidayCalendar(HOLIDAYS);
+            //Labor day of 2021 is Monday September 6th
+            assertEquals(0, calendar.countHolidaysBetween(LocalDate.of(2021, 9, 6), LocalDate.of(2021, 9, 10)));
+            assertEquals(1, calendar.countHolidaysBetween(LocalDate.of(2021, 9, 5), LocalDate.of(2021, 9, 6)));
+            assertEquals(0, calendar.countHolidaysBetween(LocalDate.of(2021, 9, 6), LocalDate.of(2021, 9, 6)));
+            assertEquals(0, calendar.countHolidaysBetween(LocalDate.of(2021, 9, 8), LocalDate.of(2021, 9, 1)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Rentals across several years should count the holidays of every year
+     */
+    @Test
+    void countHolidaysBetweenShouldCountEveryYear() {
+        try {
+            HolidayCalendar calendar = new HolidayCalendar(HOLIDAYS);
+            assertEquals(6, calendar.countHolidaysBetween(LocalDate.of(2019, 1, 1), LocalDate.of(2021, 12, 31)));
+            assertEquals(5, calendar.countHolidaysBetween(LocalDate.of(2019, 7, 4), LocalDate.of(2021, 12, 31)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * A holiday observed in a different year than its actual date should be
+     * counted in the year it is observed in
+     */
+    @Test
+    void countHolidaysBetweenShouldUseYearHolidayIsObservedIn() {
+        try {
+            //January 1st of 2022 is a Saturday, so it is observed on Friday December 31st of 2021
+            HolidayCalendar calendar = new HolidayCalendar(List.of(new Holiday("closest-weekday", 1, 1)));
+            assertEquals(1, calendar.countHolidaysBetween(LocalDate.of(2021, 12, 30), LocalDate.of(2021, 12, 31)));
+            assertEquals(0, calendar.countHolidaysBetween(LocalDate.of(2021, 12, 31), LocalDate.of(2022, 1, 5)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Holidays observed on the same day should only count that day once
+     */
+    @Test
+    void countHolidaysBetweenShouldCountHolidaysOnTheSameDayOnce() {
+        try {
+            HolidayCalendar calendar = new HolidayCalendar(List.of(
+                    new Holiday("closest-weekday", 9, 6),
+                    new Holiday("next-monday", 9, 1)
+            ));
+            assertEquals(1, calendar.countHolidaysBetween(LocalDate.of(2021, 9, 1), LocalDate.of(2021, 9, 30)));
+            assertArrayEquals(new long[]{LocalDate.of(2021, 9, 6).toEpochDay()}, calendar.getObservedHolidays(2021));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Holidays observed on Saturdays and Sundays should be counted apart from the other holidays
+     */
+    @Test
+    void countWeekendHolidaysBetweenShouldOnlyCountWeekends() {
+        try {
+            //Christmas of 2021 is a Saturday and of 2022 a Sunday, Independence Day is always observed on a weekday
+            HolidayCalendar calendar = new HolidayCalendar(List.of(
+                    new Holiday("fixed", 12, 25),
+                    new Holiday("closest-weekday", 7, 4)
+            ));
+            assertEquals(2, calendar.countWeekendHolidaysBetween(LocalDate.of(2021, 1, 1), LocalDate.of(2022, 12, 31)));
+            assertEquals(4, calendar.countHolidaysBetween(LocalDate.of(2021, 1, 1), LocalDate.of(2022, 12, 31)));
+            assertEquals(0, calendar.countWeekendHolidaysBetween(LocalDate.of(2021, 12, 25), LocalDate.of(2021, 12, 31)));
+            assertEquals(1, calendar.countWeekendHolidaysBetween(LocalDate.of(2021, 12, 24), LocalDate.of(2021, 12, 25)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * The calendar should never keep more years than its limit
+     */
+    @Test
+    void yearCacheShouldBeBounded() {
+        try {
+            HolidayCalendar calendar = new HolidayCalendar(HOLIDAYS, 4);
+            assertEquals(20, calendar.countHolidaysBetween(LocalDate.of(2010, 1, 1), LocalDate.of(2019, 12, 31)));
+            assertTrue(calendar.getCachedYearCount() <= 4);
+            assertEquals(2, calendar.countHolidaysBetween(LocalDate.of(2010, 1, 1), LocalDate.of(2010, 12, 31)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Years cached by many threads at once should still never exceed the limit
+     */
+    @Test
+    void yearCacheShouldBeBoundedWithConcurrentMisses() throws Exception {
+        HolidayCalendar calendar = new HolidayCalendar(HOLIDAYS, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> counts = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int firstYear = 2000 + thread * 10;
+                counts.add(executor.submit(() -> {
+                    int largestCache = 0;
+                    for (int i = 0; i < 1000; i++) {
+                        int year = firstYear + i % 10;
+                        calendar.countHolidaysBetween(LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31));
+                        largestCache = Math.max(largestCache, calendar.getCachedYearCount());
+                    }
+                    return largestCache;
+                }));
+            }
+            for (Future<Integer> count : counts) {
+                assertTrue(count.get(30, TimeUnit.SECONDS) <= 4);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Ranges with more years than the cache holds should be counted without evicting every cached year
+     */
+    @Test
+    void countHolidaysBetweenShouldNotCacheMiddleOfLongRanges() {
+        try {
+            HolidayCalendar calendar = new HolidayCalendar(HOLIDAYS, 4);
+            calendar.countHolidaysBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+            assertEquals(20000, calendar.countHolidaysBetween(LocalDate.of(2000, 12, 31), LocalDate.of(12000, 12, 31)));
+            assertEquals(3, calendar.getCachedYearCount());
+            assertEquals(2, calendar.countHolidaysBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mfurst.mf0721.util;
+
+import com.mfurst.mf0721.exception.ErrorCode;
+import com.mfurst.mf0721.exception.ToolManagementException;
+import com.mfurst.mf0721.model.dto.Holiday;
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class HolidayRulesTest {
+
+    /**
+     * Thanksgiving is the 4th Thursday of November
+     */
+    @Test
+    void nthWeekdayShouldFindNthDayOfWeekOfMonth() {
+        try {
+            HolidayRule rule = HolidayRules.compile(new Holiday("nth-weekday", 11, 0, DayOfWeek.THURSDAY, 4, 0, null));
+            assertEquals(LocalDate.of(2021, 11, 25), rule.getObservedDate(2021));
+            assertEquals(LocalDate.of(2022, 11, 24), rule.getObservedDate(2022));
+            //November 1st 2018 was a Thursday
+            assertEquals(LocalDate.of(2018, 11, 22), rule.getObservedDate(2018));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Memorial day is the last Monday of May
+     */
+    @Test
+    void lastWeekdayShouldFindLastDayOfWeekOfMonth() {
+        try {
+            HolidayRule rule = HolidayRules.compile(new Holiday("last-weekday", 5, 0, DayOfWeek.MONDAY, 0, 0, null));
+            assertEquals(LocalDate.of(2021, 5, 31), rule.getObservedDate(2021));
+            assertEquals(LocalDate.of(2022, 5, 30), rule.getObservedDate(2022));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Fixed holidays are observed on their date unless an observance moves them
+     */
+    @Test
+    void fixedShouldApplyObservance() {
+        try {
+            //Christmas 2021 was a Saturday
+            assertEquals(LocalDate.of(2021, 12, 25), HolidayRules.compile(
+                    new Holiday("fixed", 12, 25, null, 0, 0, null)).getObservedDate(2021));
+            assertEquals(LocalDate.of(2021, 12, 24), HolidayRules.compile(
+                    new Holiday("fixed", 12, 25, null, 0, 0, "closest-weekday")).getObservedDate(2021));
+            assertEquals(LocalDate.of(2021, 12, 27), HolidayRules.compile(
+                    new Holiday("fixed", 12, 25, null, 0, 0, "next-monday")).getObservedDate(2021));
+            assertEquals(LocalDate.of(2021, 2, 28), HolidayRules.compile(
+                    new Holiday("fixed", 2, 29, null, 0, 0, null)).getObservedDate(2021));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * One-off holidays only happen in their own year
+     */
+    @Test
+    void onceShouldOnlyHappenInItsYear() {
+        try {
+            HolidayRule rule = HolidayRules.compile(new Holiday("once", 6, 5, null, 0, 2021, "closest-weekday"));
+            assertEquals(LocalDate.of(2021, 6, 4), rule.getObservedDate(2021));
+            assertNull(rule.getObservedDate(2022));
+
+            HolidayCalendar calendar = new HolidayCalendar(List.of(new Holiday("once", 6, 5, null, 0, 2021, null)));
+            assertEquals(1, calendar.countHolidaysBetween(LocalDate.of(2021, 1, 1), LocalDate.of(2021, 12, 31)));
+            assertEquals(0, calendar.countHolidaysBetween(LocalDate.of(2022, 1, 1), LocalDate.of(2022, 12, 31)));
+        } catch (ToolManagementException ex) {
+            fail(ex.getMessage());
+        }
+    }
+
+    /**
+     * Holidays with missing or invalid fields for their type should fail
+     */
+    @Test
+    void compileShouldFailForInvalidFields() {
+        List<Holiday> invalidHolidays = List.of(
+                new Holiday("nth-weekday", 11, 0, DayOfWeek.THURSDAY, 5, 0, null),
+                new Holiday("nth-weekday", 11, 0, null, 4, 0, null),
+                new Holiday("last-weekday", 13, 0, DayOfWeek.MONDAY, 0, 0, null),
+                new Holiday("fixed", 2, 30, null, 0, 0, null),
+                new Holiday("fixed", 12, 25, null, 0, 0, "previous-friday"),
+                new Holiday("once", 2, 29, null, 0, 2021, null),
+                new Holiday(null, 7, 4)
+        );
+        for (Holiday holiday : invalidHolidays) {
+            try {
+                HolidayRules.compile(holiday);
+                fail("Holiday should not compile: " + holiday);
+            } catch (ToolManagementException ex) {
+                assertEquals(ErrorCode.DATE0001, ex.getErrorCode());
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.mfurst.mf0721.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.runner.RunWith;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@RunWith(SpringJUnit4ClassRunner.class)
+class RentalFormatterTest {
+
+    private final RentalFormatter formatter = new RentalFormatter("MM/dd/yy", "$#,##0.00");
+
+    /**
+     * Dates should round trip through the date format
+     */
+    @Test
+    void formatAndParseDates() {
+        assertEquals("07/02/20", formatter.formatDate(LocalDate.of(2020, 7, 2)));
+        assertEquals(LocalDate.of(2020, 7, 2), formatter.parseDate("07/02/20"));
+        assertThrows(DateTimeParseException.class, () -> formatter.parseDate("2020-07-02"));
+    }
+
+    /**
+     * Trying to parse should give the same dates as parsing, and null instead of exceptions
+     */
+    @Test
+    void tryParseDateShouldReturnNullForInvalidDates() {
+        assertEquals(LocalDate.of(2020, 7, 2), formatter.tryParseDate("07/02/20"));
+        assertNull(formatter.tryParseDate("2020-07-02"));
+        assertNull(formatter.tryParseDate("07/02/2020"));
+        assertNull(formatter.tryParseDate("07/02"));
+        assertNull(formatter.tryParseDate(""));
+        assertNull(formatter.tryParseDate(null));
+        //Matches the pattern but is not a valid date
+        assertNull(formatter.tryParseDate("13/02/20"));
+        assertThrows(DateTimeParseException.class, () -> formatter.parseDate("13/02/20"));
+    }
+
+    /**
+     * Currency should use the currency format
+     */
+    @Test
+    void formatCurrency() {
+        assertEquals("$1,234.50", formatter.formatCurrency(new BigDecimal("1234.5")));
+        assertEquals("$0.00", formatter.formatCurrency(BigDecimal.ZERO));
+    }
+
+    /**
+     * Formatters are only reused for the same patterns
+     */
+    @Test
+    void isBuiltFromShouldMatchPatterns() {
+        assertTrue(formatter.isBuiltFrom("MM/dd/yy", "$#,##0.00"));
+        assertFalse(formatter.isBuiltFrom("MM/dd/yyyy", "$#,##0.00"));
+        assertFalse(formatter.isBuiltFrom("MM/dd/yy", "#,##0.00"));
+    }
+
+    /**
+     * Formatting currency from many threads at once should give the same results as formatting on one thread
+     */
+    @Test
+    void formatCurrencyFromManyThreads() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                results.add(executor.submit(() -> {
+                    for (int cents = offset; cents < 200_000; cents += 8) {
+                        String expected = "$" + String.format("%,d.%02d", cents / 100, cents % 100);
+                        if (!expected.equals(formatter.formatCurrency(BigDecimal.valueOf(cents, 2)))) return false;
+                    }
+                    return true;
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}